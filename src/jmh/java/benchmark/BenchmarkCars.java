@@ -0,0 +1,74 @@
+package benchmark;
+
+import car.builder.CarBuilder;
+import car.domain.CarModel;
+import car.domain.Color;
+import car.domain.EngineType;
+import car.domain.ExteriorFeature;
+import car.domain.InteriorFeature;
+import car.domain.SafetyFeature;
+import car.domain.TransmissionType;
+
+/**
+ * Shared fixtures for the benchmarks.
+ */
+final class BenchmarkCars {
+
+    /** Largest feature count a single configuration supports. */
+    static final int MAX_FEATURES = InteriorFeature.values().length
+            + ExteriorFeature.values().length + SafetyFeature.values().length;
+
+    private BenchmarkCars() {
+        // utility class
+    }
+
+    /**
+     * Configures an SUV with the given number of features, filling interior,
+     * exterior and safety features in that order.
+     * @param features number of features, at most {@link #MAX_FEATURES}
+     * @return a builder whose {@code build()} succeeds
+     */
+    static CarBuilder suvBuilder(int features) {
+        CarBuilder builder = new CarBuilder()
+                .withModel(CarModel.SUV)
+                .withEngine(EngineType.V8)
+                .withTransmission(TransmissionType.AUTOMATIC)
+                .setColor(Color.BLUE);
+        int remaining = features;
+        for (InteriorFeature feature : InteriorFeature.values()) {
+            if (remaining-- <= 0) {
+                return builder;
+            }
+            builder.addInteriorFeature(feature);
+        }
+        for (ExteriorFeature feature : ExteriorFeature.values()) {
+            if (remaining-- <= 0) {
+                return builder;
+            }
+            builder.addExteriorFeature(feature);
+        }
+        for (SafetyFeature feature : SafetyFeature.values()) {
+            if (remaining-- <= 0) {
+                return builder;
+            }
+            builder.addSafetyFeature(feature);
+        }
+        return builder;
+    }
+
+    /**
+     * Builds document content of roughly the given number of lines by
+     * repeating a report, so every format sees realistic text.
+     * @param report the report text to repeat
+     * @param lines target number of lines
+     * @return the content
+     */
+    static String content(String report, int lines) {
+        String[] reportLines = report.split("\n");
+        StringBuilder content = new StringBuilder(lines * 48);
+        for (int i = 0; i < lines; i++) {
+            content.append(reportLines[i % reportLines.length]).append('\n');
+        }
+        return content.toString();
+    }
+}
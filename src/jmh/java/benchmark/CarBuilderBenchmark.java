@@ -0,0 +1,45 @@
+package benchmark;
+
+import car.builder.CarBuilder;
+import car.domain.Car;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of validating a configuration and building the immutable car.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CarBuilderBenchmark {
+
+    /** Number of optional features on the car. */
+    @Param({"0", "4", "9"})
+    public int features;
+
+    private CarBuilder builder;
+
+    @Setup
+    public void setUp() {
+        builder = BenchmarkCars.suvBuilder(features);
+    }
+
+    @Benchmark
+    public Car build() {
+        return builder.build();
+    }
+}
@@ -0,0 +1,55 @@
+package benchmark;
+
+import car.domain.Car;
+import integration.CarReportGenerator;
+import integration.order.Order;
+import integration.order.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of rendering the configuration report text.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CarReportGeneratorBenchmark {
+
+    /** Number of optional features listed in the report. */
+    @Param({"0", "4", "9"})
+    public int features;
+
+    private final CarReportGenerator generator = new CarReportGenerator();
+    private Car car;
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        car = BenchmarkCars.suvBuilder(features).build();
+        order = new OrderService().placeOrder(car);
+    }
+
+    @Benchmark
+    public String generateReport() {
+        return generator.generateReport(car);
+    }
+
+    @Benchmark
+    public String generateReportWithOrder() {
+        return generator.generateReport(car, order);
+    }
+}
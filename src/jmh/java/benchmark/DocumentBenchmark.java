@@ -0,0 +1,74 @@
+package benchmark;
+
+import car.domain.Car;
+import editor.core.Document;
+import editor.factory.DocumentFactory;
+import integration.CarReportGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of creating documents through the factory and encoding them, per
+ * format and content size.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DocumentBenchmark {
+
+    @Param({"pdf", "word", "html"})
+    public String format;
+
+    /** Number of content lines; the report repeated as often as needed. */
+    @Param({"16", "256", "4096"})
+    public int lines;
+
+    private final DocumentFactory factory = DocumentFactory.createDefault();
+    private String title;
+    private String content;
+    private Document document;
+
+    @Setup
+    public void setUp() {
+        CarReportGenerator generator = new CarReportGenerator();
+        Car car = BenchmarkCars.suvBuilder(BenchmarkCars.MAX_FEATURES).build();
+        title = generator.generateTitle(car);
+        content = BenchmarkCars.content(generator.generateReport(car), lines);
+        document = factory.createDocument(format, title);
+        document.setContent(content);
+    }
+
+    @Benchmark
+    public Document createDocument() {
+        Document created = factory.createDocument(format, title);
+        created.setContent(content);
+        return created;
+    }
+
+    @Benchmark
+    public byte[] save() {
+        return document.save();
+    }
+
+    /** Streams the encoding instead of returning it, as the storage paths do. */
+    @Benchmark
+    public void writeTo() throws IOException {
+        document.writeTo(OutputStream.nullOutputStream());
+    }
+}
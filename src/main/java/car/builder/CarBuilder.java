@@ -1,6 +1,8 @@
 package car.builder;
 
 import car.domain.*;
+import metrics.CarBuildEvent;
+import metrics.MetricsRegistry;
 
 import java.util.*;
 
@@ -152,28 +154,59 @@ public class CarBuilder {
     
     /**
      * Builds and validates the car configuration.
+     * Cars are interned: equal configurations return the same immutable
+     * instance, so building a valid, previously seen configuration allocates
+     * nothing.
      * @return a valid, immutable Car instance
      * @throws InvalidCarConfigurationException if validation fails
      */
     public Car build() {
+        if (!CarBuildEvent.isRecording()) {
+            return validateAndIntern();
+        }
+        CarBuildEvent event = new CarBuildEvent();
+        event.begin();
+        boolean valid = false;
+        try {
+            Car car = validateAndIntern();
+            valid = true;
+            return car;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.setModel(model == null ? null : model.name());
+                event.setFeatureCount(interiorFeatures.size() + exteriorFeatures.size() + safetyFeatures.size());
+                event.setValid(valid);
+                event.commit();
+            }
+        }
+    }
+    
+    private Car validateAndIntern() {
         validateRequiredFields();
         validateCompatibility();
         
-        return new Car(model, engine, transmission, color, 
-                interiorFeatures, exteriorFeatures, safetyFeatures);
+        return CarConfigurationCodec.decode(CarConfigurationCodec.encode(model, engine, transmission, color,
+                interiorFeatures, exteriorFeatures, safetyFeatures));
     }
     
     private void validateRequiredFields() {
+        if (model != null && engine != null && transmission != null) {
+            return;
+        }
         List<String> missingFields = new ArrayList<>();
         
         if (model == null) {
             missingFields.add("model");
+            recordFailure("missing_model");
         }
         if (engine == null) {
             missingFields.add("engine");
+            recordFailure("missing_engine");
         }
         if (transmission == null) {
             missingFields.add("transmission");
+            recordFailure("missing_transmission");
         }
         
         if (!missingFields.isEmpty()) {
@@ -184,10 +217,19 @@ public class CarBuilder {
     }
     
     private void validateCompatibility() {
+        // bitwise checks on the enum sets; the detailed, allocating pass below only runs for invalid cars
+        if (model.supportsEngine(engine)
+                && model.supportsTransmission(transmission)
+                && model.getAllowedInteriorFeatures().containsAll(interiorFeatures)
+                && model.getAllowedExteriorFeatures().containsAll(exteriorFeatures)
+                && model.getAllowedSafetyFeatures().containsAll(safetyFeatures)) {
+            return;
+        }
         List<String> errors = new ArrayList<>();
         
         // Validate engine compatibility
         if (!model.supportsEngine(engine)) {
+            recordFailure("unsupported_engine");
             errors.add(String.format("Engine '%s' is not supported by %s. Allowed engines: %s",
                     engine.getDisplayName(), 
                     model.getDisplayName(),
@@ -196,6 +238,7 @@ public class CarBuilder {
         
         // Validate transmission compatibility
         if (!model.supportsTransmission(transmission)) {
+            recordFailure("unsupported_transmission");
             errors.add(String.format("Transmission '%s' is not supported by %s. Allowed transmissions: %s",
                     transmission.getDisplayName(),
                     model.getDisplayName(),
@@ -205,6 +248,7 @@ public class CarBuilder {
         // Validate interior features compatibility
         for (InteriorFeature feature : interiorFeatures) {
             if (!model.supportsInteriorFeature(feature)) {
+                recordFailure("unsupported_interior_feature");
                 errors.add(String.format("Interior feature '%s' is not supported by %s. Allowed features: %s",
                         feature.getDisplayName(),
                         model.getDisplayName(),
@@ -215,6 +259,7 @@ public class CarBuilder {
         // Validate exterior features compatibility
         for (ExteriorFeature feature : exteriorFeatures) {
             if (!model.supportsExteriorFeature(feature)) {
+                recordFailure("unsupported_exterior_feature");
                 errors.add(String.format("Exterior feature '%s' is not supported by %s. Allowed features: %s",
                         feature.getDisplayName(),
                         model.getDisplayName(),
@@ -225,6 +270,7 @@ public class CarBuilder {
         // Validate safety features compatibility
         for (SafetyFeature feature : safetyFeatures) {
             if (!model.supportsSafetyFeature(feature)) {
+                recordFailure("unsupported_safety_feature");
                 errors.add(String.format("Safety feature '%s' is not supported by %s. Allowed features: %s",
                         feature.getDisplayName(),
                         model.getDisplayName(),
@@ -238,6 +284,10 @@ public class CarBuilder {
         }
     }
     
+    private static void recordFailure(String reason) {
+        MetricsRegistry.global().recordValidationFailure(reason);
+    }
+    
     /**
      * Resets the builder to initial state.
      * @return this builder
@@ -0,0 +1,119 @@
+package car.domain;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Packs a car configuration into a dense integer code and back.
+ * <p>
+ * The code is a mixed-radix number over the enum ordinals of model, engine,
+ * transmission and color, followed by one bit per feature. Every configuration
+ * maps to a value in {@code [0, CARDINALITY)}, so codes can index primitive
+ * arrays directly. Codes depend on enum declaration order; appending constants
+ * changes the code space.
+ */
+public final class CarConfigurationCodec {
+
+    private static final CarModel[] MODELS = CarModel.values();
+    private static final EngineType[] ENGINES = EngineType.values();
+    private static final TransmissionType[] TRANSMISSIONS = TransmissionType.values();
+    private static final Color[] COLORS = Color.values();
+    private static final InteriorFeature[] INTERIOR = InteriorFeature.values();
+    private static final ExteriorFeature[] EXTERIOR = ExteriorFeature.values();
+    private static final SafetyFeature[] SAFETY = SafetyFeature.values();
+
+    private static final int FEATURE_BITS = INTERIOR.length + EXTERIOR.length + SAFETY.length;
+
+    /** Number of distinct configuration codes. */
+    public static final int CARDINALITY = MODELS.length * ENGINES.length * TRANSMISSIONS.length
+            * COLORS.length << FEATURE_BITS;
+
+    private static final Car[] DECODED = new Car[CARDINALITY];
+
+    private CarConfigurationCodec() {
+        // utility class
+    }
+
+    /**
+     * Encodes the configuration of a car.
+     * @param car the car to encode
+     * @return the configuration code
+     */
+    public static int encode(Car car) {
+        return encode(car.getModel(), car.getEngine(), car.getTransmission(), car.getColor(),
+                car.getInteriorFeatures(), car.getExteriorFeatures(), car.getSafetyFeatures());
+    }
+
+    /**
+     * Encodes a configuration given by its parts, without allocating.
+     * @return the configuration code
+     */
+    public static int encode(CarModel model, EngineType engine, TransmissionType transmission, Color color,
+                             Set<InteriorFeature> interior, Set<ExteriorFeature> exterior,
+                             Set<SafetyFeature> safety) {
+        int code = model.ordinal();
+        code = code * ENGINES.length + engine.ordinal();
+        code = code * TRANSMISSIONS.length + transmission.ordinal();
+        code = code * COLORS.length + color.ordinal();
+        code = (code << INTERIOR.length) | mask(interior, INTERIOR);
+        code = (code << EXTERIOR.length) | mask(exterior, EXTERIOR);
+        code = (code << SAFETY.length) | mask(safety, SAFETY);
+        return code;
+    }
+
+    /**
+     * Decodes a configuration code. Decoded cars are immutable and cached,
+     * so repeated calls for the same code return the same instance.
+     * @param code a code produced by {@link #encode(Car)}
+     * @return the car for the code
+     * @throws IllegalArgumentException if the code is out of range
+     */
+    public static Car decode(int code) {
+        if (code < 0 || code >= CARDINALITY) {
+            throw new IllegalArgumentException("Invalid car configuration code: " + code);
+        }
+        Car car = DECODED[code];
+        if (car == null) {
+            car = unpack(code);
+            DECODED[code] = car;
+        }
+        return car;
+    }
+
+    private static Car unpack(int code) {
+        Set<SafetyFeature> safety = features(code, SAFETY, SafetyFeature.class);
+        code >>>= SAFETY.length;
+        Set<ExteriorFeature> exterior = features(code, EXTERIOR, ExteriorFeature.class);
+        code >>>= EXTERIOR.length;
+        Set<InteriorFeature> interior = features(code, INTERIOR, InteriorFeature.class);
+        code >>>= INTERIOR.length;
+        Color color = COLORS[code % COLORS.length];
+        code /= COLORS.length;
+        TransmissionType transmission = TRANSMISSIONS[code % TRANSMISSIONS.length];
+        code /= TRANSMISSIONS.length;
+        EngineType engine = ENGINES[code % ENGINES.length];
+        code /= ENGINES.length;
+        return new Car(MODELS[code], engine, transmission, color, interior, exterior, safety);
+    }
+
+    private static <E extends Enum<E>> int mask(Set<E> features, E[] values) {
+        // probing each constant avoids the iterator a for-each over the set would allocate
+        int mask = 0;
+        for (E value : values) {
+            if (features.contains(value)) {
+                mask |= 1 << value.ordinal();
+            }
+        }
+        return mask;
+    }
+
+    private static <E extends Enum<E>> Set<E> features(int code, E[] values, Class<E> type) {
+        Set<E> set = EnumSet.noneOf(type);
+        for (E value : values) {
+            if ((code & (1 << value.ordinal())) != 0) {
+                set.add(value);
+            }
+        }
+        return set;
+    }
+}
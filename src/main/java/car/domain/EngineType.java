@@ -9,10 +9,12 @@ public enum EngineType {
     
     private final String displayName;
     private final int horsepower;
+    private final String label;
     
     EngineType(String displayName, int horsepower) {
         this.displayName = displayName;
         this.horsepower = horsepower;
+        this.label = displayName + " (" + horsepower + " HP)";
     }
     
     public String getDisplayName() {
@@ -25,6 +27,6 @@ public enum EngineType {
     
     @Override
     public String toString() {
-        return displayName + " (" + horsepower + " HP)";
+        return label;
     }
 }
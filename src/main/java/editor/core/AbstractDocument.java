@@ -1,5 +1,12 @@
 package editor.core;
 
+import metrics.DocumentSaveEvent;
+import metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.UUID;
+
 /**
  * Abstract base class for documents providing common functionality.
  * Concrete document implementations should extend this class.
@@ -31,4 +38,60 @@ public abstract class AbstractDocument implements Document {
     public String getContent() {
         return content;
     }
+    
+    /**
+     * Writes the document without attributing its save event to an order.
+     */
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        writeTo(out, null);
+    }
+    
+    /**
+     * Encodes the document into the stream, records it in the metrics
+     * registry and, while a flight recording is running, commits its save
+     * event, attributed to the order.
+     */
+    @Override
+    public void writeTo(OutputStream out, UUID orderId) throws IOException {
+        DocumentSaveEvent event = new DocumentSaveEvent();
+        event.begin();
+        long started = System.nanoTime();
+        CountingOutputStream counted = new CountingOutputStream(out);
+        encode(counted);
+        out.flush();
+        recordSave(event, started, getFormatKey(), title, content.length(), counted.getCount(), orderId);
+    }
+    
+    /**
+     * Encodes the document into its output format.
+     * @param out the stream receiving the encoded document
+     * @throws IOException if encoding or the stream fails
+     */
+    protected abstract void encode(OutputStream out) throws IOException;
+    
+    /**
+     * Records one encoded document in the metrics registry and, while a flight
+     * recording is running, commits its save event.
+     * @param event the event begun when encoding started
+     * @param startedNanos {@link System#nanoTime()} when encoding started
+     * @param formatKey the output format
+     * @param title the document title
+     * @param contentLength length of the encoded content in characters
+     * @param bytes size of the encoded output
+     * @param orderId the order the document belongs to, or null
+     */
+    protected static void recordSave(DocumentSaveEvent event, long startedNanos, String formatKey, String title,
+                                     long contentLength, long bytes, UUID orderId) {
+        MetricsRegistry.global().recordSave(formatKey, System.nanoTime() - startedNanos, bytes);
+        event.end();
+        if (event.shouldCommit()) {
+            event.setFormatKey(formatKey);
+            event.setOrderId(orderId == null ? null : orderId.toString());
+            event.setTitle(title);
+            event.setContentLength(contentLength);
+            event.setOutputBytes(bytes);
+            event.commit();
+        }
+    }
 }
@@ -1,12 +1,27 @@
 package editor.core;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.UUID;
+
 /**
  * Document abstraction defining the contract for all document types.
  * This interface allows the editor to work with any document format
  * without knowing the concrete implementation details.
  */
 public interface Document {
-    
+
+    /**
+     * Separates the cells of a table row in document content.
+     * Consecutive lines containing it form one table whose first line is the
+     * header row; formats with a table layout render such blocks as tables.
+     * It is the ASCII unit separator, a control character that does not occur
+     * in text, so ordinary content (including tabs) never turns into a table.
+     */
+    char TABLE_CELL_SEPARATOR = '\u001F';
+
     /**
      * Gets the document title.
      * @return the title of the document
@@ -25,12 +40,54 @@ public interface Document {
      */
     String getContent();
     
+    /**
+     * Opens a writer that replaces the document content with everything
+     * written to it. The new content becomes visible once the writer is closed.
+     * Producers can write into it without building the text themselves, but
+     * the default implementation still buffers the text and stores it as one
+     * string on close, since documents hold their content as a string. To
+     * encode a report without materializing it, see
+     * {@code HtmlDocument.openEncoder}.
+     * @return a writer acting as the content sink of this document
+     */
+    default Writer openContentWriter() {
+        return new StringWriter() {
+            @Override
+            public void close() {
+                setContent(toString());
+            }
+        };
+    }
+    
     /**
      * Saves the document and returns the binary representation.
      * @return byte array representing the saved document
      */
     byte[] save();
     
+    /**
+     * Writes the saved binary representation to the given stream.
+     * The stream is flushed but not closed. Formats that can encode
+     * incrementally override this to avoid materializing the whole output.
+     * @param out the stream to write to
+     * @throws IOException if writing to the stream fails
+     */
+    default void writeTo(OutputStream out) throws IOException {
+        out.write(save());
+        out.flush();
+    }
+    
+    /**
+     * Writes the document like {@link #writeTo(OutputStream)} on behalf of an
+     * order, so its save event in a flight recording names the order.
+     * @param out the stream to write to
+     * @param orderId the order the document belongs to, or null
+     * @throws IOException if writing to the stream fails
+     */
+    default void writeTo(OutputStream out, UUID orderId) throws IOException {
+        writeTo(out);
+    }
+    
     /**
      * Renders the document as a text preview.
      * @return text representation of the document
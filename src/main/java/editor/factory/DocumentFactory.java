@@ -2,21 +2,29 @@ package editor.factory;
 
 import editor.core.Document;
 import editor.core.UnknownDocumentFormatException;
+import editor.formats.HtmlDocument;
+import editor.formats.PdfDocument;
+import editor.formats.WordDocument;
+import metrics.MetricsRegistry;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
  * Factory for creating documents using a registry-based approach.
- * Document providers are registered at startup, allowing new formats
- * to be added without modifying this class or the editor.
+ * Document providers are registered at startup or discovered with
+ * {@link ServiceLoader}, allowing new formats to be added without modifying
+ * this class or the editor. Providers registered with a {@link Supplier} are
+ * only created on first use.
+ * <p>
+ * The registry is an immutable snapshot that registration replaces
+ * (copy-on-write), so lookups are safe on any number of threads without
+ * locking: one volatile read and an allocation-free, case-insensitive probe.
  */
 public class DocumentFactory {
     
-    private final Map<String, DocumentProvider> registry;
-    
-    public DocumentFactory() {
-        this.registry = new HashMap<>();
-    }
+    private volatile ProviderSnapshot registry = ProviderSnapshot.EMPTY;
     
     /**
      * Registers a document provider.
@@ -27,10 +35,26 @@ public class DocumentFactory {
         if (provider == null) {
             throw new IllegalArgumentException("Provider cannot be null");
         }
-        registry.put(provider.formatKey().toLowerCase(), provider);
+        synchronized (this) {
+            registry = registry.with(provider);
+        }
         return this;
     }
     
+    /**
+     * Registers a provider that is created on the first document of its
+     * format, so the classes behind it are not loaded until then.
+     * @param formatKey the format key the provider handles
+     * @param supplier creates the provider; called at most once
+     * @return this factory for fluent chaining
+     */
+    public DocumentFactory register(String formatKey, Supplier<? extends DocumentProvider> supplier) {
+        if (formatKey == null || formatKey.isBlank() || supplier == null) {
+            throw new IllegalArgumentException("Format key and supplier cannot be null");
+        }
+        return register(new LazyDocumentProvider(formatKey.toLowerCase(Locale.ROOT), supplier));
+    }
+    
     /**
      * Registers multiple document providers.
      * @param providers the providers to register
@@ -43,6 +67,23 @@ public class DocumentFactory {
         return this;
     }
     
+    /**
+     * Registers every provider listed in a
+     * {@code META-INF/services/editor.factory.DocumentProvider} file visible to
+     * the class loader. A discovered provider replaces an earlier one of the
+     * same format. Discovered providers are instantiated right away, so they
+     * should defer loading their engine until a document is created.
+     * @param classLoader the class loader to search
+     * @return this factory for fluent chaining
+     * @throws ServiceConfigurationError if a listed provider cannot be loaded
+     */
+    public DocumentFactory registerDiscovered(ClassLoader classLoader) {
+        for (DocumentProvider provider : ServiceLoader.load(DocumentProvider.class, classLoader)) {
+            register(provider);
+        }
+        return this;
+    }
+    
     /**
      * Creates a document of the specified format.
      * @param formatKey the format key (case-insensitive)
@@ -51,14 +92,16 @@ public class DocumentFactory {
      * @throws UnknownDocumentFormatException if the format is not registered
      */
     public Document createDocument(String formatKey, String title) {
-        String key = formatKey.toLowerCase();
-        DocumentProvider provider = registry.get(key);
+        ProviderSnapshot providers = registry;
+        int slot = providers.find(formatKey);
         
-        if (provider == null) {
-            throw new UnknownDocumentFormatException(formatKey, getSupportedFormats());
+        if (slot < 0) {
+            throw new UnknownDocumentFormatException(formatKey, providers.formats());
         }
         
-        return provider.create(title);
+        Document document = providers.provider(slot).create(title);
+        MetricsRegistry.global().recordDocumentCreated(providers.key(slot));
+        return document;
     }
     
     /**
@@ -67,25 +110,64 @@ public class DocumentFactory {
      * @return true if the format is registered
      */
     public boolean supportsFormat(String formatKey) {
-        return registry.containsKey(formatKey.toLowerCase());
+        return registry.find(formatKey) >= 0;
     }
     
     /**
      * Gets all registered format keys.
-     * @return unmodifiable set of format keys
+     * @return unmodifiable set of format keys, in registration order
      */
     public Set<String> getSupportedFormats() {
-        return Collections.unmodifiableSet(registry.keySet());
+        return registry.formats();
+    }
+    
+    /**
+     * Initializes the engines of the given formats on a background thread,
+     * so their first documents are not slowed down by class loading.
+     * @param formatKeys the formats to warm up (case-insensitive)
+     * @return completes when every format is warmed up, or exceptionally
+     *         with the first failure
+     * @throws UnknownDocumentFormatException if a format is not registered
+     */
+    public CompletableFuture<Void> warmUp(String... formatKeys) {
+        ProviderSnapshot registered = registry;
+        List<DocumentProvider> providers = new ArrayList<>(formatKeys.length);
+        for (String formatKey : formatKeys) {
+            int slot = registered.find(formatKey);
+            if (slot < 0) {
+                throw new UnknownDocumentFormatException(formatKey, registered.formats());
+            }
+            providers.add(registered.provider(slot));
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                for (DocumentProvider provider : providers) {
+                    provider.warmUp();
+                }
+                done.complete(null);
+            } catch (Exception | LinkageError ex) {
+                done.completeExceptionally(ex);
+            }
+        }, "document-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+        return done;
     }
     
     /**
-     * Creates a factory with default document providers (PDF, Word, HTML).
+     * Creates a factory with default document providers (PDF, Word, HTML)
+     * plus any provider discovered on the classpath.
+     * The built-in providers are registered lazily: a process that only
+     * renders HTML never loads PDFBox or POI.
      * @return a pre-configured DocumentFactory
+     * @see #registerDiscovered(ClassLoader)
      */
     public static DocumentFactory createDefault() {
         return new DocumentFactory()
-                .register(new PdfDocumentProvider())
-                .register(new WordDocumentProvider())
-                .register(new HtmlDocumentProvider());
+                .register(PdfDocument.FORMAT_KEY, PdfDocumentProvider::new)
+                .register(WordDocument.FORMAT_KEY, WordDocumentProvider::new)
+                .register(HtmlDocument.FORMAT_KEY, HtmlDocumentProvider::new)
+                .registerDiscovered(DocumentFactory.class.getClassLoader());
     }
 }
@@ -21,4 +21,14 @@ public interface DocumentProvider {
      * @return a new Document instance
      */
     Document create(String title);
+    
+    /**
+     * Pre-initializes the engine behind this format, e.g. by loading its
+     * classes, so the first document saved afterwards is not slowed down.
+     * Formats without a heavyweight engine keep the default, which does nothing.
+     * @throws Exception if the engine fails to initialize
+     */
+    default void warmUp() throws Exception {
+        // nothing to initialize
+    }
 }
@@ -0,0 +1,59 @@
+package editor.factory;
+
+import editor.core.Document;
+
+import java.util.function.Supplier;
+
+/**
+ * Provider registered by format key that creates the real provider on first
+ * use, so the classes behind a format are only loaded if it is actually used.
+ */
+final class LazyDocumentProvider implements DocumentProvider {
+
+    private final String formatKey;
+    private Supplier<? extends DocumentProvider> supplier;
+    private volatile DocumentProvider delegate;
+
+    LazyDocumentProvider(String formatKey, Supplier<? extends DocumentProvider> supplier) {
+        this.formatKey = formatKey;
+        this.supplier = supplier;
+    }
+
+    @Override
+    public String formatKey() {
+        return formatKey;
+    }
+
+    @Override
+    public Document create(String title) {
+        return delegate().create(title);
+    }
+
+    @Override
+    public void warmUp() throws Exception {
+        delegate().warmUp();
+    }
+
+    boolean isLoaded() {
+        return delegate != null;
+    }
+
+    private DocumentProvider delegate() {
+        DocumentProvider provider = delegate;
+        if (provider == null) {
+            synchronized (this) {
+                provider = delegate;
+                if (provider == null) {
+                    provider = supplier.get();
+                    if (provider == null || !formatKey.equalsIgnoreCase(provider.formatKey())) {
+                        throw new IllegalStateException("Supplier registered for format '" + formatKey
+                                + "' returned " + (provider == null ? "null" : "format '" + provider.formatKey() + "'"));
+                    }
+                    delegate = provider;
+                    supplier = null;
+                }
+            }
+        }
+        return provider;
+    }
+}
@@ -3,6 +3,8 @@ package editor.factory;
 import editor.formats.PdfDocument;
 import editor.core.Document;
 
+import java.io.IOException;
+
 /**
  * Provider for PDF documents.
  */
@@ -17,4 +19,9 @@ public class PdfDocumentProvider implements DocumentProvider {
     public Document create(String title) {
         return new PdfDocument(title);
     }
+    
+    @Override
+    public void warmUp() throws IOException {
+        PdfDocument.warmUp();
+    }
 }
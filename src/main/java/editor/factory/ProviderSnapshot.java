@@ -0,0 +1,94 @@
+package editor.factory;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Immutable table of the registered providers, keyed by lower-case format key.
+ * <p>
+ * Lookups hash and compare the requested key case-insensitively in place, so
+ * they never allocate a lower-cased copy. The table is open-addressed with
+ * linear probing and at most half full. Registering a provider builds a new
+ * snapshot; readers keep using the one they loaded.
+ */
+final class ProviderSnapshot {
+
+    static final ProviderSnapshot EMPTY = new ProviderSnapshot(new LinkedHashMap<>());
+
+    private final LinkedHashMap<String, DocumentProvider> entries;
+    private final String[] keys;
+    private final DocumentProvider[] providers;
+    private final int mask;
+    private final Set<String> formats;
+
+    private ProviderSnapshot(LinkedHashMap<String, DocumentProvider> entries) {
+        this.entries = entries;
+        int capacity = Integer.highestOneBit(Math.max(4, entries.size() * 2) - 1) << 1;
+        this.keys = new String[capacity];
+        this.providers = new DocumentProvider[capacity];
+        this.mask = capacity - 1;
+        entries.forEach((key, provider) -> {
+            int slot = hash(key) & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            providers[slot] = provider;
+        });
+        this.formats = Collections.unmodifiableSet(new LinkedHashSet<>(entries.keySet()));
+    }
+
+    /**
+     * Returns a snapshot with the provider added, replacing any provider of
+     * the same format.
+     */
+    ProviderSnapshot with(DocumentProvider provider) {
+        LinkedHashMap<String, DocumentProvider> copy = new LinkedHashMap<>(entries);
+        copy.put(provider.formatKey().toLowerCase(Locale.ROOT), provider);
+        return new ProviderSnapshot(copy);
+    }
+
+    /**
+     * Finds the slot of a format.
+     * @param formatKey the format key in any case
+     * @return the slot, or -1 if the format is not registered
+     */
+    int find(String formatKey) {
+        int length = formatKey.length();
+        int slot = hash(formatKey) & mask;
+        String key;
+        while ((key = keys[slot]) != null) {
+            if (key.length() == length && key.regionMatches(true, 0, formatKey, 0, length)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /** @return the lower-case format key in a slot found by {@link #find} */
+    String key(int slot) {
+        return keys[slot];
+    }
+
+    /** @return the provider in a slot found by {@link #find} */
+    DocumentProvider provider(int slot) {
+        return providers[slot];
+    }
+
+    /** @return the registered format keys in registration order */
+    Set<String> formats() {
+        return formats;
+    }
+
+    private static int hash(String key) {
+        int hash = 0;
+        for (int i = 0; i < key.length(); i++) {
+            hash = 31 * hash + Character.toLowerCase(key.charAt(i));
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
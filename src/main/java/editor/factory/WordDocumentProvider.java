@@ -3,6 +3,8 @@ package editor.factory;
 import editor.formats.WordDocument;
 import editor.core.Document;
 
+import java.io.IOException;
+
 /**
  * Provider for Word documents.
  */
@@ -17,4 +19,9 @@ public class WordDocumentProvider implements DocumentProvider {
     public Document create(String title) {
         return new WordDocument(title);
     }
+    
+    @Override
+    public void warmUp() throws IOException {
+        WordDocument.warmUp();
+    }
 }
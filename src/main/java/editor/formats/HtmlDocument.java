@@ -1,8 +1,18 @@
 package editor.formats;
 
 import editor.core.AbstractDocument;
+import editor.core.CountingOutputStream;
+import metrics.DocumentSaveEvent;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.util.UUID;
 
 /**
  * HTML document implementation.
@@ -18,29 +28,80 @@ public class HtmlDocument extends AbstractDocument {
     
     @Override
     public byte[] save() {
-        StringBuilder body = new StringBuilder();
-        if (content != null && !content.isEmpty()) {
-            for (String line : content.split("\n")) {
-                body.append("        <p>").append(escapeHtml(line)).append("</p>\n");
-            }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256 + content.length() * 2);
+        try {
+            writeTo(out);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
         }
-
-        String htmlContent = "<!DOCTYPE html>\n" +
+        return out.toByteArray();
+    }
+    
+    @Override
+    protected void encode(OutputStream out) throws IOException {
+        // small reports do not need the default 8K-char buffer
+        int bufferSize = (int) Math.min(8192L, 1024L + content.length() * 2L);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), bufferSize);
+        writeHeader(title, writer);
+        writeParagraphs(content, writer);
+        writeFooter(writer);
+        writer.flush();
+    }
+    
+    /**
+     * Opens a writer that encodes the text written to it as the HTML of a
+     * document with the given title, straight into the stream. Only the
+     * current line is buffered, so a report can go from its generator to a
+     * file or socket without ever existing as one string. The output is the
+     * same as {@link #writeTo(OutputStream)} of a document with that content.
+     * Closing the writer finishes the document and flushes the stream but does
+     * not close it.
+     * @param title the document title
+     * @param out the stream receiving the encoded document
+     * @return the content sink
+     * @throws IOException if the stream fails
+     */
+    public static Writer openEncoder(String title, OutputStream out) throws IOException {
+        return openEncoder(title, null, out);
+    }
+    
+    /**
+     * Opens an encoder like {@link #openEncoder(String, OutputStream)} on
+     * behalf of an order, so its save event in a flight recording names the
+     * order.
+     * @param title the document title
+     * @param orderId the order the document belongs to, or null
+     * @param out the stream receiving the encoded document
+     * @return the content sink
+     * @throws IOException if the stream fails
+     */
+    public static Writer openEncoder(String title, UUID orderId, OutputStream out) throws IOException {
+        return new StreamingEncoder(title, orderId, out);
+    }
+    
+    private static void writeHeader(String title, Writer writer) throws IOException {
+        writer.write("<!DOCTYPE html>\n" +
                 "<html lang=\"en\">\n" +
                 "<head>\n" +
                 "  <meta charset=\"UTF-8\">\n" +
                 "  <meta name=\"viewport\" content=\"width=device-width, initial-scale=1.0\">\n" +
-                "  <title>" + escapeHtml(title) + "</title>\n" +
+                "  <title>");
+        escapeHtml(title, 0, title.length(), writer);
+        writer.write("</title>\n" +
                 "</head>\n" +
                 "<body>\n" +
                 "  <main>\n" +
-                "    <h1>" + escapeHtml(title) + "</h1>\n" +
-                "    <div class=\"content\">\n" + body +
-                "    </div>\n" +
+                "    <h1>");
+        escapeHtml(title, 0, title.length(), writer);
+        writer.write("</h1>\n" +
+                "    <div class=\"content\">\n");
+    }
+    
+    private static void writeFooter(Writer writer) throws IOException {
+        writer.write("    </div>\n" +
                 "  </main>\n" +
                 "</body>\n" +
-                "</html>";
-        return htmlContent.getBytes(StandardCharsets.UTF_8);
+                "</html>");
     }
     
     @Override
@@ -61,12 +122,195 @@ public class HtmlDocument extends AbstractDocument {
         return FORMAT_KEY;
     }
     
-    private String escapeHtml(String text) {
-        if (text == null) return "";
-        return text.replace("&", "&amp;")
-                   .replace("<", "&lt;")
-                   .replace(">", "&gt;")
-                   .replace("\"", "&quot;")
-                   .replace("'", "&#39;");
+    /**
+     * Writes one paragraph per content line, or one table row per line of a
+     * table block. Trailing empty lines are dropped, matching the behaviour
+     * of {@code String.split("\n")}.
+     */
+    private static void writeParagraphs(String text, Writer writer) throws IOException {
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) == '\n') {
+            end--;
+        }
+        LineEncoder lines = new LineEncoder(writer);
+        int start = 0;
+        while (start < end) {
+            int newline = text.indexOf('\n', start);
+            int lineEnd = newline < 0 || newline > end ? end : newline;
+            lines.line(text, start, lineEnd);
+            start = lineEnd + 1;
+        }
+        lines.finish();
+    }
+    
+    /**
+     * Encodes content line by line, tracking whether a table is open.
+     */
+    private static final class LineEncoder {
+        
+        private final Writer writer;
+        private boolean inTable;
+        
+        LineEncoder(Writer writer) {
+            this.writer = writer;
+        }
+        
+        void line(String text, int start, int end) throws IOException {
+            if (indexOf(text, TABLE_CELL_SEPARATOR, start, end) < end) {
+                if (!inTable) {
+                    writer.write("        <table>\n");
+                }
+                writeRow(text, start, end, inTable ? "td" : "th", writer);
+                inTable = true;
+            } else {
+                if (inTable) {
+                    writer.write("        </table>\n");
+                    inTable = false;
+                }
+                writer.write("        <p>");
+                escapeHtml(text, start, end, writer);
+                writer.write("</p>\n");
+            }
+        }
+        
+        void finish() throws IOException {
+            if (inTable) {
+                writer.write("        </table>\n");
+                inTable = false;
+            }
+        }
+    }
+    
+    /**
+     * Content sink of {@link #openEncoder}: buffers the current line, and
+     * holds back empty lines until more content follows, so trailing empty
+     * lines are dropped as in {@link #writeTo(OutputStream)}.
+     */
+    private static final class StreamingEncoder extends Writer {
+        
+        private final String title;
+        private final UUID orderId;
+        private final OutputStream out;
+        private final CountingOutputStream counted;
+        private final Writer writer;
+        private final LineEncoder lines;
+        private final StringBuilder line = new StringBuilder(128);
+        private final DocumentSaveEvent event = new DocumentSaveEvent();
+        private final long started;
+        private long contentLength;
+        private int pendingEmptyLines;
+        private boolean closed;
+        
+        StreamingEncoder(String title, UUID orderId, OutputStream out) throws IOException {
+            event.begin();
+            this.started = System.nanoTime();
+            this.title = title;
+            this.orderId = orderId;
+            this.out = out;
+            this.counted = new CountingOutputStream(out);
+            this.writer = new BufferedWriter(new OutputStreamWriter(counted, StandardCharsets.UTF_8));
+            this.lines = new LineEncoder(writer);
+            writeHeader(title, writer);
+        }
+        
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            if (closed) {
+                throw new IOException("Encoder is closed");
+            }
+            contentLength += length;
+            for (int i = offset; i < offset + length; i++) {
+                char c = chars[i];
+                if (c == '\n') {
+                    endLine();
+                } else {
+                    line.append(c);
+                }
+            }
+        }
+        
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+        
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (line.length() > 0) {
+                endLine();
+            }
+            lines.finish();
+            writeFooter(writer);
+            writer.flush();
+            out.flush();
+            recordSave(event, started, FORMAT_KEY, title, contentLength, counted.getCount(), orderId);
+        }
+        
+        private void endLine() throws IOException {
+            if (line.length() == 0) {
+                pendingEmptyLines++;
+                return;
+            }
+            for (; pendingEmptyLines > 0; pendingEmptyLines--) {
+                lines.line("", 0, 0);
+            }
+            String text = line.toString();
+            lines.line(text, 0, text.length());
+            line.setLength(0);
+        }
+    }
+    
+    private static void writeRow(String text, int from, int to, String cellTag, Writer writer) throws IOException {
+        writer.write("          <tr>");
+        int start = from;
+        while (start <= to) {
+            int cellEnd = indexOf(text, TABLE_CELL_SEPARATOR, start, to);
+            writer.write('<');
+            writer.write(cellTag);
+            writer.write('>');
+            escapeHtml(text, start, cellEnd, writer);
+            writer.write("</");
+            writer.write(cellTag);
+            writer.write('>');
+            start = cellEnd + 1;
+        }
+        writer.write("</tr>\n");
+    }
+    
+    /**
+     * Finds a character within {@code [from, to)}.
+     * @return its index, or {@code to} if absent
+     */
+    private static int indexOf(String text, char ch, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == ch) {
+                return i;
+            }
+        }
+        return to;
+    }
+    
+    private static void escapeHtml(String text, int from, int to, Writer writer) throws IOException {
+        int run = from;
+        for (int i = from; i < to; i++) {
+            String entity = switch (text.charAt(i)) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                case '\'' -> "&#39;";
+                default -> null;
+            };
+            if (entity != null) {
+                writer.write(text, run, i - run);
+                writer.write(entity);
+                run = i + 1;
+            }
+        }
+        writer.write(text, run, to - run);
     }
 }
@@ -4,13 +4,18 @@ import editor.core.AbstractDocument;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
 import org.apache.pdfbox.pdmodel.font.PDType1Font;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
 
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -21,19 +26,23 @@ public class PdfDocument extends AbstractDocument {
     
     public static final String FORMAT_KEY = "pdf";
     
+    private static final float LEADING = 16f;
+    private static final float MARGIN = 72f;
+    private static final float TITLE_SIZE = 16f;
+    private static final float FONT_SIZE = 12f;
+    private static final float CELL_PADDING = 8f;
+    private static final float TABLE_WIDTH = 468f;
+    /** Standard fonts have no glyph for a tab, so it is laid out as spaces. */
+    private static final String TAB = "    ";
+    
     public PdfDocument(String title) {
         super(title);
     }
     
     @Override
     public byte[] save() {
-        try (PDDocument document = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            PDPage page = new PDPage(PDRectangle.LETTER);
-            document.addPage(page);
-
-            writeContent(document, page, title, content);
-
-            document.save(out);
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            writeTo(out);
             return out.toByteArray();
         } catch (IOException ex) {
             String fallback = "PDF generation failed: " + ex.getMessage();
@@ -41,6 +50,28 @@ public class PdfDocument extends AbstractDocument {
         }
     }
     
+    /**
+     * Loads and initializes the PDFBox classes a save needs by encoding a
+     * small sample document, so the first real save does not pay for it.
+     * Nothing is recorded in the metrics.
+     * @throws IOException if PDFBox fails
+     */
+    public static void warmUp() throws IOException {
+        PdfDocument sample = new PdfDocument("Warm-up");
+        sample.setContent("Warm-up\nFormat" + TABLE_CELL_SEPARATOR + "Engine\npdf" + TABLE_CELL_SEPARATOR + "PDFBox\n");
+        sample.encode(OutputStream.nullOutputStream());
+    }
+
+    @Override
+    protected void encode(OutputStream out) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            writeContent(document, title, content);
+
+            // PDFBox closes the stream it saves to; keep the caller's stream open
+            document.save(new NonClosingOutputStream(out));
+        }
+    }
+    
     @Override
     public String render() {
         return "[PDF Preview]\n" +
@@ -57,53 +88,215 @@ public class PdfDocument extends AbstractDocument {
         return FORMAT_KEY;
     }
 
-    private static void writeContent(PDDocument document, PDPage page, String title, String content) throws IOException {
-        List<String> lines = new ArrayList<>();
-        lines.add(title);
-        for (String line : (content == null ? "" : content).split("\n")) {
-            lines.add(line);
+    /**
+     * Lays out the title and content top to bottom, starting a new page when
+     * the current one is full. Text is wrapped to the measured width of the
+     * text area. Each table block gets columns sized to their widest cell,
+     * shrunk to fit the text area if needed. Cells that still do not fit are
+     * wrapped within their column.
+     */
+    private static void writeContent(PDDocument document, String title, String content) throws IOException {
+        String[] lines = (content == null ? "" : content).split("\n");
+        try (PageWriter pages = new PageWriter(document)) {
+            pages.reserve(1);
+            pages.show(MARGIN, title, PDType1Font.HELVETICA_BOLD, TITLE_SIZE);
+            pages.advance();
+
+            int i = 0;
+            while (i < lines.length) {
+                if (lines[i].indexOf(TABLE_CELL_SEPARATOR) >= 0) {
+                    int end = i;
+                    while (end < lines.length && lines[end].indexOf(TABLE_CELL_SEPARATOR) >= 0) {
+                        end++;
+                    }
+                    writeTable(pages, lines, i, end);
+                    i = end;
+                    continue;
+                }
+                for (String wrapped : wrap(lines[i], PDType1Font.HELVETICA, TABLE_WIDTH)) {
+                    pages.reserve(1);
+                    pages.show(MARGIN, wrapped, PDType1Font.HELVETICA, FONT_SIZE);
+                    pages.advance();
+                }
+                i++;
+            }
         }
+    }
 
-        try (PDPageContentStream stream = new PDPageContentStream(document, page)) {
-            stream.setLeading(16f);
-            stream.beginText();
-            stream.setFont(PDType1Font.HELVETICA_BOLD, 16);
-            stream.newLineAtOffset(72, page.getMediaBox().getHeight() - 72);
-            stream.showText(title);
-            stream.newLine();
-
-            stream.setFont(PDType1Font.HELVETICA, 12);
-
-            int maxLines = 60;
-            int written = 0;
-            for (String line : lines.subList(1, lines.size())) {
-                if (written >= maxLines) {
-                    break;
+    /**
+     * Writes the table block {@code lines[start..end)}, the first line being
+     * the header. A row is kept on one page unless it is taller than a page.
+     */
+    private static void writeTable(PageWriter pages, String[] lines, int start, int end) throws IOException {
+        List<String[]> rows = new ArrayList<>(end - start);
+        int columns = 0;
+        for (int i = start; i < end; i++) {
+            String[] cells = lines[i].split(String.valueOf(TABLE_CELL_SEPARATOR), -1);
+            rows.add(cells);
+            columns = Math.max(columns, cells.length);
+        }
+        float[] widths = columnWidths(rows, columns);
+
+        for (int row = 0; row < rows.size(); row++) {
+            PDFont font = row == 0 ? PDType1Font.HELVETICA_BOLD : PDType1Font.HELVETICA;
+            String[] cells = rows.get(row);
+            List<List<String>> wrapped = new ArrayList<>(cells.length);
+            int height = 1;
+            for (int column = 0; column < cells.length; column++) {
+                List<String> cellLines = wrap(cells[column], font, widths[column] - CELL_PADDING);
+                wrapped.add(cellLines);
+                height = Math.max(height, cellLines.size());
+            }
+            for (int line = 0; line < height; line++) {
+                pages.reserve(line == 0 ? height : 1);
+                float x = MARGIN;
+                for (int column = 0; column < cells.length; column++) {
+                    List<String> cellLines = wrapped.get(column);
+                    if (line < cellLines.size() && !cellLines.get(line).isEmpty()) {
+                        pages.show(x, cellLines.get(line), font, FONT_SIZE);
+                    }
+                    x += widths[column];
                 }
-                for (String wrapped : wrap(line, 90)) {
-                    if (written >= maxLines) break;
-                    stream.showText(wrapped);
-                    stream.newLine();
-                    written++;
+                pages.advance();
+            }
+        }
+    }
+
+    /**
+     * Gives every column the width of its widest cell. If the table is then
+     * wider than the text area, narrow columns keep their width and the rest
+     * of the area is shared evenly by the wider ones.
+     */
+    private static float[] columnWidths(List<String[]> rows, int columns) throws IOException {
+        float[] natural = new float[columns];
+        for (int row = 0; row < rows.size(); row++) {
+            PDFont font = row == 0 ? PDType1Font.HELVETICA_BOLD : PDType1Font.HELVETICA;
+            String[] cells = rows.get(row);
+            for (int column = 0; column < cells.length; column++) {
+                natural[column] = Math.max(natural[column], width(cells[column], font) + CELL_PADDING);
+            }
+        }
+        float total = 0;
+        for (float width : natural) {
+            total += width;
+        }
+        if (total <= TABLE_WIDTH) {
+            return natural;
+        }
+
+        Integer[] byWidth = new Integer[columns];
+        for (int column = 0; column < columns; column++) {
+            byWidth[column] = column;
+        }
+        Arrays.sort(byWidth, (a, b) -> Float.compare(natural[a], natural[b]));
+        float[] widths = new float[columns];
+        float remaining = TABLE_WIDTH;
+        for (int i = 0; i < columns; i++) {
+            int column = byWidth[i];
+            widths[column] = Math.min(natural[column], remaining / (columns - i));
+            remaining -= widths[column];
+        }
+        return widths;
+    }
+
+    /**
+     * Breaks text into lines no wider than {@code maxWidth}, at spaces where
+     * possible and inside a word only when the word alone is too wide.
+     */
+    private static List<String> wrap(String text, PDFont font, float maxWidth) throws IOException {
+        List<String> lines = new ArrayList<>();
+        String current = null;
+        for (String word : text.replace("\t", TAB).split(" ", -1)) {
+            String candidate = current == null ? word : current + " " + word;
+            if (current != null && width(candidate, font) > maxWidth) {
+                lines.add(current);
+                candidate = word;
+            }
+            while (candidate.length() > 1 && width(candidate, font) > maxWidth) {
+                int fit = 1;
+                while (width(candidate.substring(0, fit + 1), font) <= maxWidth) {
+                    fit++;
                 }
+                lines.add(candidate.substring(0, fit));
+                candidate = candidate.substring(fit);
             }
+            current = candidate;
+        }
+        lines.add(current);
+        return lines;
+    }
 
+    private static float width(String text, PDFont font) throws IOException {
+        return font.getStringWidth(text) / 1000f * FONT_SIZE;
+    }
+
+    /**
+     * Writes lines top to bottom at absolute positions, adding a page
+     * whenever the next line would fall into the bottom margin.
+     */
+    private static final class PageWriter implements Closeable {
+
+        private final PDDocument document;
+        private PDPageContentStream stream;
+        private float y;
+        private int linesPerPage;
+
+        PageWriter(PDDocument document) {
+            this.document = document;
+        }
+
+        /** Starts a new page unless the next {@code lines} lines fit on this one. */
+        void reserve(int lines) throws IOException {
+            if (stream == null || y - (Math.min(lines, linesPerPage) - 1) * LEADING < MARGIN) {
+                newPage();
+            }
+        }
+
+        void show(float x, String text, PDFont font, float size) throws IOException {
+            stream.beginText();
+            stream.setFont(font, size);
+            stream.newLineAtOffset(x, y);
+            stream.showText(text);
             stream.endText();
         }
+
+        void advance() {
+            y -= LEADING;
+        }
+
+        private void newPage() throws IOException {
+            close();
+            PDPage page = new PDPage(PDRectangle.LETTER);
+            document.addPage(page);
+            stream = new PDPageContentStream(document, page);
+            float height = page.getMediaBox().getHeight();
+            y = height - MARGIN;
+            linesPerPage = (int) ((height - 2 * MARGIN) / LEADING) + 1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (stream != null) {
+                stream.close();
+                stream = null;
+            }
+        }
     }
 
-    private static List<String> wrap(String text, int width) {
-        List<String> out = new ArrayList<>();
-        if (text == null || text.isEmpty()) {
-            out.add("");
-            return out;
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
         }
-        int idx = 0;
-        while (idx < text.length()) {
-            int end = Math.min(idx + width, text.length());
-            out.add(text.substring(idx, end));
-            idx = end;
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
         }
-        return out;
     }
 }
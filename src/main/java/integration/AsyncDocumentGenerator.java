@@ -0,0 +1,167 @@
+package integration;
+
+import car.domain.Car;
+import editor.core.Document;
+import editor.core.UnknownDocumentFormatException;
+import editor.factory.DocumentFactory;
+import integration.order.Order;
+import integration.order.OrderListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Generates order confirmation documents on a background worker pool.
+ * <p>
+ * Workers create documents straight from the {@link DocumentFactory} instead of
+ * going through the stateful {@link editor.core.Editor}, so any number of
+ * documents can be rendered concurrently. Documents are rendered with
+ * {@link Document#writeTo}, so an encoder failure surfaces as an exception
+ * instead of fallback bytes; failed attempts are retried with a linearly
+ * growing delay before the returned future fails.
+ */
+public class AsyncDocumentGenerator implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final Duration DEFAULT_RETRY_DELAY = Duration.ofMillis(100);
+
+    private final DocumentFactory documentFactory;
+    private final CarReportGenerator reportGenerator = new CarReportGenerator();
+    private final Path outputDir;
+    private final ExecutorService workers;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+
+    /**
+     * Creates a generator with one worker per available processor.
+     * @param documentFactory the factory used to create documents
+     * @param outputDir root of the sharded layout documents are written to (one file per
+     *                  order and format), or null to keep them in memory
+     */
+    public AsyncDocumentGenerator(DocumentFactory documentFactory, Path outputDir) {
+        this(documentFactory, outputDir, newWorkerPool(Runtime.getRuntime().availableProcessors()),
+                DEFAULT_MAX_ATTEMPTS, DEFAULT_RETRY_DELAY);
+    }
+
+    public AsyncDocumentGenerator(DocumentFactory documentFactory, Path outputDir, ExecutorService workers,
+                                  int maxAttempts, Duration retryDelay) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        this.documentFactory = Objects.requireNonNull(documentFactory, "documentFactory");
+        this.outputDir = outputDir;
+        this.workers = Objects.requireNonNull(workers, "workers");
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = Objects.requireNonNull(retryDelay, "retryDelay");
+    }
+
+    /**
+     * Queues generation of the confirmation document for an order.
+     * @param order the placed order
+     * @param formatKey the document format
+     * @return a future completed with the generated document, or failed after the last attempt
+     * @throws UnknownDocumentFormatException if the format is not registered
+     */
+    public CompletableFuture<GeneratedDocument> submit(Order order, String formatKey) {
+        Objects.requireNonNull(order, "order");
+        if (!documentFactory.supportsFormat(formatKey)) {
+            throw new UnknownDocumentFormatException(formatKey, documentFactory.getSupportedFormats());
+        }
+        CompletableFuture<GeneratedDocument> result = new CompletableFuture<>();
+        attempt(order, formatKey, 1, result);
+        return result;
+    }
+
+    /**
+     * Creates a listener that queues a confirmation document for every placed order.
+     * @param formatKey the document format
+     * @param callback receives each generated document or the final failure
+     * @return a listener to register with {@link integration.order.OrderService#addListener}
+     */
+    public OrderListener confirmationListener(String formatKey,
+                                              BiConsumer<? super GeneratedDocument, ? super Throwable> callback) {
+        Objects.requireNonNull(callback, "callback");
+        if (!documentFactory.supportsFormat(formatKey)) {
+            throw new UnknownDocumentFormatException(formatKey, documentFactory.getSupportedFormats());
+        }
+        return (List<Order> orders) -> {
+            for (Order order : orders) {
+                submit(order, formatKey).whenComplete(callback);
+            }
+        };
+    }
+
+    /**
+     * Stops accepting work and waits briefly for queued documents to finish.
+     */
+    @Override
+    public void close() {
+        workers.shutdown();
+        try {
+            workers.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void attempt(Order order, String formatKey, int attempt, CompletableFuture<GeneratedDocument> result) {
+        Executor toWorkers = task -> {
+            try {
+                workers.execute(task);
+            } catch (RejectedExecutionException ex) {
+                result.completeExceptionally(ex);
+            }
+        };
+        Executor executor = attempt == 1
+                ? toWorkers
+                : CompletableFuture.delayedExecutor(retryDelay.toMillis() * (attempt - 1), TimeUnit.MILLISECONDS, toWorkers);
+        executor.execute(() -> {
+            try {
+                result.complete(generate(order, formatKey));
+            } catch (IOException | RuntimeException ex) {
+                if (attempt < maxAttempts) {
+                    attempt(order, formatKey, attempt + 1, result);
+                } else {
+                    result.completeExceptionally(ex);
+                }
+            }
+        });
+    }
+
+    private GeneratedDocument generate(Order order, String formatKey) throws IOException {
+        Car car = order.getCar();
+        Document document = documentFactory.createDocument(formatKey, reportGenerator.generateTitle(car));
+        reportGenerator.writeReport(car, order, document);
+
+        if (outputDir == null) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            document.writeTo(buffer, order.getId());
+            byte[] content = buffer.toByteArray();
+            return new GeneratedDocument(order, document, content, null, content.length);
+        }
+        Path path = DocumentStorage.saveSharded(outputDir, order.getId(), document);
+        return new GeneratedDocument(order, document, null, path, Files.size(path));
+    }
+
+    private static ExecutorService newWorkerPool(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "document-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
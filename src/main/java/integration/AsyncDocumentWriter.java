@@ -0,0 +1,291 @@
+package integration;
+
+import editor.core.Document;
+import metrics.DocumentStoreEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes order documents to storage on one dedicated I/O thread.
+ * <p>
+ * Callers encode documents on their own thread and only hand over the bytes, so
+ * the I/O thread does nothing but file system work. Documents go to the sharded
+ * layout of {@link DocumentStorage#shardedPath(Path, UUID, String)}, each under
+ * a temporary name that is renamed into place once written. The thread drains
+ * queued writes in batches, creates each shard directory once and remembers it
+ * (creating it again if it is removed meanwhile), and, when syncing is
+ * enabled, forces the files of a batch to disk in groups of up to
+ * {@code syncEvery} before renaming them and completing their futures.
+ */
+public class AsyncDocumentWriter implements AutoCloseable {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    public static final int DEFAULT_MAX_BATCH = 256;
+
+    private static final WriteRequest SHUTDOWN = new WriteRequest(null, null, null, null);
+
+    private final BlockingQueue<WriteRequest> queue;
+    private final int maxBatch;
+    private final int syncEvery;
+    private final Thread ioThread;
+    private final Set<Path> knownDirectories = new HashSet<>();
+    private volatile boolean closed;
+
+    /**
+     * Creates a writer that does not force written files to disk.
+     */
+    public AsyncDocumentWriter() {
+        this(DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BATCH, 0);
+    }
+
+    /**
+     * Creates a writer.
+     * @param queueCapacity writes that may wait for the I/O thread before callers block
+     * @param maxBatch maximum writes handled per batch
+     * @param syncEvery number of files forced to disk together, or 0 to never force
+     */
+    public AsyncDocumentWriter(int queueCapacity, int maxBatch, int syncEvery) {
+        if (queueCapacity <= 0 || maxBatch <= 0) {
+            throw new IllegalArgumentException("queueCapacity and maxBatch must be positive");
+        }
+        if (syncEvery < 0) {
+            throw new IllegalArgumentException("syncEvery must not be negative");
+        }
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatch = maxBatch;
+        this.syncEvery = syncEvery;
+        this.ioThread = new Thread(this::run, "document-storage-io");
+        this.ioThread.setDaemon(true);
+        this.ioThread.start();
+    }
+
+    /**
+     * Encodes an order's document on the calling thread and queues it for writing.
+     * Blocks while the queue is full.
+     * @param root root of the sharded layout
+     * @param orderId the order the document belongs to
+     * @param document the document to store
+     * @return a future completed with the written file, or failed with the
+     *         rendering or I/O error
+     */
+    public CompletableFuture<Path> write(Path root, UUID orderId, Document document) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try {
+            // writeTo, unlike save(), reports a failed render instead of returning error bytes
+            document.writeTo(buffer, orderId);
+        } catch (IOException | RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        return write(root, orderId, document.getFormatKey(), buffer.toByteArray());
+    }
+
+    /**
+     * Queues an order's already encoded document for writing.
+     * Blocks while the queue is full.
+     * @param root root of the sharded layout
+     * @param orderId the order the document belongs to
+     * @param formatKey the document format, used for the file extension
+     * @param payload the encoded document
+     * @return a future completed with the written file, or failed with the I/O error
+     */
+    public CompletableFuture<Path> write(Path root, UUID orderId, String formatKey, byte[] payload) {
+        Objects.requireNonNull(payload, "payload");
+        Path target = DocumentStorage.shardedPath(root, orderId, formatKey);
+        WriteRequest request = new WriteRequest(target, orderId, formatKey, payload);
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Document writer is closed"));
+        }
+        try {
+            queue.put(request);
+            if (closed) {
+                // raced with close(): once the I/O thread is gone, nobody else will complete it
+                ioThread.join();
+                if (queue.remove(request)) {
+                    request.result.completeExceptionally(new IllegalStateException("Document writer is closed"));
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            request.result.completeExceptionally(ex);
+        }
+        return request.result;
+    }
+
+    /**
+     * Stops accepting writes and waits until every queued write has completed.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(SHUTDOWN);
+            ioThread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<WriteRequest> batch = new ArrayList<>(maxBatch);
+        List<PendingSync> unsynced = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException ex) {
+                // only close() stops the I/O thread
+                continue;
+            }
+            queue.drainTo(batch, maxBatch - 1);
+            for (WriteRequest request : batch) {
+                if (request == SHUTDOWN) {
+                    running = false;
+                    continue;
+                }
+                writeOne(request, unsynced);
+                if (syncEvery > 0 && unsynced.size() >= syncEvery) {
+                    syncAll(unsynced);
+                }
+            }
+            syncAll(unsynced);
+            batch.clear();
+        }
+        // writes that raced with close()
+        List<WriteRequest> late = new ArrayList<>();
+        queue.drainTo(late);
+        for (WriteRequest request : late) {
+            if (request != SHUTDOWN) {
+                request.result.completeExceptionally(new IllegalStateException("Document writer is closed"));
+            }
+        }
+    }
+
+    private void writeOne(WriteRequest request, List<PendingSync> unsynced) {
+        request.event.begin();
+        FileChannel channel = null;
+        try {
+            channel = openTemp(request.temp);
+            ByteBuffer buffer = ByteBuffer.wrap(request.payload);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (syncEvery > 0) {
+                unsynced.add(new PendingSync(request, channel));
+                return;
+            }
+            channel.close();
+            publish(request);
+        } catch (IOException | RuntimeException ex) {
+            closeQuietly(channel);
+            fail(request, ex);
+        }
+    }
+
+    /**
+     * Creates a temporary file, creating its directory the first time it is
+     * seen, and again if it was removed since.
+     */
+    private FileChannel openTemp(Path temp) throws IOException {
+        Path dir = temp.getParent();
+        if (!knownDirectories.contains(dir)) {
+            Files.createDirectories(dir);
+            knownDirectories.add(dir);
+        }
+        try {
+            return FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (NoSuchFileException ex) {
+            // removed behind our back; forget it and create it again
+            knownDirectories.remove(dir);
+            Files.createDirectories(dir);
+            knownDirectories.add(dir);
+            return FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+    }
+
+    private static void syncAll(List<PendingSync> unsynced) {
+        for (PendingSync pending : unsynced) {
+            try (FileChannel channel = pending.channel) {
+                channel.force(true);
+            } catch (IOException ex) {
+                fail(pending.request, ex);
+                continue;
+            }
+            publish(pending.request);
+        }
+        unsynced.clear();
+    }
+
+    /** Renames a written file into place and completes its future. */
+    private static void publish(WriteRequest request) {
+        try {
+            DocumentStorage.moveAtomically(request.temp, request.target);
+            DocumentStorage.commit(request.event, request.formatKey, request.orderId, request.target);
+        } catch (IOException | RuntimeException ex) {
+            fail(request, ex);
+            return;
+        }
+        request.result.complete(request.target);
+    }
+
+    private static void fail(WriteRequest request, Exception ex) {
+        try {
+            Files.deleteIfExists(request.temp);
+        } catch (IOException cleanup) {
+            ex.addSuppressed(cleanup);
+        }
+        request.result.completeExceptionally(ex);
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // already failing
+            }
+        }
+    }
+
+    private static final class WriteRequest {
+
+        final Path target;
+        final Path temp;
+        final UUID orderId;
+        final String formatKey;
+        final byte[] payload;
+        final DocumentStoreEvent event = new DocumentStoreEvent();
+        final CompletableFuture<Path> result = new CompletableFuture<>();
+
+        WriteRequest(Path target, UUID orderId, String formatKey, byte[] payload) {
+            this.target = target;
+            this.temp = target == null ? null : target.resolveSibling(
+                    "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            this.orderId = orderId;
+            this.formatKey = formatKey;
+            this.payload = payload;
+        }
+    }
+
+    private record PendingSync(WriteRequest request, FileChannel channel) {
+    }
+}
@@ -0,0 +1,305 @@
+package integration;
+
+import car.builder.InvalidCarConfigurationException;
+import car.domain.Car;
+import editor.core.Document;
+import editor.core.UnknownDocumentFormatException;
+import editor.factory.DocumentFactory;
+import integration.order.Order;
+import integration.order.OrderService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Generates one document per car configuration in a CSV or JSON Lines file.
+ * <p>
+ * The input is read sequentially and handed to a worker pool in chunks of
+ * lines; each worker parses, builds and validates its cars, places their
+ * orders and renders their documents, which an {@link AsyncDocumentWriter}
+ * stores in the sharded layout of {@link DocumentStorage} on its own I/O
+ * thread. The number of chunks in flight is bounded, and unless orders are
+ * retained, each order leaves the repository once its document is written;
+ * the fleet counts keep counting it at a size independent of the number of
+ * orders. Memory therefore stays flat for any input size. Invalid lines are
+ * counted and reported, and never stop the run.
+ */
+public class BatchRunner {
+
+    public static final int CHUNK_SIZE = 256;
+    static final int MAX_REPORTED_ERRORS = 20;
+
+    private final OrderService orderService;
+    private final DocumentFactory documentFactory;
+    private final CarReportGenerator reportGenerator = new CarReportGenerator();
+    private final Path outputDir;
+    private final String formatKey;
+    private final int threads;
+    private final PrintStream progress;
+    private final boolean retainOrders;
+
+    /**
+     * Result of a batch run.
+     *
+     * @param rows configuration lines read
+     * @param documents documents written
+     * @param invalid lines rejected by parsing or validation
+     * @param failed valid lines whose document could not be written
+     * @param elapsed wall-clock duration of the run
+     * @param errors the first reported problems, one per line
+     */
+    public record Summary(long rows, long documents, long invalid, long failed, Duration elapsed,
+                          List<String> errors) {
+
+        /** @return documents written per second */
+        public double throughput() {
+            long nanos = Math.max(1, elapsed.toNanos());
+            return documents * 1_000_000_000.0 / nanos;
+        }
+    }
+
+    /**
+     * Creates a batch runner that keeps every placed order in the repository.
+     * @param orderService receives one order per valid configuration
+     * @param documentFactory creates the documents
+     * @param outputDir root of the sharded output layout
+     * @param formatKey the document format
+     * @param threads number of worker threads
+     * @param progress receives a progress line every second, or null for none
+     * @throws UnknownDocumentFormatException if the format is not registered
+     */
+    public BatchRunner(OrderService orderService, DocumentFactory documentFactory, Path outputDir,
+                       String formatKey, int threads, PrintStream progress) {
+        this(orderService, documentFactory, outputDir, formatKey, threads, progress, true);
+    }
+
+    /**
+     * Creates a batch runner.
+     * Without retaining orders, an explicit order id is only checked for
+     * duplicates against orders whose documents are still being written.
+     * @param orderService receives one order per valid configuration
+     * @param documentFactory creates the documents
+     * @param outputDir root of the sharded output layout
+     * @param formatKey the document format
+     * @param threads number of worker threads
+     * @param progress receives a progress line every second, or null for none
+     * @param retainOrders keep placed orders in the repository; otherwise each
+     *        order is removed again once its document is written or has failed
+     * @throws UnknownDocumentFormatException if the format is not registered
+     */
+    public BatchRunner(OrderService orderService, DocumentFactory documentFactory, Path outputDir,
+                       String formatKey, int threads, PrintStream progress, boolean retainOrders) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        this.orderService = Objects.requireNonNull(orderService, "orderService");
+        this.documentFactory = Objects.requireNonNull(documentFactory, "documentFactory");
+        this.outputDir = Objects.requireNonNull(outputDir, "outputDir");
+        if (!documentFactory.supportsFormat(formatKey)) {
+            throw new UnknownDocumentFormatException(formatKey, documentFactory.getSupportedFormats());
+        }
+        this.formatKey = formatKey;
+        this.threads = threads;
+        this.progress = progress;
+        this.retainOrders = retainOrders;
+    }
+
+    /**
+     * Processes every line of the input file.
+     * @param input CSV or JSON Lines file, chosen by extension
+     * @return counts and the first errors
+     * @throws IOException if the input cannot be read
+     */
+    public Summary run(Path input) throws IOException {
+        CarConfigurationParser.InputFormat format = CarConfigurationParser.InputFormat.forFile(input);
+        Counters counters = new Counters();
+        long started = System.nanoTime();
+        ExecutorService workers = newPool(threads, "batch-worker-");
+        ScheduledExecutorService reporter = progress == null ? null : Executors.newSingleThreadScheduledExecutor(
+                runnable -> daemon(runnable, "batch-progress"));
+        if (reporter != null) {
+            reporter.scheduleAtFixedRate(() -> printProgress(counters, started), 1, 1, TimeUnit.SECONDS);
+        }
+        Semaphore inFlight = new Semaphore(threads * 2);
+        AsyncDocumentWriter writer = new AsyncDocumentWriter();
+        try (writer; BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            List<String> lines = new ArrayList<>(CHUNK_SIZE);
+            int firstLine = 1;
+            int lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lines.isEmpty()) {
+                    firstLine = lineNumber;
+                }
+                lines.add(line);
+                if (lines.size() == CHUNK_SIZE) {
+                    submit(workers, inFlight, writer, format, lines, firstLine, counters);
+                    lines = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            if (!lines.isEmpty()) {
+                submit(workers, inFlight, writer, format, lines, firstLine, counters);
+            }
+            inFlight.acquireUninterruptibly(threads * 2);
+        } finally {
+            workers.shutdownNow();
+            if (reporter != null) {
+                reporter.shutdownNow();
+            }
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+        return new Summary(counters.rows.sum(), counters.documents.sum(), counters.invalid.sum(),
+                counters.failed.sum(), elapsed, List.copyOf(counters.errors));
+    }
+
+    private void submit(ExecutorService workers, Semaphore inFlight, AsyncDocumentWriter writer,
+                        CarConfigurationParser.InputFormat format, List<String> lines, int firstLine,
+                        Counters counters) {
+        inFlight.acquireUninterruptibly();
+        workers.execute(() -> {
+            try {
+                processChunk(writer, format, lines, firstLine, counters);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * Places and renders the orders of one chunk and queues their documents.
+     * Every counted row ends up as a document, an invalid row or a failure; a
+     * queued document is counted once its write completes. If something
+     * unexpected aborts the chunk, the rows it had not finished count as failed.
+     */
+    private void processChunk(AsyncDocumentWriter writer, CarConfigurationParser.InputFormat format,
+                              List<String> lines, int firstLine, Counters counters) {
+        int open = 0;
+        for (String line : lines) {
+            if (!CarConfigurationParser.isSkippable(line)) {
+                open++;
+            }
+        }
+        counters.rows.add(open);
+        List<Car> cars = new ArrayList<>(lines.size());
+        List<Order> orders = new ArrayList<>(lines.size());
+        try {
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                if (CarConfigurationParser.isSkippable(line)) {
+                    continue;
+                }
+                int lineNumber = firstLine + i;
+                try {
+                    CarConfigurationParser.Row row = CarConfigurationParser.parse(format, line, lineNumber);
+                    Car car = row.builder().build();
+                    if (row.orderId() == null) {
+                        cars.add(car);
+                    } else {
+                        orders.add(orderService.placeOrder(row.orderId(), car));
+                    }
+                } catch (InvalidCarConfigurationException | IllegalArgumentException ex) {
+                    counters.reject("line " + lineNumber + ": " + ex.getMessage());
+                    open--;
+                } catch (RuntimeException ex) {
+                    counters.fail("line " + lineNumber + ": " + ex);
+                    open--;
+                }
+            }
+            if (!cars.isEmpty()) {
+                orders.addAll(orderService.placeOrders(cars));
+            }
+            for (Order order : orders) {
+                try {
+                    Car car = order.getCar();
+                    Document document = documentFactory.createDocument(formatKey, reportGenerator.generateTitle(car));
+                    reportGenerator.writeReport(car, order, document);
+                    writer.write(outputDir, order.getId(), document).whenComplete((path, failure) -> {
+                        release(order);
+                        if (failure == null) {
+                            counters.documents.increment();
+                        } else {
+                            counters.fail("order " + order.getId() + ": " + failure);
+                        }
+                    });
+                } catch (IOException | RuntimeException ex) {
+                    release(order);
+                    counters.fail("order " + order.getId() + ": " + ex);
+                }
+                open--;
+            }
+        } catch (RuntimeException ex) {
+            counters.failed.add(open);
+            counters.report("lines " + firstLine + "-" + (firstLine + lines.size() - 1) + ": " + ex);
+        }
+    }
+
+    private void release(Order order) {
+        if (!retainOrders) {
+            orderService.getRepository().remove(order.getId());
+        }
+    }
+
+    private void printProgress(Counters counters, long started) {
+        double seconds = (System.nanoTime() - started) / 1_000_000_000.0;
+        long documents = counters.documents.sum();
+        progress.printf("Processed %,d rows: %,d documents, %,d invalid, %,d failed (%,.0f docs/s)%n",
+                counters.rows.sum(), documents, counters.invalid.sum(), counters.failed.sum(),
+                documents / Math.max(seconds, 1e-9));
+    }
+
+    private static ExecutorService newPool(int threads, String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads,
+                runnable -> daemon(runnable, prefix + counter.incrementAndGet()));
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static final class Counters {
+
+        final LongAdder rows = new LongAdder();
+        final LongAdder documents = new LongAdder();
+        final LongAdder invalid = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final Queue<String> errors = new ConcurrentLinkedQueue<>();
+        final AtomicInteger reported = new AtomicInteger();
+
+        void reject(String message) {
+            invalid.increment();
+            report(message);
+        }
+
+        void fail(String message) {
+            failed.increment();
+            report(message);
+        }
+
+        void report(String message) {
+            if (reported.getAndIncrement() < MAX_REPORTED_ERRORS) {
+                errors.add(message);
+            }
+        }
+    }
+}
@@ -0,0 +1,428 @@
+package integration;
+
+import car.builder.CarBuilder;
+import car.domain.CarModel;
+import car.domain.Color;
+import car.domain.EngineType;
+import car.domain.ExteriorFeature;
+import car.domain.InteriorFeature;
+import car.domain.SafetyFeature;
+import car.domain.TransmissionType;
+import metrics.MetricsRegistry;
+
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Parses car configurations from CSV or JSON Lines input, one car per line.
+ * <p>
+ * CSV columns are {@code model,engine,transmission,color,interior,exterior,safety[,orderId]},
+ * with several features in one column separated by {@code ;}. A JSON line is an
+ * object with the same keys, where features are arrays of strings. Option
+ * tokens are the enum constant names, case-insensitive, with {@code -} or a
+ * space accepted for {@code _}. Tokens are matched against precomputed tables,
+ * so CSV parsing allocates nothing per token and unknown values never cost an
+ * exception from {@code valueOf}.
+ */
+final class CarConfigurationParser {
+
+    /**
+     * Supported input formats.
+     */
+    enum InputFormat {
+        CSV,
+        JSONL;
+
+        /**
+         * Picks the format from the file extension; {@code .jsonl}, {@code .ndjson}
+         * and {@code .json} are JSON Lines, everything else is CSV.
+         */
+        static InputFormat forFile(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            return name.endsWith(".jsonl") || name.endsWith(".ndjson") || name.endsWith(".json") ? JSONL : CSV;
+        }
+    }
+
+    /**
+     * One parsed line: a builder holding the configuration, not yet validated.
+     *
+     * @param lineNumber the 1-based line number in the input
+     * @param orderId the order id given in the input, or null
+     * @param builder the configured builder
+     */
+    record Row(int lineNumber, UUID orderId, CarBuilder builder) {
+    }
+
+    private static final EnumLookup<CarModel> MODELS = new EnumLookup<>(CarModel.values());
+    private static final EnumLookup<EngineType> ENGINES = new EnumLookup<>(EngineType.values());
+    private static final EnumLookup<TransmissionType> TRANSMISSIONS = new EnumLookup<>(TransmissionType.values());
+    private static final EnumLookup<Color> COLORS = new EnumLookup<>(Color.values());
+    private static final EnumLookup<InteriorFeature> INTERIOR = new EnumLookup<>(InteriorFeature.values());
+    private static final EnumLookup<ExteriorFeature> EXTERIOR = new EnumLookup<>(ExteriorFeature.values());
+    private static final EnumLookup<SafetyFeature> SAFETY = new EnumLookup<>(SafetyFeature.values());
+
+    private static final int COLUMN_COUNT = 8;
+
+    private CarConfigurationParser() {
+        // utility class
+    }
+
+    /**
+     * Tells whether a line carries no configuration: blank, a {@code #} comment
+     * or the CSV header.
+     */
+    static boolean isSkippable(String line) {
+        int start = skipWhitespace(line, 0, line.length());
+        return start == line.length()
+                || line.charAt(start) == '#'
+                || line.regionMatches(true, start, "model,", 0, 6);
+    }
+
+    /**
+     * Parses one line in the given format.
+     * @throws IllegalArgumentException if the line is malformed or names an unknown option
+     */
+    static Row parse(InputFormat format, String line, int lineNumber) {
+        try {
+            return format == InputFormat.JSONL ? parseJson(line, lineNumber) : parseCsv(line, lineNumber);
+        } catch (IllegalArgumentException ex) {
+            MetricsRegistry.global().recordValidationFailure("malformed_input");
+            throw ex;
+        }
+    }
+
+    private static Row parseCsv(String line, int lineNumber) {
+        CarBuilder builder = new CarBuilder();
+        UUID orderId = null;
+        int column = 0;
+        int start = 0;
+        int length = line.length();
+        while (start <= length) {
+            int end = line.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (column >= COLUMN_COUNT) {
+                throw new IllegalArgumentException("expected at most " + COLUMN_COUNT + " columns");
+            }
+            int from = skipWhitespace(line, start, end);
+            int to = trimEnd(line, from, end);
+            if (to - from >= 2 && line.charAt(from) == '"' && line.charAt(to - 1) == '"') {
+                from++;
+                to--;
+            }
+            if (from < to) {
+                switch (column) {
+                    case 0 -> builder.withModel(MODELS.require("model", line, from, to));
+                    case 1 -> builder.withEngine(ENGINES.require("engine", line, from, to));
+                    case 2 -> builder.withTransmission(TRANSMISSIONS.require("transmission", line, from, to));
+                    case 3 -> builder.setColor(COLORS.require("color", line, from, to));
+                    case 4, 5, 6 -> addFeatures(builder, column, line, from, to);
+                    default -> orderId = parseUuid(line.substring(from, to));
+                }
+            }
+            column++;
+            start = end + 1;
+        }
+        return new Row(lineNumber, orderId, builder);
+    }
+
+    private static void addFeatures(CarBuilder builder, int column, String line, int from, int to) {
+        int start = from;
+        while (start < to) {
+            int end = line.indexOf(';', start);
+            if (end < 0 || end > to) {
+                end = to;
+            }
+            int tokenFrom = skipWhitespace(line, start, end);
+            int tokenTo = trimEnd(line, tokenFrom, end);
+            if (tokenFrom < tokenTo) {
+                addFeature(builder, column, line, tokenFrom, tokenTo);
+            }
+            start = end + 1;
+        }
+    }
+
+    private static void addFeature(CarBuilder builder, int column, String text, int from, int to) {
+        switch (column) {
+            case 4 -> builder.addInteriorFeature(INTERIOR.require("interior feature", text, from, to));
+            case 5 -> builder.addExteriorFeature(EXTERIOR.require("exterior feature", text, from, to));
+            default -> builder.addSafetyFeature(SAFETY.require("safety feature", text, from, to));
+        }
+    }
+
+    private static Row parseJson(String line, int lineNumber) {
+        JsonCursor json = new JsonCursor(line);
+        CarBuilder builder = new CarBuilder();
+        UUID orderId = null;
+        json.expect('{');
+        if (!json.consume('}')) {
+            do {
+                String key = json.readString();
+                json.expect(':');
+                switch (key) {
+                    case "model" -> builder.withModel(MODELS.require("model", json.readToken()));
+                    case "engine" -> builder.withEngine(ENGINES.require("engine", json.readToken()));
+                    case "transmission" ->
+                            builder.withTransmission(TRANSMISSIONS.require("transmission", json.readToken()));
+                    case "color" -> {
+                        String color = json.readNullableString();
+                        if (color != null) {
+                            builder.setColor(COLORS.require("color", color));
+                        }
+                    }
+                    case "interior" -> readFeatures(json, builder, 4);
+                    case "exterior" -> readFeatures(json, builder, 5);
+                    case "safety" -> readFeatures(json, builder, 6);
+                    case "orderId" -> {
+                        String id = json.readNullableString();
+                        orderId = id == null ? null : parseUuid(id);
+                    }
+                    default -> throw new IllegalArgumentException("unknown key '" + key + "'");
+                }
+            } while (json.consume(','));
+            json.expect('}');
+        }
+        json.expectEnd();
+        return new Row(lineNumber, orderId, builder);
+    }
+
+    private static void readFeatures(JsonCursor json, CarBuilder builder, int column) {
+        if (json.consumeNull()) {
+            return;
+        }
+        json.expect('[');
+        if (json.consume(']')) {
+            return;
+        }
+        do {
+            String feature = json.readString();
+            addFeature(builder, column, feature, 0, feature.length());
+        } while (json.consume(','));
+        json.expect(']');
+    }
+
+    private static UUID parseUuid(String text) {
+        try {
+            return UUID.fromString(text);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("invalid order id '" + text + "'");
+        }
+    }
+
+    private static int skipWhitespace(String text, int from, int to) {
+        while (from < to && Character.isWhitespace(text.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int trimEnd(String text, int from, int to) {
+        while (to > from && Character.isWhitespace(text.charAt(to - 1))) {
+            to--;
+        }
+        return to;
+    }
+
+    /**
+     * Case-insensitive lookup of enum constants by name over a region of text.
+     * Candidates are bucketed by name length, so a token is compared against at
+     * most a couple of names.
+     */
+    private static final class EnumLookup<E extends Enum<E>> {
+
+        private final E[] values;
+        private final char[][] names;
+        private final int[][] byLength;
+
+        EnumLookup(E[] values) {
+            this.values = values;
+            this.names = new char[values.length][];
+            int maxLength = 0;
+            for (int i = 0; i < values.length; i++) {
+                names[i] = values[i].name().toCharArray();
+                maxLength = Math.max(maxLength, names[i].length);
+            }
+            int[] counts = new int[maxLength + 1];
+            for (char[] name : names) {
+                counts[name.length]++;
+            }
+            this.byLength = new int[maxLength + 1][];
+            for (int length = 0; length <= maxLength; length++) {
+                byLength[length] = new int[counts[length]];
+                counts[length] = 0;
+            }
+            for (int i = 0; i < names.length; i++) {
+                byLength[names[i].length][counts[names[i].length]++] = i;
+            }
+        }
+
+        E require(String what, String text) {
+            return require(what, text, 0, text.length());
+        }
+
+        E require(String what, String text, int from, int to) {
+            E value = find(text, from, to);
+            if (value == null) {
+                throw new IllegalArgumentException("unknown " + what + " '" + text.substring(from, to) + "'");
+            }
+            return value;
+        }
+
+        E find(String text, int from, int to) {
+            int length = to - from;
+            if (length >= byLength.length) {
+                return null;
+            }
+            for (int candidate : byLength[length]) {
+                if (matches(names[candidate], text, from)) {
+                    return values[candidate];
+                }
+            }
+            return null;
+        }
+
+        private static boolean matches(char[] name, String text, int from) {
+            for (int i = 0; i < name.length; i++) {
+                char c = text.charAt(from + i);
+                if (c >= 'a' && c <= 'z') {
+                    c -= 'a' - 'A';
+                } else if (c == '-' || c == ' ') {
+                    c = '_';
+                }
+                if (c != name[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Minimal reader for the flat JSON objects of the batch input: string
+     * values, arrays of strings and null.
+     */
+    private static final class JsonCursor {
+
+        private final String text;
+        private int pos;
+
+        JsonCursor(String text) {
+            this.text = text;
+        }
+
+        void expect(char c) {
+            if (!consume(c)) {
+                throw new IllegalArgumentException("expected '" + c + "' at column " + (pos + 1));
+            }
+        }
+
+        boolean consume(char c) {
+            skip();
+            if (pos < text.length() && text.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        boolean consumeNull() {
+            skip();
+            if (text.startsWith("null", pos)) {
+                pos += 4;
+                return true;
+            }
+            return false;
+        }
+
+        void expectEnd() {
+            skip();
+            if (pos != text.length()) {
+                throw new IllegalArgumentException("unexpected content at column " + (pos + 1));
+            }
+        }
+
+        String readToken() {
+            String value = readNullableString();
+            if (value == null) {
+                throw new IllegalArgumentException("value must not be null at column " + (pos + 1));
+            }
+            return value;
+        }
+
+        String readNullableString() {
+            return consumeNull() ? null : readString();
+        }
+
+        String readString() {
+            expect('"');
+            int start = pos;
+            StringBuilder unescaped = null;
+            while (pos < text.length()) {
+                char c = text.charAt(pos);
+                if (c == '"') {
+                    String value = unescaped == null
+                            ? text.substring(start, pos)
+                            : unescaped.append(text, start, pos).toString();
+                    pos++;
+                    return value;
+                }
+                if (c == '\\') {
+                    if (unescaped == null) {
+                        unescaped = new StringBuilder();
+                    }
+                    unescaped.append(text, start, pos);
+                    unescaped.append(readEscape());
+                    start = pos;
+                } else {
+                    pos++;
+                }
+            }
+            throw new IllegalArgumentException("unterminated string");
+        }
+
+        private char readEscape() {
+            if (pos + 1 >= text.length()) {
+                throw new IllegalArgumentException("unterminated escape");
+            }
+            char c = text.charAt(pos + 1);
+            pos += 2;
+            switch (c) {
+                case '"', '\\', '/' -> {
+                    return c;
+                }
+                case 'n' -> {
+                    return '\n';
+                }
+                case 't' -> {
+                    return '\t';
+                }
+                case 'r' -> {
+                    return '\r';
+                }
+                case 'b' -> {
+                    return '\b';
+                }
+                case 'f' -> {
+                    return '\f';
+                }
+                case 'u' -> {
+                    if (pos + 4 > text.length()) {
+                        throw new IllegalArgumentException("truncated unicode escape");
+                    }
+                    char decoded = (char) Integer.parseInt(text, pos, pos + 4, 16);
+                    pos += 4;
+                    return decoded;
+                }
+                default -> throw new IllegalArgumentException("unsupported escape '\\" + c + "'");
+            }
+        }
+
+        private void skip() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+    }
+}
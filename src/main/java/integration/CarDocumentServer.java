@@ -0,0 +1,406 @@
+package integration;
+
+import car.builder.InvalidCarConfigurationException;
+import car.domain.Car;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import editor.core.Document;
+import editor.factory.DocumentFactory;
+import integration.order.Order;
+import integration.order.OrderService;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embedded HTTP front end for validating configurations, placing orders and
+ * fetching order documents, built on the JDK's {@code com.sun.net.httpserver}.
+ * <p>
+ * Endpoints (configurations use the JSON Lines or CSV row syntax of
+ * {@link CarConfigurationParser}, picked by the {@code Content-Type}):
+ * <pre>
+ * POST /configurations/validate          200 valid, 422 invalid
+ * POST /orders                           201 with the order id
+ * GET  /orders/{id}/document?format=pdf  the rendered document
+ * </pre>
+ * Documents are streamed straight from {@link Document#writeTo} with chunked
+ * transfer encoding; they are never buffered as a whole unless a
+ * {@link DocumentCache} is configured, which serves repeated requests. If
+ * rendering fails after the status line went out, the failure is logged and
+ * the connection is dropped before the terminating chunk.
+ */
+public class CarDocumentServer implements AutoCloseable {
+
+    public static final int DEFAULT_PORT = 8080;
+    static final int MAX_REQUEST_BYTES = 64 * 1024;
+
+    private static final System.Logger LOG = System.getLogger(CarDocumentServer.class.getName());
+    private static final String ORDERS_PREFIX = "/orders/";
+    private static final String DOCUMENT_SUFFIX = "/document";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final OrderService orderService;
+    private final DocumentFactory documentFactory;
+    private final DocumentCache cache;
+    private final CarReportGenerator reportGenerator = new CarReportGenerator();
+
+    /**
+     * Creates a server; call {@link #start()} to accept requests.
+     * @param orderService receives placed orders
+     * @param documentFactory renders documents
+     * @param address address to bind; port 0 picks a free port
+     * @param executor runs the request handlers; shut down by {@link #close()}
+     * @throws IOException if the address cannot be bound
+     */
+    public CarDocumentServer(OrderService orderService, DocumentFactory documentFactory,
+                             InetSocketAddress address, ExecutorService executor) throws IOException {
+        this(orderService, documentFactory, address, executor, null);
+    }
+
+    /**
+     * Creates a server that serves repeated document requests from a cache.
+     * @param orderService receives placed orders
+     * @param documentFactory renders documents
+     * @param address address to bind; port 0 picks a free port
+     * @param executor runs the request handlers; shut down by {@link #close()}
+     * @param cache caches rendered documents, or null to stream every one
+     * @throws IOException if the address cannot be bound
+     */
+    public CarDocumentServer(OrderService orderService, DocumentFactory documentFactory,
+                             InetSocketAddress address, ExecutorService executor, DocumentCache cache)
+            throws IOException {
+        this.cache = cache;
+        this.orderService = Objects.requireNonNull(orderService, "orderService");
+        this.documentFactory = Objects.requireNonNull(documentFactory, "documentFactory");
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.server = HttpServer.create(address, 0);
+        this.server.setExecutor(executor);
+        this.server.createContext("/configurations/validate", exchange -> handle(exchange, this::validate));
+        this.server.createContext("/orders", exchange -> handle(exchange, this::orders));
+    }
+
+    /**
+     * Creates the default handler executor: one virtual thread per request when
+     * the runtime supports them (Java 21+), otherwise a fixed pool of platform
+     * threads sized for blocking I/O.
+     * @return the executor
+     */
+    public static ExecutorService defaultExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 4, runnable -> {
+                Thread thread = new Thread(runnable, "http-worker-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting connections, lets running exchanges finish for up to a
+     * second and shuts the executor down.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void validate(HttpExchange exchange) throws IOException {
+        if (!requireMethod(exchange, "POST")) {
+            return;
+        }
+        Car car;
+        try {
+            car = readCar(exchange);
+        } catch (InvalidCarConfigurationException | IllegalArgumentException ex) {
+            sendJson(exchange, 422, "{\"valid\":false,\"error\":" + jsonString(ex.getMessage()) + "}");
+            return;
+        }
+        sendJson(exchange, 200, "{\"valid\":true,\"summary\":" + jsonString(car.getSummary()) + "}");
+    }
+
+    private void orders(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.equals("/orders")) {
+            placeOrder(exchange);
+        } else if (path.startsWith(ORDERS_PREFIX) && path.endsWith(DOCUMENT_SUFFIX)) {
+            sendDocument(exchange, path.substring(ORDERS_PREFIX.length(), path.length() - DOCUMENT_SUFFIX.length()));
+        } else {
+            sendError(exchange, 404, "Not found: " + path);
+        }
+    }
+
+    private void placeOrder(HttpExchange exchange) throws IOException {
+        if (!requireMethod(exchange, "POST")) {
+            return;
+        }
+        Car car;
+        try {
+            car = readCar(exchange);
+        } catch (InvalidCarConfigurationException | IllegalArgumentException ex) {
+            sendError(exchange, 422, ex.getMessage());
+            return;
+        }
+        Order order = orderService.placeOrder(car);
+        exchange.getResponseHeaders().set("Location", ORDERS_PREFIX + order.getId() + DOCUMENT_SUFFIX);
+        sendJson(exchange, 201, "{\"orderId\":\"" + order.getId() + "\",\"status\":\"" + order.getStatus() + "\"}");
+    }
+
+    private void sendDocument(HttpExchange exchange, String idText) throws IOException {
+        if (!requireMethod(exchange, "GET")) {
+            return;
+        }
+        Optional<Order> order;
+        try {
+            order = orderService.findOrder(UUID.fromString(idText));
+        } catch (IllegalArgumentException ex) {
+            sendError(exchange, 404, "Unknown order: " + idText);
+            return;
+        }
+        if (order.isEmpty()) {
+            sendError(exchange, 404, "Unknown order: " + idText);
+            return;
+        }
+        String formatKey = queryParameter(exchange, "format");
+        if (formatKey == null) {
+            formatKey = "pdf";
+        }
+        if (!documentFactory.supportsFormat(formatKey)) {
+            sendError(exchange, 400, "Unknown document format '" + formatKey + "'. Supported formats: "
+                    + documentFactory.getSupportedFormats());
+            return;
+        }
+
+        Car car = order.get().getCar();
+        Document document = documentFactory.createDocument(formatKey, reportGenerator.generateTitle(car));
+        reportGenerator.writeReport(car, order.get(), document);
+
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", contentType(document.getFormatKey()));
+        headers.set("Content-Disposition", "inline; filename=\"" + order.get().getId() + "."
+                + DocumentStorage.extensionFor(document.getFormatKey()) + "\"");
+        // length 0 selects chunked transfer encoding
+        exchange.sendResponseHeaders(200, 0);
+        ResponseBody body = ResponseBody.install(exchange);
+        try {
+            if (cache != null) {
+                cache.writeTo(document, body);
+            } else {
+                OutputStream buffered = new BufferedOutputStream(body, 16 * 1024);
+                document.writeTo(buffered, order.get().getId());
+                buffered.flush();
+            }
+        } catch (IOException | RuntimeException ex) {
+            if (body.connectionFailed) {
+                throw ex;
+            }
+            // the status is already sent: cut the response short so the client cannot take it as complete
+            body.abort();
+            LOG.log(System.Logger.Level.ERROR, "Failed to render the " + formatKey + " document of order "
+                    + order.get().getId(), ex);
+            return;
+        }
+        body.close();
+    }
+
+    private Car readCar(HttpExchange exchange) throws IOException {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        CarConfigurationParser.InputFormat format = contentType != null && contentType.startsWith("text/csv")
+                ? CarConfigurationParser.InputFormat.CSV
+                : CarConfigurationParser.InputFormat.JSONL;
+        String body = readBody(exchange).strip();
+        return CarConfigurationParser.parse(format, body, 1).builder().build();
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_REQUEST_BYTES + 1);
+            if (body.length > MAX_REQUEST_BYTES) {
+                throw new IllegalArgumentException("request body exceeds " + MAX_REQUEST_BYTES + " bytes");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static boolean requireMethod(HttpExchange exchange, String method) throws IOException {
+        if (method.equals(exchange.getRequestMethod())) {
+            return true;
+        }
+        exchange.getResponseHeaders().set("Allow", method);
+        sendError(exchange, 405, "Method not allowed: " + exchange.getRequestMethod());
+        return false;
+    }
+
+    private static String queryParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq == name.length() && pair.startsWith(name)) {
+                return pair.substring(eq + 1).toLowerCase();
+            }
+        }
+        return null;
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        sendJson(exchange, status, "{\"error\":" + jsonString(message) + "}");
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    static String contentType(String formatKey) {
+        return switch (formatKey) {
+            case "pdf" -> "application/pdf";
+            case "html" -> "text/html; charset=utf-8";
+            case "word" -> "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+            default -> "application/octet-stream";
+        };
+    }
+
+    static String jsonString(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static void handle(HttpExchange exchange, Handler handler) {
+        try {
+            handler.handle(exchange);
+        } catch (IOException ex) {
+            // client went away; nothing left to answer
+        } catch (RuntimeException ex) {
+            try {
+                sendError(exchange, 500, String.valueOf(ex.getMessage()));
+            } catch (IOException | RuntimeException ignored) {
+                // headers were already sent
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    /**
+     * Response stream that remembers whether writing to the connection failed,
+     * which tells a client that went away apart from a failing encoder. An
+     * aborted body fails to close, so the exchange drops the connection
+     * instead of writing the terminating chunk.
+     */
+    private static final class ResponseBody extends FilterOutputStream {
+
+        boolean connectionFailed;
+        private boolean aborted;
+
+        private ResponseBody(OutputStream out) {
+            super(out);
+        }
+
+        static ResponseBody install(HttpExchange exchange) {
+            ResponseBody body = new ResponseBody(exchange.getResponseBody());
+            exchange.setStreams(null, body);
+            return body;
+        }
+
+        void abort() {
+            aborted = true;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            try {
+                out.write(b);
+            } catch (IOException ex) {
+                connectionFailed = true;
+                throw ex;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            try {
+                out.write(b, off, len);
+            } catch (IOException ex) {
+                connectionFailed = true;
+                throw ex;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            try {
+                out.flush();
+            } catch (IOException ex) {
+                connectionFailed = true;
+                throw ex;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (aborted) {
+                throw new IOException("response aborted");
+            }
+            super.close();
+        }
+    }
+}
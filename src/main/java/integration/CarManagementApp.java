@@ -13,11 +13,21 @@ import editor.core.Document;
 import editor.core.UnknownDocumentFormatException;
 import editor.factory.DocumentFactory;
 import integration.order.Order;
+import metrics.MetricsRegistry;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Scanner;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 /**
@@ -29,9 +39,37 @@ public final class CarManagementApp {
         // utility class
     }
 
+    private static final String ASYNC_OPTION = "--async";
+    private static final String BATCH_OPTION = "--batch";
+    private static final String THREADS_OPTION = "--threads";
+    private static final String SERVE_OPTION = "--serve";
+    private static final String LOAD_OPTION = "--load";
+    private static final String WARM_UP_OPTION = "--warm-up";
+    private static final String JOURNAL_OPTION = "--journal";
+    private static final Path OUTPUT_DIR = Path.of("output");
+    private static final Path CACHE_DIR = OUTPUT_DIR.resolve("cache");
+    private static final long CACHE_HEAP_BYTES = 64L * 1024 * 1024;
+    private static final long CACHE_DISK_BYTES = 512L * 1024 * 1024;
+
     public static void main(String[] args) {
+        MetricsRegistry.global().registerPlatformMBean();
         DocumentFactory documentFactory = DocumentFactory.createDefault();
         CarManagementSystem system = new CarManagementSystem(documentFactory);
+        args = openJournal(args, system);
+        if (Arrays.asList(args).contains(BATCH_OPTION)) {
+            runBatch(args, system, documentFactory);
+            return;
+        }
+        if (Arrays.asList(args).contains(LOAD_OPTION)) {
+            runLoad(args, system, documentFactory);
+            return;
+        }
+        if (Arrays.asList(args).contains(SERVE_OPTION)) {
+            serve(args, system, documentFactory);
+            return;
+        }
+        boolean async = Arrays.asList(args).contains(ASYNC_OPTION);
+        args = Arrays.stream(args).filter(arg -> !ASYNC_OPTION.equals(arg)).toArray(String[]::new);
 
         displayBanner();
         System.out.printf("Supported formats: %s%n", documentFactory.getSupportedFormats());
@@ -44,14 +82,18 @@ public final class CarManagementApp {
             Order order = system.getOrderService().placeOrder(sampleCar);
             printCarSummary(sampleCar);
 
+            if (async) {
+                generateInBackground(system, documentFactory, order, formatKey);
+                return;
+            }
+
             Document document = system.generateCarDocument(sampleCar, formatKey, order);
 
             System.out.println("\n=== Document Preview ===");
             System.out.println(document.render());
 
-            byte[] savedBytes = system.getEditor().save();
-            Path outputPath = DocumentStorage.save(Path.of("output"), formatKey, document.getTitle(), savedBytes);
-            System.out.printf("Document generated successfully (%d bytes).%n", savedBytes.length);
+            Path outputPath = DocumentStorage.saveSharded(OUTPUT_DIR, order.getId(), document);
+            System.out.printf("Document generated successfully (%d bytes).%n", Files.size(outputPath));
             System.out.printf("Saved to: %s%n", outputPath.toAbsolutePath().normalize());
         } catch (UnknownDocumentFormatException ex) {
             System.err.printf("Unknown document format '%s'. Supported formats: %s%n",
@@ -66,6 +108,190 @@ public final class CarManagementApp {
         }
     }
 
+    /**
+     * Order journal: {@code --journal <dir>}, accepted in every mode. Orders
+     * recorded there are recovered before anything else runs, and every order
+     * placed afterwards is recorded before it is acknowledged.
+     * @return the arguments without the journal option
+     */
+    private static String[] openJournal(String[] args, CarManagementSystem system) {
+        int index = Arrays.asList(args).indexOf(JOURNAL_OPTION);
+        if (index < 0) {
+            return args;
+        }
+        if (index + 1 >= args.length) {
+            System.err.println("Usage: --journal <dir>");
+            System.exit(1);
+        }
+        Path journalDir = Path.of(args[index + 1]);
+        try {
+            long replayed = system.openJournal(journalDir);
+            Runtime.getRuntime().addShutdownHook(new Thread(system::close, "journal-shutdown"));
+            System.out.printf("Recovered %,d journal records from %s%n", replayed, journalDir);
+        } catch (IOException ex) {
+            System.err.printf("Failed to open order journal %s: %s%n", journalDir, ex.getMessage());
+            System.exit(1);
+        }
+        List<String> remaining = new ArrayList<>(Arrays.asList(args));
+        remaining.subList(index, index + 2).clear();
+        return remaining.toArray(String[]::new);
+    }
+
+    private static void generateInBackground(CarManagementSystem system, DocumentFactory documentFactory,
+                                             Order order, String formatKey) {
+        try (AsyncDocumentGenerator generator = new AsyncDocumentGenerator(documentFactory, OUTPUT_DIR)) {
+            system.setDocumentGenerator(generator);
+            CompletableFuture<GeneratedDocument> pending = system.submitConfirmation(order, formatKey);
+            System.out.printf("%nOrder %s placed; confirmation document queued.%n", order.getId());
+
+            GeneratedDocument generated = pending.join();
+            System.out.println("\n=== Document Preview ===");
+            System.out.println(generated.document().render());
+            System.out.printf("Document generated successfully (%d bytes).%n", generated.size());
+            System.out.printf("Saved to: %s%n", generated.path().toAbsolutePath().normalize());
+        } catch (CompletionException ex) {
+            System.err.printf("Failed to generate document: %s%n", ex.getCause().getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Headless mode: {@code --batch <file> [--threads <n>] [format]}.
+     */
+    private static void runBatch(String[] args, CarManagementSystem system, DocumentFactory documentFactory) {
+        Path input = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String formatKey = "pdf";
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case BATCH_OPTION -> input = Path.of(args[++i]);
+                    case THREADS_OPTION -> threads = Integer.parseInt(args[++i]);
+                    default -> formatKey = args[i].toLowerCase();
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException ex) {
+            System.err.println("Usage: --batch <file.csv|file.jsonl> [--threads <n>] [format]");
+            System.exit(1);
+            return;
+        }
+
+        try {
+            BatchRunner runner = new BatchRunner(system.getOrderService(), documentFactory, OUTPUT_DIR,
+                    formatKey, threads, System.out, false);
+            System.out.printf("Generating %s documents from %s on %d threads...%n",
+                    formatKey.toUpperCase(), input, threads);
+            BatchRunner.Summary summary = runner.run(input);
+
+            System.out.printf("Done in %.2f s: %,d rows, %,d documents, %,d invalid, %,d failed (%,.0f docs/s).%n",
+                    summary.elapsed().toNanos() / 1e9, summary.rows(), summary.documents(),
+                    summary.invalid(), summary.failed(), summary.throughput());
+            System.out.printf("Output: %s%n", OUTPUT_DIR.toAbsolutePath().normalize());
+            summary.errors().forEach(error -> System.err.println("  " + error));
+            if (summary.invalid() + summary.failed() > 0) {
+                System.exit(2);
+            }
+        } catch (UnknownDocumentFormatException ex) {
+            System.err.printf("Unknown document format '%s'. Supported formats: %s%n",
+                    ex.getFormatKey(), ex.getSupportedFormats());
+            System.exit(1);
+        } catch (IOException ex) {
+            System.err.printf("Failed to read batch input: %s%n", ex.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Load test: {@code --load [--workers <n>] [--rate <ops/s>] [--duration <s>] [--skewed] [format...]}.
+     * Without a rate, workers run in closed loop.
+     */
+    private static void runLoad(String[] args, CarManagementSystem system, DocumentFactory documentFactory) {
+        int workers = Runtime.getRuntime().availableProcessors();
+        double rate = 0;
+        long seconds = 10;
+        LoadGenerator.Distribution distribution = LoadGenerator.Distribution.UNIFORM;
+        List<String> formats = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case LOAD_OPTION -> { }
+                    case "--workers" -> workers = Integer.parseInt(args[++i]);
+                    case "--rate" -> rate = Double.parseDouble(args[++i]);
+                    case "--duration" -> seconds = Long.parseLong(args[++i]);
+                    case "--skewed" -> distribution = LoadGenerator.Distribution.SKEWED;
+                    default -> formats.add(args[i].toLowerCase());
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException ex) {
+            System.err.println("Usage: --load [--workers <n>] [--rate <ops/s>] [--duration <s>] [--skewed] [format...]");
+            System.exit(1);
+            return;
+        }
+        if (formats.isEmpty()) {
+            formats.addAll(new TreeSet<>(documentFactory.getSupportedFormats()));
+        }
+
+        try {
+            LoadGenerator generator = new LoadGenerator(system.getOrderService(), documentFactory,
+                    new LoadGenerator.Settings(workers, rate, Duration.ofSeconds(seconds), distribution, formats,
+                            System.nanoTime()));
+            System.out.printf("Generating load for %d s over %,d configurations...%n",
+                    seconds, generator.configurationCount());
+            System.out.println(generator.run().format());
+        } catch (UnknownDocumentFormatException ex) {
+            System.err.printf("Unknown document format '%s'. Supported formats: %s%n",
+                    ex.getFormatKey(), ex.getSupportedFormats());
+            System.exit(1);
+        } catch (IllegalArgumentException ex) {
+            System.err.printf("Invalid load settings: %s%n", ex.getMessage());
+            System.exit(1);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Server mode: {@code --serve [port] [--warm-up format,...]}. Runs until
+     * the process is stopped. Rendered documents are cached on the heap and
+     * under {@code output/cache}; the listed formats' engines are initialized in
+     * the background, so their first request is not slow.
+     */
+    private static void serve(String[] args, CarManagementSystem system, DocumentFactory documentFactory) {
+        int port = CarDocumentServer.DEFAULT_PORT;
+        List<String> options = Arrays.asList(args);
+        int index = options.indexOf(SERVE_OPTION);
+        int warmUp = options.indexOf(WARM_UP_OPTION);
+        try {
+            if (index + 1 < args.length && !args[index + 1].startsWith("--")) {
+                port = Integer.parseInt(args[index + 1]);
+            }
+            if (warmUp >= 0) {
+                String[] formats = warmUp + 1 < args.length ? args[warmUp + 1].split(",") : new String[0];
+                documentFactory.warmUp(formats).exceptionally(ex -> {
+                    System.err.printf("Warm-up failed: %s%n", ex);
+                    return null;
+                });
+            }
+        } catch (NumberFormatException | UnknownDocumentFormatException ex) {
+            System.err.println("Usage: --serve [port] [--warm-up format,...]");
+            System.exit(1);
+            return;
+        }
+
+        try {
+            DocumentCache cache = DocumentCache.open(CACHE_DIR, CACHE_HEAP_BYTES, CACHE_DISK_BYTES);
+            CarDocumentServer server = new CarDocumentServer(system.getOrderService(), documentFactory,
+                    new InetSocketAddress(port), CarDocumentServer.defaultExecutor(), cache);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close, "server-shutdown"));
+            server.start();
+            System.out.printf("Serving on http://localhost:%d (formats: %s)%n",
+                    server.getPort(), documentFactory.getSupportedFormats());
+        } catch (IOException ex) {
+            System.err.printf("Failed to start server on port %d: %s%n", port, ex.getMessage());
+            System.exit(1);
+        }
+    }
+
     private static void displayBanner() {
         System.out.println("=========================================");
         System.out.println("      Car Management Console Demo");
@@ -4,18 +4,33 @@ import car.domain.Car;
 import editor.core.Document;
 import editor.core.Editor;
 import editor.factory.DocumentFactory;
+import integration.order.FleetSnapshot;
 import integration.order.Order;
+import integration.order.OrderJournal;
 import integration.order.OrderService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
 /**
  * Car Management System that integrates car configuration with document generation.
  * Demonstrates the combination of Builder pattern (Car) with Factory pattern (Document).
+ * Close the system to stop the background document generator and the order
+ * journal it created.
  */
-public class CarManagementSystem {
+public class CarManagementSystem implements AutoCloseable {
     
     private final Editor editor;
     private final CarReportGenerator reportGenerator;
+    private final FleetReportGenerator fleetReportGenerator = new FleetReportGenerator();
     private final OrderService orderService;
+    private AsyncDocumentGenerator documentGenerator;
+    private boolean ownsDocumentGenerator;
+    private OrderJournal journal;
     
     public CarManagementSystem(DocumentFactory documentFactory) {
         this.editor = new Editor(documentFactory);
@@ -42,12 +57,15 @@ public class CarManagementSystem {
 
     public Document generateCarDocument(Car car, String formatKey, Order order) {
         String title = reportGenerator.generateTitle(car);
-        String content = reportGenerator.generateReport(car, order);
+        Document document = editor.newDocument(formatKey, title).getCurrentDocument();
         
-        editor.newDocument(formatKey, title)
-              .edit(content);
+        try {
+            reportGenerator.writeReport(car, order, document);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to write report content", ex);
+        }
         
-        return editor.getCurrentDocument();
+        return document;
     }
     
     /**
@@ -82,6 +100,37 @@ public class CarManagementSystem {
         return editor.preview();
     }
     
+    /**
+     * Generates the fleet summary of all active orders in the specified format.
+     * 
+     * @param formatKey the document format
+     * @return the generated document
+     */
+    public Document generateFleetDocument(String formatKey) {
+        return generateFleetDocument(formatKey, FleetReportGenerator.DEFAULT_TOP_CONFIGURATIONS);
+    }
+
+    /**
+     * Generates the fleet summary from the running order aggregates, so the
+     * cost does not grow with the number of orders.
+     * 
+     * @param formatKey the document format
+     * @param topConfigurations how many of the most ordered configurations to list
+     * @return the generated document
+     */
+    public Document generateFleetDocument(String formatKey, int topConfigurations) {
+        FleetSnapshot snapshot = orderService.getFleetAggregates().snapshot(topConfigurations);
+        Document document = editor.newDocument(formatKey, fleetReportGenerator.generateTitle()).getCurrentDocument();
+        
+        try {
+            fleetReportGenerator.writeReport(snapshot, document);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to write fleet report content", ex);
+        }
+        
+        return document;
+    }
+    
     /**
      * Gets the underlying editor.
      * @return the editor
@@ -98,7 +147,101 @@ public class CarManagementSystem {
         return reportGenerator;
     }
 
+    public FleetReportGenerator getFleetReportGenerator() {
+        return fleetReportGenerator;
+    }
+
     public OrderService getOrderService() {
         return orderService;
     }
+
+    /**
+     * Recovers the orders recorded in a journal directory and records every
+     * order placed or changed from now on, so orders survive a restart.
+     * Recovered orders are counted in the fleet aggregates; the journal runs
+     * as a durable listener, so an order is only counted, published or
+     * confirmed once its record is on disk.
+     * 
+     * @param journalDir the journal directory, created if missing
+     * @return the number of journal records replayed
+     * @throws IOException if the journal cannot be read or opened
+     * @throws IllegalStateException if a journal is already open
+     */
+    public synchronized long openJournal(Path journalDir) throws IOException {
+        if (journal != null) {
+            throw new IllegalStateException("Order journal already open");
+        }
+        long replayed = OrderJournal.replayInto(journalDir, orderService);
+        journal = OrderJournal.open(journalDir);
+        orderService.addDurableListener(journal);
+        return replayed;
+    }
+
+    /**
+     * Queues the confirmation document for a placed order on the background
+     * document generator, so the caller does not wait for rendering.
+     * 
+     * @param order the placed order
+     * @param formatKey the document format
+     * @return a future completed once the document is generated
+     */
+    public CompletableFuture<GeneratedDocument> submitConfirmation(Order order, String formatKey) {
+        return getDocumentGenerator().submit(order, formatKey);
+    }
+
+    /**
+     * Generates a confirmation document for every order placed from now on.
+     * 
+     * @param formatKey the document format
+     * @param callback receives each generated document or the final failure
+     */
+    public void enableAutomaticConfirmations(String formatKey,
+                                             BiConsumer<? super GeneratedDocument, ? super Throwable> callback) {
+        orderService.addListener(getDocumentGenerator().confirmationListener(formatKey, callback));
+    }
+
+    /**
+     * Gets the background document generator, creating an in-memory one on first use.
+     * @return the document generator
+     */
+    public synchronized AsyncDocumentGenerator getDocumentGenerator() {
+        if (documentGenerator == null) {
+            documentGenerator = new AsyncDocumentGenerator(editor.getDocumentFactory(), null);
+            ownsDocumentGenerator = true;
+        }
+        return documentGenerator;
+    }
+
+    /**
+     * Replaces the background document generator, e.g. to write documents to storage.
+     * A generator created by this system is closed; one set by the caller stays
+     * the caller's to close.
+     * @param documentGenerator the generator to use
+     */
+    public synchronized void setDocumentGenerator(AsyncDocumentGenerator documentGenerator) {
+        Objects.requireNonNull(documentGenerator, "documentGenerator");
+        if (ownsDocumentGenerator && this.documentGenerator != documentGenerator) {
+            this.documentGenerator.close();
+        }
+        this.documentGenerator = documentGenerator;
+        this.ownsDocumentGenerator = false;
+    }
+
+    /**
+     * Shuts down the background document generator if this system created it,
+     * waiting briefly for queued documents, then closes the order journal.
+     */
+    @Override
+    public synchronized void close() {
+        if (ownsDocumentGenerator) {
+            documentGenerator.close();
+            documentGenerator = null;
+            ownsDocumentGenerator = false;
+        }
+        if (journal != null) {
+            orderService.removeListener(journal);
+            journal.close();
+            journal = null;
+        }
+    }
 }
@@ -1,13 +1,30 @@
 package integration;
 
 import car.domain.Car;
+import car.domain.ExteriorFeature;
+import car.domain.InteriorFeature;
+import car.domain.SafetyFeature;
+import editor.core.Document;
+import editor.formats.HtmlDocument;
 import integration.order.Order;
+import metrics.ReportGenerationEvent;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.UUID;
 
 /**
  * Format-agnostic car report generator.
  * Creates content that can be rendered by any document format.
  */
 public class CarReportGenerator {
+
+    private static final InteriorFeature[] INTERIOR = InteriorFeature.values();
+    private static final ExteriorFeature[] EXTERIOR = ExteriorFeature.values();
+    private static final SafetyFeature[] SAFETY = SafetyFeature.values();
     
     /**
      * Generates a plain text report for the car configuration.
@@ -21,52 +38,160 @@ public class CarReportGenerator {
     }
 
     public String generateReport(Car car, Order order) {
-        StringBuilder sb = new StringBuilder();
-        
-        sb.append("VEHICLE SPECIFICATION REPORT\n");
-        sb.append("============================\n\n");
+        ReportGenerationEvent event = new ReportGenerationEvent();
+        event.begin();
+        StringBuilder sb = new StringBuilder(512);
+        try {
+            writeReport(car, order, sb);
+        } catch (IOException ex) {
+            // StringBuilder never throws
+            throw new UncheckedIOException(ex);
+        }
+        commit(event, null, order, sb.length());
+        return sb.toString();
+    }
+    
+    /**
+     * Writes the report for the car configuration into the given sink.
+     * Accepts any {@link Appendable}, including a {@link java.io.Writer},
+     * so large reports never need to exist as one string.
+     * 
+     * @param car the car to generate a report for
+     * @param order the order to include, or null
+     * @param out the sink receiving the report text
+     * @throws IOException if the sink fails
+     */
+    public void writeReport(Car car, Order order, Appendable out) throws IOException {
+        out.append("VEHICLE SPECIFICATION REPORT\n");
+        out.append("============================\n\n");
         
-        sb.append("Model: ").append(car.getModel().getDisplayName()).append("\n");
-        sb.append("Color: ").append(car.getColor().getDisplayName()).append("\n\n");
+        out.append("Model: ").append(car.getModel().getDisplayName()).append("\n");
+        out.append("Color: ").append(car.getColor().getDisplayName()).append("\n\n");
 
         if (order != null) {
-            sb.append("Order ID: ").append(order.getId()).append("\n");
-            sb.append("Order Status: ").append(order.getStatus()).append("\n\n");
+            out.append("Order ID: ").append(order.getId().toString()).append("\n");
+            out.append("Order Status: ").append(order.getStatus().name()).append("\n\n");
         }
         
-        sb.append("POWERTRAIN\n");
-        sb.append("----------\n");
-        sb.append("Engine: ").append(car.getEngine()).append("\n");
-        sb.append("Transmission: ").append(car.getTransmission()).append("\n\n");
+        out.append("POWERTRAIN\n");
+        out.append("----------\n");
+        out.append("Engine: ").append(car.getEngine().toString()).append("\n");
+        out.append("Transmission: ").append(car.getTransmission().toString()).append("\n\n");
         
         if (!car.getInteriorFeatures().isEmpty()) {
-            sb.append("INTERIOR FEATURES\n");
-            sb.append("-----------------\n");
-            car.getInteriorFeatures().forEach(f -> 
-                sb.append("- ").append(f.getDisplayName()).append("\n"));
-            sb.append("\n");
+            out.append("INTERIOR FEATURES\n");
+            out.append("-----------------\n");
+            for (InteriorFeature f : INTERIOR) {
+                if (car.hasInteriorFeature(f)) {
+                    out.append("- ").append(f.getDisplayName()).append("\n");
+                }
+            }
+            out.append("\n");
         }
         
         if (!car.getExteriorFeatures().isEmpty()) {
-            sb.append("EXTERIOR FEATURES\n");
-            sb.append("-----------------\n");
-            car.getExteriorFeatures().forEach(f -> 
-                sb.append("- ").append(f.getDisplayName()).append("\n"));
-            sb.append("\n");
+            out.append("EXTERIOR FEATURES\n");
+            out.append("-----------------\n");
+            for (ExteriorFeature f : EXTERIOR) {
+                if (car.hasExteriorFeature(f)) {
+                    out.append("- ").append(f.getDisplayName()).append("\n");
+                }
+            }
+            out.append("\n");
         }
         
         if (!car.getSafetyFeatures().isEmpty()) {
-            sb.append("SAFETY FEATURES\n");
-            sb.append("---------------\n");
-            car.getSafetyFeatures().forEach(f -> 
-                sb.append("- ").append(f.getDisplayName()).append("\n"));
-            sb.append("\n");
+            out.append("SAFETY FEATURES\n");
+            out.append("---------------\n");
+            for (SafetyFeature f : SAFETY) {
+                if (car.hasSafetyFeature(f)) {
+                    out.append("- ").append(f.getDisplayName()).append("\n");
+                }
+            }
+            out.append("\n");
         }
         
-        sb.append("============================\n");
-        sb.append("Generated by Car Management System\n");
+        out.append("============================\n");
+        out.append("Generated by Car Management System\n");
+    }
+    
+    /**
+     * Writes the report directly into the content sink of a document.
+     * 
+     * @param car the car to generate a report for
+     * @param order the order to include, or null
+     * @param document the document whose content is replaced by the report
+     * @throws IOException if the document sink fails
+     */
+    public void writeReport(Car car, Order order, Document document) throws IOException {
+        ReportGenerationEvent event = new ReportGenerationEvent();
+        event.begin();
+        try (Writer sink = document.openContentWriter()) {
+            writeReport(car, order, sink);
+        }
+        commit(event, document.getFormatKey(), order, document.getContent().length());
+    }
+    
+    /**
+     * Streams the report as an HTML document into the stream. Each line goes
+     * through the encoder as it is generated, so the report never exists as
+     * one string.
+     * 
+     * @param car the car to generate a report for
+     * @param order the order to include, or null
+     * @param out the stream receiving the HTML; flushed but not closed
+     * @throws IOException if the stream fails
+     */
+    public void writeHtmlReport(Car car, Order order, OutputStream out) throws IOException {
+        ReportGenerationEvent event = new ReportGenerationEvent();
+        event.begin();
+        UUID orderId = order == null ? null : order.getId();
+        long length;
+        try (CountingWriter encoder = new CountingWriter(HtmlDocument.openEncoder(generateTitle(car), orderId, out))) {
+            writeReport(car, order, encoder);
+            length = encoder.count;
+        }
+        commit(event, HtmlDocument.FORMAT_KEY, order, length);
+    }
+    
+    private static void commit(ReportGenerationEvent event, String formatKey, Order order, long contentLength) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.setFormatKey(formatKey);
+            event.setOrderId(order == null ? null : order.getId().toString());
+            event.setContentLength(contentLength);
+            event.commit();
+        }
+    }
+    
+    /**
+     * Counts the characters passing through to the wrapped writer.
+     */
+    private static final class CountingWriter extends FilterWriter {
         
-        return sb.toString();
+        long count;
+        
+        CountingWriter(Writer out) {
+            super(out);
+        }
+        
+        @Override
+        public void write(int c) throws IOException {
+            out.write(c);
+            count++;
+        }
+        
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            out.write(chars, offset, length);
+            count += length;
+        }
+        
+        @Override
+        public void write(String text, int offset, int length) throws IOException {
+            out.write(text, offset, length);
+            count += length;
+        }
     }
     
     /**
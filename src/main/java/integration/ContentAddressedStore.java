@@ -0,0 +1,417 @@
+package integration;
+
+import editor.core.Document;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Deduplicating document store that keeps every distinct payload once.
+ * <p>
+ * Documents are stored under a name (e.g. an order id) that maps to the SHA-256
+ * hash of their bytes. Each document is encoded and hashed in memory first;
+ * only a payload with a new hash is written to a temporary file, forced and
+ * renamed into place. A duplicate only costs its index record, and nothing is
+ * written when the name already points to the same blob. Blobs are reference
+ * counted and deleted once no name points to them; blobs left unreferenced by
+ * a crash are deleted when the store is opened.
+ * <p>
+ * Every index record carries a CRC32C of its text and is forced to disk before
+ * the call that wrote it returns. Loading stops at the first record whose
+ * checksum does not match, so a torn record from a crash can never be read as
+ * a different one.
+ * <p>
+ * Layout below the root, with blobs placed as by
+ * {@link DocumentStorage#contentPath(Path, String, String)}:
+ * <pre>
+ * ab/cd/&lt;hash&gt;.&lt;ext&gt;   one file per distinct payload
+ * tmp/                 payloads being written
+ * index                append-only log of name assignments and removals
+ * </pre>
+ */
+public class ContentAddressedStore implements Closeable {
+
+    private static final String INDEX_FILE = "index";
+    private static final char PUT = '+';
+    private static final char REMOVE = '-';
+    private static final int CHECKSUM_DIGITS = 8;
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final Path root;
+    private final Path tempDir;
+    private final Map<String, Entry> names = new HashMap<>();
+    private final Map<Path, Integer> references = new HashMap<>();
+    private FileChannel index;
+    private long indexRecords;
+    private boolean indexDamaged;
+
+    private ContentAddressedStore(Path root) {
+        this.root = root;
+        this.tempDir = root.resolve("tmp");
+    }
+
+    /**
+     * Opens the store, creating it if needed, and loads its index.
+     * @param root the store directory
+     * @return the open store
+     * @throws IOException if the store cannot be read or created
+     */
+    public static ContentAddressedStore open(Path root) throws IOException {
+        ContentAddressedStore store = new ContentAddressedStore(root);
+        Files.createDirectories(store.tempDir);
+        store.deleteTemporaryFiles();
+        store.loadIndex();
+        if (store.indexDamaged || store.indexRecords > store.names.size()) {
+            store.compact();
+        } else {
+            store.openIndexForAppend();
+        }
+        store.deleteUnreferencedBlobs();
+        return store;
+    }
+
+    /**
+     * Stores a document under a name, replacing whatever the name pointed to.
+     * @param name the document name; must not contain tabs or line breaks
+     * @param document the document to store
+     * @return the SHA-256 hash of the stored payload
+     * @throws IOException if the payload or index cannot be written
+     */
+    public String put(String name, Document document) throws IOException {
+        return put(name, document.getFormatKey(), document::writeTo);
+    }
+
+    public String put(String name, String formatKey, byte[] payload) throws IOException {
+        return putPayload(name, formatKey, payload);
+    }
+
+    /**
+     * Gets the blob file holding the payload stored under a name.
+     * The file must not be modified, since other names may share it.
+     * @param name the document name
+     * @return the blob file, or empty if the name is unknown
+     */
+    public synchronized Optional<Path> find(String name) {
+        Entry entry = names.get(name);
+        return entry == null ? Optional.empty() : Optional.of(blobPath(entry));
+    }
+
+    public synchronized Optional<String> hashOf(String name) {
+        Entry entry = names.get(name);
+        return entry == null ? Optional.empty() : Optional.of(entry.hash());
+    }
+
+    public synchronized Optional<String> formatOf(String name) {
+        Entry entry = names.get(name);
+        return entry == null ? Optional.empty() : Optional.of(entry.formatKey());
+    }
+
+    /**
+     * Removes a name, deleting its blob if no other name refers to it.
+     * @param name the document name
+     * @return true if the name was stored
+     * @throws IOException if the index cannot be written
+     */
+    public synchronized boolean remove(String name) throws IOException {
+        ensureOpen();
+        Entry entry = names.get(name);
+        if (entry == null) {
+            return false;
+        }
+        appendRecord(REMOVE + "\t" + name);
+        names.remove(name);
+        release(blobPath(entry));
+        return true;
+    }
+
+    /**
+     * Counts the names whose payload has the given hash, in any format.
+     * Scans all blobs; meant for diagnostics.
+     */
+    public synchronized int referenceCount(String hash) {
+        int count = 0;
+        for (Map.Entry<Path, Integer> blob : references.entrySet()) {
+            if (blob.getKey().getFileName().toString().startsWith(hash + ".")) {
+                count += blob.getValue();
+            }
+        }
+        return count;
+    }
+
+    /** @return number of stored names */
+    public synchronized int size() {
+        return names.size();
+    }
+
+    /** @return number of distinct payloads on disk */
+    public synchronized int blobCount() {
+        return references.size();
+    }
+
+    /**
+     * Rewrites the index so it holds one record per stored name.
+     * @throws IOException if the index cannot be written
+     */
+    public synchronized void compact() throws IOException {
+        if (index != null) {
+            index.close();
+            index = null;
+        }
+        Path temp = writeTemporary(out -> {
+            for (Map.Entry<String, Entry> e : names.entrySet()) {
+                out.write(record(putRecord(e.getKey(), e.getValue())));
+            }
+        });
+        try {
+            DocumentStorage.moveAtomically(temp, root.resolve(INDEX_FILE));
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        indexRecords = names.size();
+        indexDamaged = false;
+        openIndexForAppend();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (index != null) {
+            index.close();
+            index = null;
+        }
+    }
+
+    private String put(String name, String formatKey, DocumentStorage.ContentWriter content) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        content.writeTo(buffer);
+        return putPayload(name, formatKey, buffer.toByteArray());
+    }
+
+    private String putPayload(String name, String formatKey, byte[] payload) throws IOException {
+        validateName(name);
+        Objects.requireNonNull(formatKey, "formatKey");
+
+        // hash and sync outside the lock; only the bookkeeping is serialized
+        Entry entry = new Entry(DocumentStorage.sha256Hex(payload), formatKey);
+        if (!commit(name, entry, null)) {
+            // a new payload: only now is it written and forced
+            Path temp = writeTemporary(out -> out.write(payload));
+            try {
+                commit(name, entry, temp);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        return entry.hash();
+    }
+
+    /**
+     * Points a name at a blob, moving the temporary file into place if the
+     * blob is new. Nothing is written if the name already points to it.
+     * @return false if the blob is new and no temporary file was given
+     */
+    private synchronized boolean commit(String name, Entry entry, Path temp) throws IOException {
+        ensureOpen();
+        Path blob = blobPath(entry);
+        boolean created = !references.containsKey(blob);
+        if (created) {
+            if (temp == null) {
+                return false;
+            }
+            Files.createDirectories(blob.getParent());
+            DocumentStorage.moveAtomically(temp, blob);
+        } else if (entry.equals(names.get(name))) {
+            return true;
+        }
+        try {
+            appendRecord(putRecord(name, entry));
+        } catch (IOException | RuntimeException ex) {
+            if (created) {
+                Files.deleteIfExists(blob);
+            }
+            throw ex;
+        }
+        references.merge(blob, 1, Integer::sum);
+        Entry previous = names.put(name, entry);
+        if (previous != null) {
+            release(blobPath(previous));
+        }
+        return true;
+    }
+
+    private void release(Path blob) throws IOException {
+        int remaining = references.merge(blob, -1, Integer::sum);
+        if (remaining <= 0) {
+            references.remove(blob);
+            Files.deleteIfExists(blob);
+        }
+    }
+
+    private Path blobPath(Entry entry) {
+        return DocumentStorage.contentPath(root, entry.hash(), entry.formatKey());
+    }
+
+    private void ensureOpen() {
+        if (index == null) {
+            throw new IllegalStateException("Content store is closed");
+        }
+    }
+
+    /**
+     * Writes content to a new file in the temporary directory and forces it
+     * to disk, so it is complete before it is renamed into place.
+     */
+    private Path writeTemporary(DocumentStorage.ContentWriter content) throws IOException {
+        Path temp = tempDir.resolve(Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel));
+            content.writeTo(out);
+            out.flush();
+            channel.force(true);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(temp);
+            throw ex;
+        }
+        return temp;
+    }
+
+    private void appendRecord(String body) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(record(body));
+        while (bytes.hasRemaining()) {
+            index.write(bytes);
+        }
+        index.force(false);
+        indexRecords++;
+    }
+
+    private void loadIndex() throws IOException {
+        Path indexFile = root.resolve(INDEX_FILE);
+        if (!Files.exists(indexFile)) {
+            return;
+        }
+        // a lenient decoder: a torn multi-byte character must fail the checksum, not the read
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(indexFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // a torn record from a crash fails its checksum; nothing after it is trusted
+                if (line.length() <= CHECKSUM_DIGITS || line.charAt(CHECKSUM_DIGITS) != '\t'
+                        || !line.startsWith(checksum(line.substring(CHECKSUM_DIGITS + 1)))) {
+                    indexDamaged = true;
+                    break;
+                }
+                String[] fields = line.substring(CHECKSUM_DIGITS + 1).split("\t", -1);
+                if (fields.length == 4 && fields[0].equals(String.valueOf(PUT))) {
+                    names.put(fields[1], new Entry(fields[2], fields[3]));
+                } else if (fields.length == 2 && fields[0].equals(String.valueOf(REMOVE))) {
+                    names.remove(fields[1]);
+                } else {
+                    indexDamaged = true;
+                    break;
+                }
+                indexRecords++;
+            }
+        }
+        // a record cut off right before its line break would swallow the next append
+        indexDamaged |= !endsWithLineBreak(indexFile);
+        for (Entry entry : names.values()) {
+            references.merge(blobPath(entry), 1, Integer::sum);
+        }
+    }
+
+    private void openIndexForAppend() throws IOException {
+        index = FileChannel.open(root.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void deleteTemporaryFiles() throws IOException {
+        try (Stream<Path> leftovers = Files.list(tempDir)) {
+            deleteAll(leftovers.toList());
+        }
+    }
+
+    /**
+     * Deletes blobs no name refers to, e.g. one renamed into place just
+     * before a crash, before its index record was written.
+     */
+    private void deleteUnreferencedBlobs() throws IOException {
+        try (Stream<Path> files = Files.walk(root, 3)) {
+            deleteAll(files
+                    .filter(file -> root.relativize(file).getNameCount() == 3 && !file.startsWith(tempDir))
+                    .filter(file -> !references.containsKey(file))
+                    .filter(Files::isRegularFile)
+                    .toList());
+        }
+    }
+
+    private static void deleteAll(List<Path> files) throws IOException {
+        try {
+            files.forEach(file -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private static boolean endsWithLineBreak(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() == 0) {
+                return true;
+            }
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, channel.size() - 1);
+            return last.get(0) == '\n';
+        }
+    }
+
+    /** Index line of a record: its checksum, a tab, the record and a line break. */
+    private static byte[] record(String body) {
+        return (checksum(body) + "\t" + body + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String checksum(String body) {
+        CRC32C crc = new CRC32C();
+        crc.update(body.getBytes(StandardCharsets.UTF_8));
+        return HEX.toHexDigits((int) crc.getValue());
+    }
+
+    private static String putRecord(String name, Entry entry) {
+        return PUT + "\t" + name + "\t" + entry.hash() + "\t" + entry.formatKey();
+    }
+
+    private static void validateName(String name) {
+        Objects.requireNonNull(name, "name");
+        if (name.isEmpty() || name.indexOf('\t') >= 0 || name.indexOf('\n') >= 0 || name.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException("Invalid document name: " + name);
+        }
+    }
+
+    private record Entry(String hash, String formatKey) {
+    }
+}
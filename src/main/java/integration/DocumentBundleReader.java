@@ -0,0 +1,85 @@
+package integration;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Random-access reader for archives written by {@link DocumentBundleWriter}.
+ * Entries are located through the ZIP central directory, so opening one
+ * document does not read the others.
+ */
+public class DocumentBundleReader implements Closeable {
+
+    private final ZipFile zip;
+
+    /**
+     * A manifest line.
+     *
+     * @param name entry name
+     * @param formatKey document format
+     * @param title document title
+     * @param size uncompressed size in bytes
+     * @param crc32 CRC-32 of the entry, in hex
+     */
+    public record Entry(String name, String formatKey, String title, long size, String crc32) {
+    }
+
+    public DocumentBundleReader(Path file) throws IOException {
+        this.zip = new ZipFile(file.toFile(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the manifest.
+     * @return the bundled documents, in the order they were added
+     * @throws IOException if the manifest cannot be read
+     */
+    public List<Entry> manifest() throws IOException {
+        String text = new String(readAllBytes(DocumentBundleWriter.MANIFEST_NAME), StandardCharsets.UTF_8);
+        List<Entry> entries = new ArrayList<>();
+        String[] lines = text.split("\n");
+        for (int i = 1; i < lines.length; i++) {
+            String[] fields = lines[i].split("\t", -1);
+            entries.add(new Entry(fields[0], fields[1], fields[2], Long.parseLong(fields[3]), fields[4]));
+        }
+        return Collections.unmodifiableList(entries);
+    }
+
+    public boolean contains(String name) {
+        return zip.getEntry(name) != null;
+    }
+
+    /**
+     * Opens one bundled document.
+     * @param name the entry name
+     * @return a stream of the document bytes
+     * @throws NoSuchElementException if the bundle has no such entry
+     * @throws IOException if the entry cannot be read
+     */
+    public InputStream open(String name) throws IOException {
+        ZipEntry entry = zip.getEntry(name);
+        if (entry == null) {
+            throw new NoSuchElementException("No bundle entry: " + name);
+        }
+        return zip.getInputStream(entry);
+    }
+
+    public byte[] readAllBytes(String name) throws IOException {
+        try (InputStream in = open(name)) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        zip.close();
+    }
+}
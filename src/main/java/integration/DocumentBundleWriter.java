@@ -0,0 +1,192 @@
+package integration;
+
+import editor.core.Document;
+import editor.formats.PdfDocument;
+import editor.formats.WordDocument;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams a batch of documents into one ZIP archive.
+ * <p>
+ * Only one document is held in memory at a time: each is encoded in full
+ * before its entry is opened, so a failed render leaves no trace in the
+ * archive. Formats that are compressed already (PDF, DOCX) are stored
+ * uncompressed, everything else is deflated. Per entry, only its name and
+ * manifest line are kept until the end, as the ZIP central directory needs
+ * them anyway.
+ * <p>
+ * Closing the writer appends a manifest ({@value #MANIFEST_NAME}) and the
+ * central directory, which lets {@link DocumentBundleReader} open any entry
+ * without scanning the archive.
+ */
+public class DocumentBundleWriter implements Closeable {
+
+    public static final String MANIFEST_NAME = "manifest.tsv";
+    static final String MANIFEST_HEADER = "name\tformat\ttitle\tsize\tcrc32\n";
+
+    private final Path file;
+    private final ZipOutputStream zip;
+    private final boolean storePrecompressed;
+    private final Set<String> names = new HashSet<>();
+    private final StringBuilder manifest = new StringBuilder(MANIFEST_HEADER);
+    private boolean closed;
+    private boolean failed;
+
+    /**
+     * Creates a bundle that stores PDF and DOCX entries uncompressed.
+     * @param file the archive to create or replace
+     * @return the open bundle writer
+     * @throws IOException if the file cannot be created
+     */
+    public static DocumentBundleWriter create(Path file) throws IOException {
+        return create(file, true);
+    }
+
+    /**
+     * Creates a bundle.
+     * @param file the archive to create or replace
+     * @param storePrecompressed store PDF and DOCX entries without deflating them again
+     * @return the open bundle writer
+     * @throws IOException if the file cannot be created
+     */
+    public static DocumentBundleWriter create(Path file, boolean storePrecompressed) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        return new DocumentBundleWriter(file, new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024),
+                storePrecompressed);
+    }
+
+    private DocumentBundleWriter(Path file, OutputStream out, boolean storePrecompressed) {
+        this.file = file;
+        this.zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        this.storePrecompressed = storePrecompressed;
+    }
+
+    /**
+     * Adds a document named after its title.
+     * Titles that were used before get a numeric suffix.
+     * @param document the document to add
+     * @return the entry name
+     * @throws IOException if writing fails
+     */
+    public String add(Document document) throws IOException {
+        String baseName = DocumentStorage.sanitizeFileName(document.getTitle());
+        if (baseName.isBlank()) {
+            baseName = "document";
+        }
+        String extension = "." + DocumentStorage.extensionFor(document.getFormatKey());
+        String name = baseName + extension;
+        for (int i = 2; names.contains(name); i++) {
+            name = baseName + "-" + i + extension;
+        }
+        add(name, document);
+        return name;
+    }
+
+    /**
+     * Adds a document under an explicit entry name, e.g. {@code <order id>.pdf}.
+     * @param name the entry name
+     * @param document the document to add
+     * @throws IOException if rendering or writing fails; after a failed render
+     *         the entry is not counted and the name may be used again
+     * @throws IllegalArgumentException if the name is already used
+     */
+    public void add(String name, Document document) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Bundle is closed: " + file);
+        }
+        if (failed) {
+            throw new IllegalStateException("Bundle could not be written: " + file);
+        }
+        if (name.equals(MANIFEST_NAME) || !names.add(name)) {
+            throw new IllegalArgumentException("Duplicate bundle entry: " + name);
+        }
+        // render before the entry is opened: ZipOutputStream cannot take back
+        // an entry, so a render that fails halfway would still end up in the
+        // central directory. writeTo, unlike save(), reports a failed render
+        // instead of returning error bytes.
+        byte[] payload;
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            document.writeTo(buffer);
+            payload = buffer.toByteArray();
+        } catch (IOException | RuntimeException ex) {
+            names.remove(name);
+            throw ex;
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(payload);
+        long size = payload.length;
+        long crc = checksum.getValue();
+        ZipEntry entry = new ZipEntry(name);
+        if (storePrecompressed && isPrecompressed(document.getFormatKey())) {
+            // STORED entries need size and CRC up front
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(size);
+            entry.setCompressedSize(size);
+            entry.setCrc(crc);
+        } else {
+            entry.setMethod(ZipEntry.DEFLATED);
+        }
+        try {
+            zip.putNextEntry(entry);
+            zip.write(payload);
+            zip.closeEntry();
+        } catch (IOException | RuntimeException ex) {
+            // the archive now holds a partial entry and cannot be completed
+            failed = true;
+            throw ex;
+        }
+        manifest.append(name).append('\t')
+                .append(document.getFormatKey()).append('\t')
+                .append(document.getTitle().replace('\t', ' ').replace('\n', ' ')).append('\t')
+                .append(size).append('\t')
+                .append(Long.toHexString(crc)).append('\n');
+    }
+
+    /** @return number of documents added so far */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Writes the manifest and central directory and closes the archive.
+     * @throws IOException if writing fails, or if an earlier entry could not
+     *         be written and the archive is incomplete
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (failed) {
+            zip.close();
+            throw new IOException("Bundle is incomplete after a failed write: " + file);
+        }
+        try (zip) {
+            zip.putNextEntry(new ZipEntry(MANIFEST_NAME));
+            zip.write(manifest.toString().getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+    }
+
+    private static boolean isPrecompressed(String formatKey) {
+        return PdfDocument.FORMAT_KEY.equals(formatKey) || WordDocument.FORMAT_KEY.equals(formatKey);
+    }
+}
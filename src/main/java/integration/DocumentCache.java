@@ -0,0 +1,467 @@
+package integration;
+
+import editor.core.Document;
+import metrics.MetricsRegistry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Two-tier cache of saved document bytes in front of
+ * {@link Document#writeTo(OutputStream)}.
+ * <p>
+ * Entries are keyed by the SHA-256 hash of format, title and content, so a
+ * document is only rendered again when one of them changes. The heap tier is
+ * bounded in bytes and evicts its least recently used entry, but only admits a
+ * new entry over a victim that has been requested less often (TinyLFU): a scan
+ * of one-off documents cannot flush the documents that are asked for again and
+ * again. Entries leaving or refused by the heap tier move to the disk tier, a
+ * least-recently-used set of files with its own byte budget. Disk hits are
+ * promoted back to the heap tier.
+ * <p>
+ * Concurrent misses for the same document may render it more than once. The
+ * cache lock only guards the bookkeeping: rendering and the disk tier's file
+ * reads, writes and deletes run outside it. An entry on its way to disk is
+ * reserved in memory and served from there until its file is written. A
+ * failed render is never cached: the next request renders again.
+ * <p>
+ * Layout below the cache directory: {@code ab/cd/<hash>.<ext>}.
+ */
+public class DocumentCache {
+
+    public static final String HEAP_HIT = "heap_hit";
+    public static final String DISK_HIT = "disk_hit";
+    public static final String MISS = "miss";
+    public static final String HEAP_EVICTION = "heap_eviction";
+    public static final String DISK_EVICTION = "disk_eviction";
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final Path directory;
+    private final long heapBudget;
+    private final long diskBudget;
+    private final MetricsRegistry metrics;
+    private final FrequencySketch frequencies = new FrequencySketch(4096);
+    private final LinkedHashMap<String, HeapEntry> heap = new LinkedHashMap<>(256, 0.75f, true);
+    private final LinkedHashMap<String, DiskEntry> disk = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, HeapEntry> writing = new HashMap<>();
+    private final Set<Path> deleting = new HashSet<>();
+    private long heapBytes;
+    private long diskBytes;
+
+    private DocumentCache(Path directory, long heapBudget, long diskBudget, MetricsRegistry metrics) {
+        this.directory = directory;
+        this.heapBudget = heapBudget;
+        this.diskBudget = diskBudget;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Opens a cache recording into the global metrics registry.
+     * Files left in the directory by an earlier run are kept, oldest first in
+     * line for eviction.
+     * @param directory the disk tier directory, created if needed
+     * @param heapBudget maximum bytes held on the heap
+     * @param diskBudget maximum bytes held on disk
+     * @return the cache
+     * @throws IOException if the directory cannot be created or read
+     */
+    public static DocumentCache open(Path directory, long heapBudget, long diskBudget) throws IOException {
+        return open(directory, heapBudget, diskBudget, MetricsRegistry.global());
+    }
+
+    static DocumentCache open(Path directory, long heapBudget, long diskBudget, MetricsRegistry metrics)
+            throws IOException {
+        if (heapBudget < 0 || diskBudget < 0) {
+            throw new IllegalArgumentException("cache budgets must not be negative");
+        }
+        DocumentCache cache = new DocumentCache(Objects.requireNonNull(directory, "directory"),
+                heapBudget, diskBudget, Objects.requireNonNull(metrics, "metrics"));
+        Files.createDirectories(directory);
+        cache.loadDiskTier();
+        return cache;
+    }
+
+    /**
+     * Gets the saved bytes of a document, rendering it only on a miss.
+     * @param document the document
+     * @return a copy of the saved bytes
+     * @throws UncheckedIOException if the document cannot be rendered
+     */
+    public byte[] save(Document document) {
+        try {
+            return cached(document).clone();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Writes the saved bytes of a document, rendering it only on a miss.
+     * The stream is flushed but not closed.
+     * @param document the document
+     * @param out the stream to write to
+     * @throws IOException if the document cannot be rendered or writing to
+     *         the stream fails
+     */
+    public void writeTo(Document document, OutputStream out) throws IOException {
+        out.write(cached(document));
+        out.flush();
+    }
+
+    public synchronized long getHeapBytes() {
+        return heapBytes;
+    }
+
+    public synchronized long getDiskBytes() {
+        return diskBytes;
+    }
+
+    public synchronized int getHeapEntries() {
+        return heap.size();
+    }
+
+    public synchronized int getDiskEntries() {
+        return disk.size();
+    }
+
+    /**
+     * Cache key of a document: the hex SHA-256 of its format, title and content.
+     */
+    static String key(Document document) {
+        MessageDigest digest = DocumentStorage.newSha256();
+        digest.update(document.getFormatKey().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(document.getTitle().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(document.getContent().getBytes(StandardCharsets.UTF_8));
+        return HEX.formatHex(digest.digest());
+    }
+
+    private byte[] cached(Document document) throws IOException {
+        String key = key(document);
+        byte[] payload = lookup(key);
+        if (payload == null) {
+            metrics.recordCacheEvent(MISS);
+            // writeTo, unlike save(), reports a failed render instead of
+            // returning an error page that would then be cached
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            document.writeTo(buffer);
+            payload = buffer.toByteArray();
+            store(key, document.getFormatKey(), payload);
+        }
+        return payload;
+    }
+
+    private byte[] lookup(String key) {
+        DiskEntry entry;
+        synchronized (this) {
+            frequencies.increment(key);
+            HeapEntry cached = heap.get(key);
+            if (cached == null) {
+                cached = writing.get(key);
+            }
+            if (cached != null) {
+                metrics.recordCacheEvent(HEAP_HIT);
+                return cached.payload();
+            }
+            entry = disk.get(key);
+            if (entry == null) {
+                return null;
+            }
+        }
+        byte[] payload;
+        DiskWork work = new DiskWork();
+        try {
+            payload = Files.readAllBytes(entry.file());
+        } catch (IOException ex) {
+            // deleted or unreadable behind our back; treat it as a miss
+            synchronized (this) {
+                removeFromDisk(key, entry, work);
+            }
+            work.run();
+            return null;
+        }
+        synchronized (this) {
+            metrics.recordCacheEvent(DISK_HIT);
+            if (!heap.containsKey(key) && admitToHeap(key, entry.formatKey(), payload, work)) {
+                removeFromDisk(key, entry, work);
+            }
+        }
+        work.run();
+        return payload;
+    }
+
+    private void store(String key, String formatKey, byte[] payload) {
+        DiskWork work = new DiskWork();
+        synchronized (this) {
+            if (heap.containsKey(key) || disk.containsKey(key) || writing.containsKey(key)) {
+                return;
+            }
+            if (!admitToHeap(key, formatKey, payload, work)) {
+                storeOnDisk(key, formatKey, payload, work);
+            }
+        }
+        work.run();
+    }
+
+    /**
+     * Puts a payload on the heap, demoting least recently used entries to
+     * disk, unless it does not fit or is used less often than the entry it
+     * would displace.
+     */
+    private boolean admitToHeap(String key, String formatKey, byte[] payload, DiskWork work) {
+        if (payload.length > heapBudget) {
+            return false;
+        }
+        int frequency = frequencies.frequency(key);
+        Iterator<Map.Entry<String, HeapEntry>> eldest = heap.entrySet().iterator();
+        List<Map.Entry<String, HeapEntry>> victims = new ArrayList<>();
+        long freed = 0;
+        while (heapBytes - freed + payload.length > heapBudget) {
+            Map.Entry<String, HeapEntry> victim = eldest.next();
+            if (frequencies.frequency(victim.getKey()) >= frequency) {
+                return false;
+            }
+            victims.add(victim);
+            freed += victim.getValue().payload().length;
+        }
+        for (Map.Entry<String, HeapEntry> victim : victims) {
+            String victimKey = victim.getKey();
+            HeapEntry demoted = victim.getValue();
+            heap.remove(victimKey);
+            heapBytes -= demoted.payload().length;
+            metrics.recordCacheEvent(HEAP_EVICTION);
+            storeOnDisk(victimKey, demoted.formatKey(), demoted.payload(), work);
+        }
+        heap.put(key, new HeapEntry(formatKey, payload));
+        heapBytes += payload.length;
+        return true;
+    }
+
+    /**
+     * Reserves a payload for the disk tier; the file is written by the work
+     * once the lock is released and only then published. A file still
+     * waiting to be deleted is not written again, so the late delete cannot
+     * remove the new copy.
+     */
+    private void storeOnDisk(String key, String formatKey, byte[] payload, DiskWork work) {
+        if (payload.length > diskBudget || disk.containsKey(key) || writing.containsKey(key)
+                || deleting.contains(DocumentStorage.contentPath(directory, key, formatKey))) {
+            return;
+        }
+        HeapEntry reserved = new HeapEntry(formatKey, payload);
+        writing.put(key, reserved);
+        work.writes.add(Map.entry(key, reserved));
+    }
+
+    private synchronized void publishOnDisk(String key, HeapEntry written, Path file, DiskWork work) {
+        if (!writing.remove(key, written)) {
+            return;
+        }
+        disk.put(key, new DiskEntry(written.formatKey(), file, written.payload().length));
+        diskBytes += written.payload().length;
+        trimDiskTier(work);
+    }
+
+    private synchronized void abandonWrite(String key, HeapEntry reserved) {
+        writing.remove(key, reserved);
+    }
+
+    private synchronized void deleted(Path file) {
+        deleting.remove(file);
+    }
+
+    private void trimDiskTier(DiskWork work) {
+        Iterator<Map.Entry<String, DiskEntry>> eldest = disk.entrySet().iterator();
+        while (diskBytes > diskBudget) {
+            Map.Entry<String, DiskEntry> victim = eldest.next();
+            eldest.remove();
+            diskBytes -= victim.getValue().size();
+            work.delete(victim.getValue().file());
+            metrics.recordCacheEvent(DISK_EVICTION);
+        }
+    }
+
+    private void removeFromDisk(String key, DiskEntry entry, DiskWork work) {
+        if (disk.remove(key, entry)) {
+            diskBytes -= entry.size();
+            work.delete(entry.file());
+        }
+    }
+
+    private void loadDiskTier() throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            files = walk.filter(Files::isRegularFile).toList();
+        }
+        List<Path> cached = new ArrayList<>();
+        for (Path file : files) {
+            if (file.getFileName().toString().endsWith(".tmp")) {
+                deleteQuietly(file);
+            } else {
+                cached.add(file);
+            }
+        }
+        cached.sort(Comparator.comparing(DocumentCache::lastModified));
+        for (Path file : cached) {
+            String name = file.getFileName().toString();
+            int dot = name.indexOf('.');
+            if (dot < 0) {
+                continue;
+            }
+            long size = Files.size(file);
+            disk.put(name.substring(0, dot), new DiskEntry(formatFor(name.substring(dot + 1)), file, size));
+            diskBytes += size;
+        }
+        DiskWork work = new DiskWork();
+        trimDiskTier(work);
+        work.run();
+    }
+
+    /** Inverse of {@link DocumentStorage#extensionFor(String)} for the built-in formats. */
+    private static String formatFor(String extension) {
+        return extension.equals("docx") ? "word" : extension;
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class).lastModifiedTime().toMillis();
+        } catch (NoSuchFileException ex) {
+            return Long.MIN_VALUE;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            // left for the next start-up scan
+        }
+    }
+
+    private record HeapEntry(String formatKey, byte[] payload) {
+    }
+
+    private record DiskEntry(String formatKey, Path file, long size) {
+    }
+
+    /**
+     * File writes and deletes decided under the cache lock, run by the
+     * thread that decided them after releasing it.
+     */
+    private final class DiskWork {
+
+        private final List<Map.Entry<String, HeapEntry>> writes = new ArrayList<>();
+        private final List<Path> deletes = new ArrayList<>();
+
+        void run() {
+            // publishing a write may trim the disk tier and add deletes
+            for (Map.Entry<String, HeapEntry> write : writes) {
+                String key = write.getKey();
+                HeapEntry reserved = write.getValue();
+                Path file = DocumentStorage.contentPath(directory, key, reserved.formatKey());
+                try {
+                    DocumentStorage.writeAtomically(file, out -> out.write(reserved.payload()));
+                } catch (IOException ex) {
+                    // the disk tier is best effort; the heap and the renderer still work
+                    abandonWrite(key, reserved);
+                    continue;
+                }
+                publishOnDisk(key, reserved, file, this);
+            }
+            for (Path file : deletes) {
+                deleteQuietly(file);
+                deleted(file);
+            }
+        }
+
+        /** Schedules a delete; called under the cache lock. */
+        void delete(Path file) {
+            deleting.add(file);
+            deletes.add(file);
+        }
+    }
+
+    /**
+     * Approximate request counts per key: a count-min sketch of four rows of
+     * 4-bit counters. All counters are halved once the sketch has seen ten
+     * times its width in increments, so old popularity fades.
+     */
+    static final class FrequencySketch {
+
+        private static final int MAX_COUNT = 15;
+        private static final long[] SEEDS = {
+                0x9e3779b97f4a7c15L, 0xc2b2ae3d27d4eb4fL, 0x165667b19e3779f9L, 0xd6e8feb86659fd93L};
+
+        private final byte[][] rows;
+        private final int mask;
+        private final int resetAfter;
+        private int increments;
+
+        FrequencySketch(int width) {
+            int size = Integer.highestOneBit((Math.max(16, width) - 1) << 1);
+            this.rows = new byte[SEEDS.length][size];
+            this.mask = size - 1;
+            this.resetAfter = size * 10;
+        }
+
+        void increment(Object key) {
+            int hash = key.hashCode();
+            for (int row = 0; row < rows.length; row++) {
+                int index = index(hash, row);
+                if (rows[row][index] < MAX_COUNT) {
+                    rows[row][index]++;
+                }
+            }
+            if (++increments >= resetAfter) {
+                halve();
+            }
+        }
+
+        int frequency(Object key) {
+            int hash = key.hashCode();
+            int min = MAX_COUNT;
+            for (int row = 0; row < rows.length; row++) {
+                min = Math.min(min, rows[row][index(hash, row)]);
+            }
+            return min;
+        }
+
+        private int index(int hash, int row) {
+            long mixed = (hash + SEEDS[row]) * SEEDS[(row + 1) % SEEDS.length];
+            return (int) (mixed >>> 32) & mask;
+        }
+
+        private void halve() {
+            for (byte[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>= 1;
+                }
+            }
+            increments /= 2;
+        }
+    }
+}
@@ -1,33 +1,285 @@
 package integration;
 
+import editor.core.Document;
+import metrics.DocumentStoreEvent;
+
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 final class DocumentStorage {
 
+    private static final HexFormat HEX = HexFormat.of();
+
+    /** Shard directories known to exist, so each is created once per process. */
+    private static final Set<Path> KNOWN_DIRECTORIES = ConcurrentHashMap.newKeySet();
+
     private DocumentStorage() {
         // utility class
     }
 
+    /**
+     * Legacy title-based layout: the payload becomes {@code outputDir/<title>.<ext>},
+     * so documents with the same title replace each other. Orders are stored
+     * with {@link #saveSharded(Path, UUID, Document)}.
+     */
     static Path save(Path outputDir, String formatKey, String title, byte[] payload) throws IOException {
-        Files.createDirectories(outputDir);
+        DocumentStoreEvent event = new DocumentStoreEvent();
+        event.begin();
+        Path outputFile = writeAtomically(resolveOutputFile(outputDir, formatKey, title), out -> out.write(payload));
+        return commit(event, formatKey, null, outputFile);
+    }
+
+    /**
+     * Legacy title-based layout for documents without an order; streams the
+     * document into {@code outputDir/<title>.<ext>} without materializing the
+     * encoded bytes first. A failed render leaves any previous file in place.
+     */
+    static Path save(Path outputDir, Document document) throws IOException {
+        DocumentStoreEvent event = new DocumentStoreEvent();
+        event.begin();
+        Path outputFile = writeAtomically(resolveOutputFile(outputDir, document.getFormatKey(), document.getTitle()),
+                document::writeTo);
+        return commit(event, document.getFormatKey(), null, outputFile);
+    }
+
+    /**
+     * Stores an order's document in the sharded layout, replacing any previous
+     * version atomically. See {@link #shardedPath(Path, UUID, String)}.
+     */
+    static Path saveSharded(Path root, UUID orderId, Document document) throws IOException {
+        DocumentStoreEvent event = new DocumentStoreEvent();
+        event.begin();
+        Path file = writeAtomically(shardedPath(root, orderId, document.getFormatKey()),
+                out -> document.writeTo(out, orderId));
+        return commit(event, document.getFormatKey(), orderId, file);
+    }
+
+    /**
+     * Ends a store event and, while a flight recording is running, commits it.
+     * The file size is only read when the event is recorded.
+     */
+    static Path commit(DocumentStoreEvent event, String formatKey, UUID orderId, Path file)
+            throws IOException {
+        event.end();
+        if (event.shouldCommit()) {
+            event.setFormatKey(formatKey);
+            event.setOrderId(orderId == null ? null : orderId.toString());
+            event.setPath(file.toString());
+            event.setOutputBytes(Files.size(file));
+            event.commit();
+        }
+        return file;
+    }
+
+    /**
+     * Stores a payload under its SHA-256 hash. Identical payloads map to the
+     * same file, which is only written once.
+     */
+    static Path saveByContentHash(Path root, String formatKey, byte[] payload) throws IOException {
+        Path target = contentPath(root, sha256Hex(payload), formatKey);
+        if (Files.exists(target)) {
+            return target;
+        }
+        return writeAtomically(target, out -> out.write(payload));
+    }
+
+    static Optional<Path> findSharded(Path root, UUID orderId, String formatKey) {
+        Path path = shardedPath(root, orderId, formatKey);
+        return Files.exists(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    /**
+     * Location of an order's document: {@code root/ab/cd/<order id>.<ext>}.
+     * The two shard levels come from a hash of the id, so they stay evenly
+     * filled even for time-ordered ids, and 65536 leaf directories keep each
+     * one small at millions of documents. The path is computed, never searched.
+     */
+    static Path shardedPath(Path root, UUID orderId, String formatKey) {
+        long hash = mix(orderId.getMostSignificantBits() ^ orderId.getLeastSignificantBits());
+        return root.resolve(HEX.toHexDigits((byte) (hash >>> 8)))
+                .resolve(HEX.toHexDigits((byte) hash))
+                .resolve(orderId + "." + extensionFor(formatKey));
+    }
+
+    /**
+     * Location of a payload by content: {@code root/ab/cd/<hash>.<ext>},
+     * sharded by the leading hash digits.
+     */
+    static Path contentPath(Path root, String hashHex, String formatKey) {
+        return root.resolve(hashHex.substring(0, 2))
+                .resolve(hashHex.substring(2, 4))
+                .resolve(hashHex + "." + extensionFor(formatKey));
+    }
+
+    static String sha256Hex(byte[] payload) {
+        return HEX.formatHex(newSha256().digest(payload));
+    }
+
+    static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Writes to a temporary file next to the target and renames it into place,
+     * so readers see either the old file or the complete new one. The file
+     * gets the default permissions of a newly created file, as if written
+     * directly.
+     */
+    static Path writeAtomically(Path target, ContentWriter writer) throws IOException {
+        Path temp = target.resolveSibling("." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        OutputStream file = newTempFile(temp);
+        try {
+            try (OutputStream out = new BufferedOutputStream(file)) {
+                writer.writeTo(out);
+            }
+            moveAtomically(temp, target);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(temp);
+            throw ex;
+        }
+        return target;
+    }
 
-        String extension = switch (formatKey) {
+    /**
+     * Renames a file over the target, atomically where the file system allows.
+     */
+    static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Creates a temporary file with a random name. Unlike
+     * {@link Files#createTempFile}, which restricts the file to its owner,
+     * this leaves the permissions to the umask.
+     */
+    private static OutputStream newTempFile(Path temp) throws IOException {
+        Path dir = temp.getParent();
+        if (!KNOWN_DIRECTORIES.contains(dir)) {
+            Files.createDirectories(dir);
+            KNOWN_DIRECTORIES.add(dir);
+        }
+        try {
+            return Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (NoSuchFileException ex) {
+            // removed behind our back; forget it and create it again
+            KNOWN_DIRECTORIES.remove(dir);
+            Files.createDirectories(dir);
+            KNOWN_DIRECTORIES.add(dir);
+            return Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+
+    /**
+     * Maps a stored document read-only. The mapping stays valid after this
+     * method returns and is never copied onto the heap; the page cache backs it.
+     */
+    static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Maps part of a stored document read-only.
+     * A range reaching past the end of the file is cut off at the end.
+     * @throws IllegalArgumentException if the range does not start inside the file
+     */
+    static MappedByteBuffer map(Path file, long offset, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            return channel.map(FileChannel.MapMode.READ_ONLY, offset, clampRange(offset, length, size));
+        }
+    }
+
+    /**
+     * Sends a stored document to a channel with {@link FileChannel#transferTo},
+     * which lets the kernel copy file pages straight to e.g. a socket.
+     * @return the number of bytes transferred
+     */
+    static long transferTo(Path file, WritableByteChannel target) throws IOException {
+        return transferTo(file, 0, Long.MAX_VALUE, target);
+    }
+
+    /**
+     * Sends part of a stored document to a channel.
+     * A range reaching past the end of the file is cut off at the end.
+     * @return the number of bytes transferred
+     * @throws IllegalArgumentException if the range does not start inside the file
+     */
+    static long transferTo(Path file, long offset, long length, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long count = clampRange(offset, length, channel.size());
+            long transferred = 0;
+            while (transferred < count) {
+                long n = channel.transferTo(offset + transferred, count - transferred, target);
+                if (n <= 0) {
+                    // file shrank underneath us
+                    break;
+                }
+                transferred += n;
+            }
+            return transferred;
+        }
+    }
+
+    private static long clampRange(long offset, long length, long size) {
+        if (offset < 0 || length < 0 || (offset >= size && !(offset == 0 && size == 0))) {
+            throw new IllegalArgumentException(
+                    "Range " + offset + "+" + length + " outside of document of " + size + " bytes");
+        }
+        return Math.min(length, size - offset);
+    }
+
+    static String extensionFor(String formatKey) {
+        return switch (formatKey) {
             case "pdf" -> "pdf";
             case "html" -> "html";
             case "word" -> "docx";
             default -> "bin";
         };
+    }
 
+    static Path resolveOutputFile(Path outputDir, String formatKey, String title) {
         String baseName = sanitizeFileName(title);
         if (baseName.isBlank()) {
             baseName = "document";
         }
-
-        Path outputFile = outputDir.resolve(baseName + "." + extension);
-        return Files.write(outputFile, payload, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        return outputDir.resolve(baseName + "." + extensionFor(formatKey));
     }
 
     static String sanitizeFileName(String input) {
@@ -41,4 +293,9 @@ final class DocumentStorage {
         normalized = normalized.replace(' ', '_');
         return normalized;
     }
+
+    @FunctionalInterface
+    interface ContentWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
 }
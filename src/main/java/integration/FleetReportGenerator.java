@@ -0,0 +1,157 @@
+package integration;
+
+import car.domain.Car;
+import editor.core.Document;
+import integration.order.FleetSnapshot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Format-agnostic fleet summary report generator.
+ * Works on a {@link FleetSnapshot} of aggregated counters, so the report size and
+ * generation time depend on the number of options, not the number of orders.
+ * Breakdowns are written as table blocks (see {@link Document#TABLE_CELL_SEPARATOR}).
+ */
+public class FleetReportGenerator {
+
+    public static final int DEFAULT_TOP_CONFIGURATIONS = 10;
+
+    private static final char SEP = Document.TABLE_CELL_SEPARATOR;
+
+    public String generateReport(FleetSnapshot snapshot) {
+        StringBuilder sb = new StringBuilder(2048);
+        try {
+            writeReport(snapshot, sb);
+        } catch (IOException ex) {
+            // StringBuilder never throws
+            throw new UncheckedIOException(ex);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes the fleet summary into the given sink.
+     *
+     * @param snapshot the fleet counts to report
+     * @param out the sink receiving the report text
+     * @throws IOException if the sink fails
+     */
+    public void writeReport(FleetSnapshot snapshot, Appendable out) throws IOException {
+        long total = snapshot.total();
+        out.append("FLEET SUMMARY REPORT\n");
+        out.append("====================\n\n");
+        out.append("Active orders: ").append(Long.toString(total)).append("\n\n");
+
+        writeBreakdown("ORDERS BY MODEL", "Model", snapshot.byModel(), total, out);
+        writeBreakdown("ORDERS BY COLOR", "Color", snapshot.byColor(), total, out);
+        writeBreakdown("ORDERS BY ENGINE", "Engine", snapshot.byEngine(), total, out);
+        writeBreakdown("ORDERS BY TRANSMISSION", "Transmission", snapshot.byTransmission(), total, out);
+
+        writeHeading("ORDERS BY FEATURE", out);
+        out.append("Feature").append(SEP).append("Category").append(SEP)
+                .append("Orders").append(SEP).append("Share\n");
+        writeFeatureRows("Interior", snapshot.byInteriorFeature(), total, out);
+        writeFeatureRows("Exterior", snapshot.byExteriorFeature(), total, out);
+        writeFeatureRows("Safety", snapshot.bySafetyFeature(), total, out);
+        out.append("\n");
+
+        if (!snapshot.topConfigurations().isEmpty()) {
+            writeHeading("TOP CONFIGURATIONS", out);
+            out.append("Rank").append(SEP).append("Model").append(SEP).append("Engine").append(SEP)
+                    .append("Transmission").append(SEP).append("Color").append(SEP)
+                    .append("Features").append(SEP).append("Orders\n");
+            int rank = 1;
+            for (FleetSnapshot.ConfigurationCount entry : snapshot.topConfigurations()) {
+                Car car = entry.configuration();
+                out.append(Integer.toString(rank++)).append(SEP)
+                        .append(car.getModel().getDisplayName()).append(SEP)
+                        .append(car.getEngine().getDisplayName()).append(SEP)
+                        .append(car.getTransmission().getDisplayName()).append(SEP)
+                        .append(car.getColor().getDisplayName()).append(SEP);
+                writeFeatures(car, out);
+                out.append(SEP).append(Long.toString(entry.count())).append("\n");
+            }
+            out.append("\n");
+        }
+
+        out.append("====================\n");
+        out.append("Generated by Car Management System\n");
+    }
+
+    /**
+     * Writes the fleet summary directly into the content sink of a document.
+     *
+     * @param snapshot the fleet counts to report
+     * @param document the document whose content is replaced by the report
+     * @throws IOException if the document sink fails
+     */
+    public void writeReport(FleetSnapshot snapshot, Document document) throws IOException {
+        try (Writer sink = document.openContentWriter()) {
+            writeReport(snapshot, sink);
+        }
+    }
+
+    public String generateTitle() {
+        return "Fleet Summary Report";
+    }
+
+    private static void writeHeading(String heading, Appendable out) throws IOException {
+        out.append(heading).append("\n");
+        for (int i = 0; i < heading.length(); i++) {
+            out.append('-');
+        }
+        out.append("\n");
+    }
+
+    private static void writeBreakdown(String heading, String label, Map<? extends Enum<?>, Long> counts,
+                                       long total, Appendable out) throws IOException {
+        writeHeading(heading, out);
+        out.append(label).append(SEP).append("Orders").append(SEP).append("Share\n");
+        for (Map.Entry<? extends Enum<?>, Long> entry : counts.entrySet()) {
+            out.append(entry.getKey().toString()).append(SEP);
+            writeCount(entry.getValue(), total, out);
+        }
+        out.append("\n");
+    }
+
+    private static void writeFeatureRows(String category, Map<? extends Enum<?>, Long> counts,
+                                         long total, Appendable out) throws IOException {
+        for (Map.Entry<? extends Enum<?>, Long> entry : counts.entrySet()) {
+            out.append(entry.getKey().toString()).append(SEP).append(category).append(SEP);
+            writeCount(entry.getValue(), total, out);
+        }
+    }
+
+    private static void writeCount(long count, long total, Appendable out) throws IOException {
+        out.append(Long.toString(count)).append(SEP);
+        // share in tenths of a percent, rounded half up, without locale-dependent formatting
+        long permille = total == 0 ? 0 : (count * 1000 + total / 2) / total;
+        out.append(Long.toString(permille / 10)).append('.').append(Long.toString(permille % 10)).append("%\n");
+    }
+
+    private static void writeFeatures(Car car, Appendable out) throws IOException {
+        boolean first = true;
+        first = writeFeatureNames(car.getInteriorFeatures(), first, out);
+        first = writeFeatureNames(car.getExteriorFeatures(), first, out);
+        first = writeFeatureNames(car.getSafetyFeatures(), first, out);
+        if (first) {
+            out.append('-');
+        }
+    }
+
+    private static boolean writeFeatureNames(Set<? extends Enum<?>> features, boolean first, Appendable out)
+            throws IOException {
+        for (Iterator<? extends Enum<?>> it = features.iterator(); it.hasNext(); first = false) {
+            if (!first) {
+                out.append(", ");
+            }
+            out.append(it.next().toString());
+        }
+        return first;
+    }
+}
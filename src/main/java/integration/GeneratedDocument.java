@@ -0,0 +1,18 @@
+package integration;
+
+import editor.core.Document;
+import integration.order.Order;
+
+import java.nio.file.Path;
+
+/**
+ * Result of generating the confirmation document for an order.
+ *
+ * @param order the order the document was generated for
+ * @param document the generated document
+ * @param content the encoded bytes, or null if the document was written to storage
+ * @param path the stored file, or null if no output directory was configured
+ * @param size the encoded size in bytes
+ */
+public record GeneratedDocument(Order order, Document document, byte[] content, Path path, long size) {
+}
@@ -0,0 +1,375 @@
+package integration;
+
+import car.builder.CarBuilder;
+import car.domain.Car;
+import car.domain.CarModel;
+import car.domain.Color;
+import car.domain.EngineType;
+import car.domain.ExteriorFeature;
+import car.domain.InteriorFeature;
+import car.domain.SafetyFeature;
+import car.domain.TransmissionType;
+import editor.core.Document;
+import editor.core.UnknownDocumentFormatException;
+import editor.factory.DocumentFactory;
+import integration.order.Order;
+import integration.order.OrderService;
+import metrics.Histogram;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Drives the order and document path with synthetic cars to measure
+ * throughput and latency under load.
+ * <p>
+ * Every operation builds a car through {@link CarBuilder}, places its order,
+ * renders the report into a document and encodes it (without touching the
+ * disk). The order is removed from the repository again afterwards, so memory
+ * stays flat however long the run. Formats are used round-robin. Configurations are drawn from the whole
+ * valid configuration space, either uniformly or Zipf-skewed so a few
+ * configurations dominate, as in real order streams.
+ * <p>
+ * With a target rate, operations are scheduled at fixed intervals shared by all
+ * workers and latency is measured from the <em>intended</em> start time. A
+ * stall therefore shows up in the latency of every operation it delayed, which
+ * corrects for coordinated omission. In closed loop each worker starts its next
+ * operation as soon as the previous one finishes and the latency is the
+ * service time.
+ */
+public class LoadGenerator {
+
+    private static final double ZIPF_EXPONENT = 1.0;
+    /** 128 buckets per power of two: reported latencies are within 1%. */
+    private static final int LATENCY_SUB_BUCKET_BITS = 7;
+
+    /**
+     * How configurations are drawn from the valid configuration space.
+     */
+    public enum Distribution {
+        UNIFORM,
+        SKEWED
+    }
+
+    /**
+     * Load settings.
+     *
+     * @param workers number of concurrent workers
+     * @param targetRate operations per second across all workers, or 0 for closed loop
+     * @param duration how long to generate load
+     * @param distribution how configurations are drawn
+     * @param formats document formats, used round-robin
+     * @param seed seed of the configuration draws, for repeatable runs
+     */
+    public record Settings(int workers, double targetRate, Duration duration, Distribution distribution,
+                           List<String> formats, long seed) {
+
+        public Settings {
+            if (workers < 1) {
+                throw new IllegalArgumentException("workers must be at least 1");
+            }
+            if (targetRate < 0 || Double.isNaN(targetRate)) {
+                throw new IllegalArgumentException("targetRate must not be negative");
+            }
+            if (duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException("duration must be positive");
+            }
+            Objects.requireNonNull(distribution, "distribution");
+            if (formats.isEmpty()) {
+                throw new IllegalArgumentException("at least one format is required");
+            }
+            formats = List.copyOf(formats);
+        }
+
+        public boolean closedLoop() {
+            return targetRate == 0;
+        }
+    }
+
+    /**
+     * Latency and throughput of one format.
+     *
+     * @param formatKey the document format
+     * @param operations completed operations
+     * @param errors failed operations
+     * @param throughput completed operations per second
+     * @param p50 median latency
+     * @param p99 99th percentile latency
+     * @param p999 99.9th percentile latency
+     * @param max maximum latency
+     */
+    public record FormatResult(String formatKey, long operations, long errors, double throughput,
+                               Duration p50, Duration p99, Duration p999, Duration max) {
+    }
+
+    /**
+     * Result of a load run.
+     *
+     * @param settings the settings of the run
+     * @param elapsed wall-clock duration of the run
+     * @param operations completed operations
+     * @param errors failed operations
+     * @param formats results per format, in settings order
+     */
+    public record Report(Settings settings, Duration elapsed, long operations, long errors,
+                         List<FormatResult> formats) {
+
+        /** @return completed operations per second */
+        public double throughput() {
+            return operations * 1_000_000_000.0 / Math.max(1, elapsed.toNanos());
+        }
+
+        /** @return a table of the results, one line per format */
+        public String format() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(settings.closedLoop()
+                    ? String.format(Locale.ROOT, "Closed loop, %d workers, %s configurations%n",
+                            settings.workers(), settings.distribution().name().toLowerCase(Locale.ROOT))
+                    : String.format(Locale.ROOT, "Target rate %,.0f ops/s, %d workers, %s configurations"
+                                    + " (latency from intended start)%n", settings.targetRate(),
+                            settings.workers(), settings.distribution().name().toLowerCase(Locale.ROOT)));
+            sb.append(String.format(Locale.ROOT, "%-8s %10s %8s %10s %10s %10s %10s %10s%n",
+                    "format", "ops", "errors", "ops/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+            for (FormatResult result : formats) {
+                sb.append(String.format(Locale.ROOT, "%-8s %,10d %,8d %,10.0f %10.3f %10.3f %10.3f %10.3f%n",
+                        result.formatKey(), result.operations(), result.errors(), result.throughput(),
+                        millis(result.p50()),
+                        millis(result.p99()), millis(result.p999()), millis(result.max())));
+            }
+            sb.append(String.format(Locale.ROOT, "Total: %,d ops in %.2f s (%,.0f ops/s), %,d errors",
+                    operations, elapsed.toNanos() / 1e9, throughput(), errors));
+            return sb.toString();
+        }
+
+        private static double millis(Duration duration) {
+            return duration.toNanos() / 1e6;
+        }
+    }
+
+    private final OrderService orderService;
+    private final DocumentFactory documentFactory;
+    private final CarReportGenerator reportGenerator = new CarReportGenerator();
+    private final Settings settings;
+    private final Car[] configurations;
+    private final double[] skewedCdf;
+
+    /**
+     * Creates a load generator.
+     * @param orderService receives the synthetic orders, each removed again once encoded
+     * @param documentFactory creates the documents
+     * @param settings the load settings
+     * @throws UnknownDocumentFormatException if a format is not registered
+     */
+    public LoadGenerator(OrderService orderService, DocumentFactory documentFactory, Settings settings) {
+        this.orderService = Objects.requireNonNull(orderService, "orderService");
+        this.documentFactory = Objects.requireNonNull(documentFactory, "documentFactory");
+        this.settings = Objects.requireNonNull(settings, "settings");
+        for (String formatKey : settings.formats()) {
+            if (!documentFactory.supportsFormat(formatKey)) {
+                throw new UnknownDocumentFormatException(formatKey, documentFactory.getSupportedFormats());
+            }
+        }
+        this.configurations = validConfigurations();
+        // a fixed shuffle decides which configurations are the popular ones
+        shuffle(configurations, new SplittableRandom(settings.seed()));
+        this.skewedCdf = settings.distribution() == Distribution.SKEWED ? zipfCdf(configurations.length) : null;
+    }
+
+    /** @return number of valid configurations the cars are drawn from */
+    public int configurationCount() {
+        return configurations.length;
+    }
+
+    /**
+     * Generates load for the configured duration and waits for in-flight
+     * operations to finish.
+     * @return the measured results
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public Report run() throws InterruptedException {
+        List<String> formats = settings.formats();
+        Histogram[] latencies = new Histogram[formats.size()];
+        LongAdder[] errors = new LongAdder[formats.size()];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new Histogram(LATENCY_SUB_BUCKET_BITS);
+            errors[i] = new LongAdder();
+        }
+        AtomicLong sequence = new AtomicLong();
+        long durationNanos = settings.duration().toNanos();
+        long intervalNanos = settings.closedLoop() ? 0 : Math.max(1, Math.round(1e9 / settings.targetRate()));
+
+        CountDownLatch done = new CountDownLatch(settings.workers());
+        long started = System.nanoTime();
+        for (int w = 0; w < settings.workers(); w++) {
+            SplittableRandom random = new SplittableRandom(settings.seed() * 31 + w);
+            Thread worker = new Thread(() -> {
+                try {
+                    work(random, sequence, started, durationNanos, intervalNanos, latencies, errors);
+                } finally {
+                    done.countDown();
+                }
+            }, "load-worker-" + (w + 1));
+            worker.setDaemon(true);
+            worker.start();
+        }
+        done.await();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+        List<FormatResult> results = new ArrayList<>(formats.size());
+        long operations = 0;
+        long failed = 0;
+        double seconds = Math.max(1, elapsed.toNanos()) / 1e9;
+        for (int i = 0; i < latencies.length; i++) {
+            Histogram histogram = latencies[i];
+            operations += histogram.getCount();
+            failed += errors[i].sum();
+            results.add(new FormatResult(formats.get(i), histogram.getCount(), errors[i].sum(),
+                    histogram.getCount() / seconds,
+                    Duration.ofNanos(histogram.getPercentile(50)), Duration.ofNanos(histogram.getPercentile(99)),
+                    Duration.ofNanos(histogram.getPercentile(99.9)), Duration.ofNanos(histogram.getMax())));
+        }
+        return new Report(settings, elapsed, operations, failed, List.copyOf(results));
+    }
+
+    private void work(SplittableRandom random, AtomicLong sequence, long started, long durationNanos,
+                      long intervalNanos, Histogram[] latencies, LongAdder[] errors) {
+        int formatCount = latencies.length;
+        while (true) {
+            long n = sequence.getAndIncrement();
+            long intendedStart;
+            if (intervalNanos > 0) {
+                long offset = n * intervalNanos;
+                if (offset >= durationNanos) {
+                    return;
+                }
+                intendedStart = started + offset;
+                long wait;
+                while ((wait = intendedStart - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            } else {
+                intendedStart = System.nanoTime();
+                if (intendedStart - started >= durationNanos) {
+                    return;
+                }
+            }
+            int format = (int) (n % formatCount);
+            try {
+                execute(next(random), settings.formats().get(format));
+                latencies[format].record(System.nanoTime() - intendedStart);
+            } catch (IOException | RuntimeException ex) {
+                errors[format].increment();
+            }
+        }
+    }
+
+    private void execute(Car prototype, String formatKey) throws IOException {
+        CarBuilder builder = new CarBuilder()
+                .withModel(prototype.getModel())
+                .withEngine(prototype.getEngine())
+                .withTransmission(prototype.getTransmission())
+                .setColor(prototype.getColor());
+        prototype.getInteriorFeatures().forEach(builder::addInteriorFeature);
+        prototype.getExteriorFeatures().forEach(builder::addExteriorFeature);
+        prototype.getSafetyFeatures().forEach(builder::addSafetyFeature);
+        Car car = builder.build();
+
+        Order order = orderService.placeOrder(car);
+        try {
+            Document document = documentFactory.createDocument(formatKey, reportGenerator.generateTitle(car));
+            reportGenerator.writeReport(car, order, document);
+            document.writeTo(OutputStream.nullOutputStream());
+        } finally {
+            // synthetic orders are not kept: a growing repository would turn
+            // into GC pauses that the run then reports as tail latency
+            orderService.getRepository().remove(order.getId());
+        }
+    }
+
+    private Car next(SplittableRandom random) {
+        if (skewedCdf == null) {
+            return configurations[random.nextInt(configurations.length)];
+        }
+        int index = Arrays.binarySearch(skewedCdf, random.nextDouble());
+        return configurations[Math.min(index < 0 ? -index - 1 : index, configurations.length - 1)];
+    }
+
+    /**
+     * Enumerates every configuration the models allow.
+     */
+    static Car[] validConfigurations() {
+        List<Car> cars = new ArrayList<>();
+        for (CarModel model : CarModel.values()) {
+            InteriorFeature[] interior = model.getAllowedInteriorFeatures().toArray(new InteriorFeature[0]);
+            ExteriorFeature[] exterior = model.getAllowedExteriorFeatures().toArray(new ExteriorFeature[0]);
+            SafetyFeature[] safety = model.getAllowedSafetyFeatures().toArray(new SafetyFeature[0]);
+            for (EngineType engine : model.getAllowedEngines()) {
+                for (TransmissionType transmission : model.getAllowedTransmissions()) {
+                    for (Color color : Color.values()) {
+                        for (int i = 0; i < 1 << interior.length; i++) {
+                            for (int e = 0; e < 1 << exterior.length; e++) {
+                                for (int s = 0; s < 1 << safety.length; s++) {
+                                    CarBuilder builder = new CarBuilder()
+                                            .withModel(model)
+                                            .withEngine(engine)
+                                            .withTransmission(transmission)
+                                            .setColor(color);
+                                    addSelected(interior, i, builder::addInteriorFeature);
+                                    addSelected(exterior, e, builder::addExteriorFeature);
+                                    addSelected(safety, s, builder::addSafetyFeature);
+                                    cars.add(builder.build());
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return cars.toArray(new Car[0]);
+    }
+
+    private static <E> void addSelected(E[] values, int mask, Consumer<E> add) {
+        for (int i = 0; i < values.length; i++) {
+            if ((mask & (1 << i)) != 0) {
+                add.accept(values[i]);
+            }
+        }
+    }
+
+    /**
+     * Cumulative distribution of a Zipf law over {@code n} ranks.
+     */
+    static double[] zipfCdf(int n) {
+        double[] cdf = new double[n];
+        double total = 0;
+        for (int rank = 0; rank < n; rank++) {
+            total += 1 / Math.pow(rank + 1, ZIPF_EXPONENT);
+            cdf[rank] = total;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cdf[rank] /= total;
+        }
+        return cdf;
+    }
+
+    private static void shuffle(Car[] cars, SplittableRandom random) {
+        for (int i = cars.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Car tmp = cars[i];
+            cars[i] = cars[j];
+            cars[j] = tmp;
+        }
+    }
+}
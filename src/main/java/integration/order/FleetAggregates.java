@@ -0,0 +1,201 @@
+package integration.order;
+
+import car.domain.Car;
+import car.domain.CarConfigurationCodec;
+import car.domain.CarModel;
+import car.domain.Color;
+import car.domain.EngineType;
+import car.domain.ExteriorFeature;
+import car.domain.InteriorFeature;
+import car.domain.SafetyFeature;
+import car.domain.TransmissionType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Running counts of active orders per model, color, engine, transmission and feature.
+ * <p>
+ * Counts are kept in stripes of primitive counters; a thread always updates the
+ * stripe picked by its id, so concurrent writers rarely meet. Exact counts per
+ * packed configuration code ({@link CarConfigurationCodec}) back the top-N query.
+ * A snapshot briefly holds every stripe, which makes it consistent and costs
+ * O(stripes x enum values), independent of the number of orders. A ranked
+ * snapshot also copies the configuration counts while holding the stripes,
+ * and ranks the copy after releasing them.
+ */
+public class FleetAggregates implements OrderListener {
+
+    private static final CarModel[] MODELS = CarModel.values();
+    private static final Color[] COLORS = Color.values();
+    private static final EngineType[] ENGINES = EngineType.values();
+    private static final TransmissionType[] TRANSMISSIONS = TransmissionType.values();
+    private static final InteriorFeature[] INTERIOR = InteriorFeature.values();
+    private static final ExteriorFeature[] EXTERIOR = ExteriorFeature.values();
+    private static final SafetyFeature[] SAFETY = SafetyFeature.values();
+
+    private static final int TOTAL = 0;
+    private static final int MODEL_OFFSET = 1;
+    private static final int COLOR_OFFSET = MODEL_OFFSET + MODELS.length;
+    private static final int ENGINE_OFFSET = COLOR_OFFSET + COLORS.length;
+    private static final int TRANSMISSION_OFFSET = ENGINE_OFFSET + ENGINES.length;
+    private static final int INTERIOR_OFFSET = TRANSMISSION_OFFSET + TRANSMISSIONS.length;
+    private static final int EXTERIOR_OFFSET = INTERIOR_OFFSET + INTERIOR.length;
+    private static final int SAFETY_OFFSET = EXTERIOR_OFFSET + EXTERIOR.length;
+    private static final int SLOTS = SAFETY_OFFSET + SAFETY.length;
+
+    private final long[][] stripes;
+    private final int stripeMask;
+    private final AtomicLongArray configurations = new AtomicLongArray(CarConfigurationCodec.CARDINALITY);
+
+    public FleetAggregates() {
+        int stripeCount = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        this.stripes = new long[Math.min(stripeCount, 64)][SLOTS];
+        this.stripeMask = stripes.length - 1;
+    }
+
+    /**
+     * Counts an order as active.
+     * @param order the order
+     */
+    public void add(Order order) {
+        update(order.getCar(), 1);
+    }
+
+    /**
+     * Stops counting an order, e.g. because it was cancelled.
+     * @param order the order
+     */
+    public void remove(Order order) {
+        update(order.getCar(), -1);
+    }
+
+    @Override
+    public void ordersPlaced(List<Order> orders) {
+        for (Order order : orders) {
+            add(order);
+        }
+    }
+
+    @Override
+    public void statusChanged(Order order, OrderStatus previous, OrderStatus current) {
+        if (current == OrderStatus.CANCELLED) {
+            remove(order);
+        }
+    }
+
+    /**
+     * Takes a consistent snapshot without configuration ranking.
+     * @return the current counts
+     */
+    public FleetSnapshot snapshot() {
+        return snapshot(0);
+    }
+
+    /**
+     * Takes a consistent snapshot including the most ordered configurations.
+     * Ranking scans every configuration code once, outside the stripe locks.
+     * @param topConfigurations how many configurations to rank
+     * @return the current counts
+     */
+    public FleetSnapshot snapshot(int topConfigurations) {
+        if (topConfigurations < 0) {
+            throw new IllegalArgumentException("topConfigurations must not be negative");
+        }
+        long[] totals = new long[SLOTS];
+        long[] codes = topConfigurations > 0 ? new long[configurations.length()] : null;
+        lockAll(0, () -> {
+            for (long[] stripe : stripes) {
+                for (int slot = 0; slot < SLOTS; slot++) {
+                    totals[slot] += stripe[slot];
+                }
+            }
+            if (codes != null) {
+                for (int code = 0; code < codes.length; code++) {
+                    codes[code] = configurations.get(code);
+                }
+            }
+        });
+        List<FleetSnapshot.ConfigurationCount> top = codes == null ? List.of() : rank(codes, topConfigurations);
+        return new FleetSnapshot(totals[TOTAL],
+                counts(totals, MODEL_OFFSET, MODELS, CarModel.class),
+                counts(totals, COLOR_OFFSET, COLORS, Color.class),
+                counts(totals, ENGINE_OFFSET, ENGINES, EngineType.class),
+                counts(totals, TRANSMISSION_OFFSET, TRANSMISSIONS, TransmissionType.class),
+                counts(totals, INTERIOR_OFFSET, INTERIOR, InteriorFeature.class),
+                counts(totals, EXTERIOR_OFFSET, EXTERIOR, ExteriorFeature.class),
+                counts(totals, SAFETY_OFFSET, SAFETY, SafetyFeature.class),
+                List.copyOf(top));
+    }
+
+    private void update(Car car, int delta) {
+        long[] stripe = stripes[(int) Thread.currentThread().getId() & stripeMask];
+        synchronized (stripe) {
+            stripe[TOTAL] += delta;
+            stripe[MODEL_OFFSET + car.getModel().ordinal()] += delta;
+            stripe[COLOR_OFFSET + car.getColor().ordinal()] += delta;
+            stripe[ENGINE_OFFSET + car.getEngine().ordinal()] += delta;
+            stripe[TRANSMISSION_OFFSET + car.getTransmission().ordinal()] += delta;
+            // probe the constants instead of iterating the sets, which would allocate iterators
+            for (InteriorFeature feature : INTERIOR) {
+                if (car.hasInteriorFeature(feature)) {
+                    stripe[INTERIOR_OFFSET + feature.ordinal()] += delta;
+                }
+            }
+            for (ExteriorFeature feature : EXTERIOR) {
+                if (car.hasExteriorFeature(feature)) {
+                    stripe[EXTERIOR_OFFSET + feature.ordinal()] += delta;
+                }
+            }
+            for (SafetyFeature feature : SAFETY) {
+                if (car.hasSafetyFeature(feature)) {
+                    stripe[SAFETY_OFFSET + feature.ordinal()] += delta;
+                }
+            }
+            configurations.addAndGet(CarConfigurationCodec.encode(car), delta);
+        }
+    }
+
+    private void lockAll(int index, Runnable action) {
+        if (index == stripes.length) {
+            action.run();
+            return;
+        }
+        synchronized (stripes[index]) {
+            lockAll(index + 1, action);
+        }
+    }
+
+    private static List<FleetSnapshot.ConfigurationCount> rank(long[] codes, int limit) {
+        PriorityQueue<long[]> best = new PriorityQueue<>(limit + 1, (a, b) -> Long.compare(a[1], b[1]));
+        for (int code = 0; code < codes.length; code++) {
+            long count = codes[code];
+            if (count > 0 && (best.size() < limit || count > best.peek()[1])) {
+                best.add(new long[] {code, count});
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+        List<FleetSnapshot.ConfigurationCount> ranked = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            long[] entry = best.poll();
+            ranked.add(new FleetSnapshot.ConfigurationCount(CarConfigurationCodec.decode((int) entry[0]), entry[1]));
+        }
+        Collections.reverse(ranked);
+        return ranked;
+    }
+
+    private static <E extends Enum<E>> Map<E, Long> counts(long[] totals, int offset, E[] values, Class<E> type) {
+        Map<E, Long> counts = new EnumMap<>(type);
+        for (E value : values) {
+            counts.put(value, totals[offset + value.ordinal()]);
+        }
+        return Collections.unmodifiableMap(counts);
+    }
+}
@@ -0,0 +1,48 @@
+package integration.order;
+
+import car.domain.Car;
+import car.domain.CarModel;
+import car.domain.Color;
+import car.domain.EngineType;
+import car.domain.ExteriorFeature;
+import car.domain.InteriorFeature;
+import car.domain.SafetyFeature;
+import car.domain.TransmissionType;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Point-in-time view of the active (not cancelled) orders in the fleet.
+ * All counts in one snapshot were taken at the same instant, so for example
+ * the model counts always add up to {@link #total()}.
+ *
+ * @param total number of active orders
+ * @param byModel active orders per car model
+ * @param byColor active orders per color
+ * @param byEngine active orders per engine type
+ * @param byTransmission active orders per transmission type
+ * @param byInteriorFeature active orders having each interior feature
+ * @param byExteriorFeature active orders having each exterior feature
+ * @param bySafetyFeature active orders having each safety feature
+ * @param topConfigurations most ordered configurations, most frequent first
+ */
+public record FleetSnapshot(long total,
+                            Map<CarModel, Long> byModel,
+                            Map<Color, Long> byColor,
+                            Map<EngineType, Long> byEngine,
+                            Map<TransmissionType, Long> byTransmission,
+                            Map<InteriorFeature, Long> byInteriorFeature,
+                            Map<ExteriorFeature, Long> byExteriorFeature,
+                            Map<SafetyFeature, Long> bySafetyFeature,
+                            List<ConfigurationCount> topConfigurations) {
+
+    /**
+     * Number of active orders for one exact configuration.
+     *
+     * @param configuration the configured car
+     * @param count active orders with that configuration
+     */
+    public record ConfigurationCount(Car configuration, long count) {
+    }
+}
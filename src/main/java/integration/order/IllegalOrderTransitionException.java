@@ -0,0 +1,32 @@
+package integration.order;
+
+import java.util.UUID;
+
+/**
+ * Exception thrown when an order status change violates the order lifecycle.
+ */
+public class IllegalOrderTransitionException extends RuntimeException {
+
+    private final UUID orderId;
+    private final OrderStatus from;
+    private final OrderStatus to;
+
+    public IllegalOrderTransitionException(UUID orderId, OrderStatus from, OrderStatus to) {
+        super("Order " + orderId + " cannot move from " + from + " to " + to);
+        this.orderId = orderId;
+        this.from = from;
+        this.to = to;
+    }
+
+    public UUID getOrderId() {
+        return orderId;
+    }
+
+    public OrderStatus getFrom() {
+        return from;
+    }
+
+    public OrderStatus getTo() {
+        return to;
+    }
+}
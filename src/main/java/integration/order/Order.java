@@ -5,12 +5,22 @@ import car.domain.Car;
 import java.time.Instant;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
+/**
+ * An order for a configured car.
+ * All fields are immutable except the status, which only changes through
+ * validated compare-and-set transitions.
+ */
 public class Order {
+
+    private static final AtomicReferenceFieldUpdater<Order, OrderStatus> STATUS =
+            AtomicReferenceFieldUpdater.newUpdater(Order.class, OrderStatus.class, "status");
+
     private final UUID id;
     private final Car car;
     private final Instant createdAt;
-    private final OrderStatus status;
+    private volatile OrderStatus status;
 
     public Order(UUID id, Car car, Instant createdAt, OrderStatus status) {
         this.id = Objects.requireNonNull(id, "id");
@@ -34,4 +44,44 @@ public class Order {
     public OrderStatus getStatus() {
         return status;
     }
+
+    /**
+     * Atomically moves the order from the expected to the target status.
+     * @param expected the status the caller believes the order is in
+     * @param target the new status
+     * @return true if the status was changed, false if it was not {@code expected}
+     * @throws IllegalOrderTransitionException if the lifecycle forbids the transition
+     */
+    boolean compareAndSetStatus(OrderStatus expected, OrderStatus target) {
+        if (!expected.canTransitionTo(target)) {
+            throw new IllegalOrderTransitionException(id, expected, target);
+        }
+        return STATUS.compareAndSet(this, expected, target);
+    }
+
+    /**
+     * Takes back a transition that could not be made durable. Unlike the
+     * forward transitions this is not checked against the lifecycle.
+     * @param applied the status the failed transition moved the order to
+     * @param previous the status to return to
+     * @return true if the status was reverted, false if it changed again meanwhile
+     */
+    boolean revertStatus(OrderStatus applied, OrderStatus previous) {
+        return STATUS.compareAndSet(this, applied, previous);
+    }
+
+    /**
+     * Atomically moves the order to the target status from whatever status it is in.
+     * @param target the new status
+     * @return the status the order was in before the transition
+     * @throws IllegalOrderTransitionException if the current status cannot move to {@code target}
+     */
+    OrderStatus transitionTo(OrderStatus target) {
+        while (true) {
+            OrderStatus current = status;
+            if (compareAndSetStatus(current, target)) {
+                return current;
+            }
+        }
+    }
 }
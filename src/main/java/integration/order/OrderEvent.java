@@ -0,0 +1,35 @@
+package integration.order;
+
+import java.util.Objects;
+
+/**
+ * Notification about an order being placed or changing status.
+ * The statuses are captured when the event is created, so they stay
+ * accurate even if the order moves on before the event is delivered.
+ *
+ * @param type what happened
+ * @param order the affected order
+ * @param previousStatus the status before the change, or null for placements
+ * @param status the status the event moved the order to
+ */
+public record OrderEvent(Type type, Order order, OrderStatus previousStatus, OrderStatus status) {
+
+    public enum Type {
+        PLACED,
+        STATUS_CHANGED
+    }
+
+    public OrderEvent {
+        Objects.requireNonNull(type, "type");
+        Objects.requireNonNull(order, "order");
+        Objects.requireNonNull(status, "status");
+    }
+
+    public static OrderEvent placed(Order order) {
+        return new OrderEvent(Type.PLACED, order, null, OrderStatus.PLACED);
+    }
+
+    public static OrderEvent statusChanged(Order order, OrderStatus previous, OrderStatus current) {
+        return new OrderEvent(Type.STATUS_CHANGED, order, Objects.requireNonNull(previous, "previous"), current);
+    }
+}
@@ -0,0 +1,325 @@
+package integration.order;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishes {@link OrderEvent}s to {@link Flow.Subscriber}s with demand-based backpressure.
+ * <p>
+ * Every subscriber gets its own bounded buffer. Events are delivered on the
+ * executor, as many per run as the subscriber has requested (up to the batch
+ * size), so a busy subscriber is served in batches instead of one task per
+ * event. What happens when a buffer is full is decided by the
+ * {@link OverflowPolicy} of the subscription, so a slow subscriber only
+ * affects order intake if it was subscribed with {@link OverflowPolicy#BLOCK}.
+ */
+public class OrderEventPublisher implements Flow.Publisher<OrderEvent>, OrderListener, AutoCloseable {
+
+    public static final int DEFAULT_BUFFER_CAPACITY = Flow.defaultBufferSize();
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    /**
+     * Behaviour when an event arrives for a subscriber whose buffer is full.
+     */
+    public enum OverflowPolicy {
+        /** Discard the new event for that subscriber and count it as dropped. */
+        DROP,
+        /** Block the publishing thread until the subscriber has buffer space. */
+        BLOCK,
+        /** Keep the event in an unbounded overflow behind the buffer; trades memory for completeness. */
+        SPILL
+    }
+
+    private final Executor executor;
+    private final int bufferCapacity;
+    private final int batchSize;
+    private final OverflowPolicy defaultPolicy;
+    private final List<EventSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private volatile boolean closed;
+
+    public OrderEventPublisher() {
+        this(ForkJoinPool.commonPool(), DEFAULT_BUFFER_CAPACITY, DEFAULT_BATCH_SIZE, OverflowPolicy.DROP);
+    }
+
+    /**
+     * Creates a publisher.
+     * @param executor runs event delivery; with {@link OverflowPolicy#BLOCK} it must not be
+     *                 the executor order intake runs on
+     * @param bufferCapacity events buffered per subscriber
+     * @param batchSize maximum events delivered per delivery run
+     * @param defaultPolicy overflow policy for {@link #subscribe(Flow.Subscriber)}
+     */
+    public OrderEventPublisher(Executor executor, int bufferCapacity, int batchSize, OverflowPolicy defaultPolicy) {
+        if (bufferCapacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("bufferCapacity and batchSize must be positive");
+        }
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.bufferCapacity = bufferCapacity;
+        this.batchSize = batchSize;
+        this.defaultPolicy = Objects.requireNonNull(defaultPolicy, "defaultPolicy");
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super OrderEvent> subscriber) {
+        subscribe(subscriber, defaultPolicy);
+    }
+
+    /**
+     * Subscribes with an explicit overflow policy.
+     * @param subscriber the subscriber
+     * @param policy what to do when this subscriber's buffer is full
+     */
+    public void subscribe(Flow.Subscriber<? super OrderEvent> subscriber, OverflowPolicy policy) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        Objects.requireNonNull(policy, "policy");
+        EventSubscription subscription = new EventSubscription(subscriber, policy);
+        subscriber.onSubscribe(subscription);
+        if (!subscription.register()) {
+            return;
+        }
+        if (closed) {
+            subscription.complete();
+        }
+    }
+
+    /**
+     * Offers an event to every current subscriber.
+     * @param event the event to publish
+     */
+    public void publish(OrderEvent event) {
+        if (closed) {
+            throw new IllegalStateException("Order event publisher is closed");
+        }
+        offer(event);
+    }
+
+    private void offer(OrderEvent event) {
+        // a subscription completed by a racing close() ignores the event
+        for (EventSubscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    /**
+     * Publishes one event per placed order. Does nothing once the publisher is
+     * closed, so closing it does not break the service it listens to.
+     */
+    @Override
+    public void ordersPlaced(List<Order> orders) {
+        if (closed || subscriptions.isEmpty()) {
+            return;
+        }
+        for (Order order : orders) {
+            offer(OrderEvent.placed(order));
+        }
+    }
+
+    /**
+     * Publishes the status change. Does nothing once the publisher is closed.
+     */
+    @Override
+    public void statusChanged(Order order, OrderStatus previous, OrderStatus current) {
+        if (!closed && !subscriptions.isEmpty()) {
+            offer(OrderEvent.statusChanged(order, previous, current));
+        }
+    }
+
+    /**
+     * Completes every subscription once its buffered events are delivered.
+     * Later {@link #publish} calls fail; listener callbacks are ignored.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (EventSubscription subscription : subscriptions) {
+            subscription.complete();
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /** @return events discarded because a {@link OverflowPolicy#DROP} buffer was full */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /** @return events that overflowed a {@link OverflowPolicy#SPILL} buffer */
+    public long getSpilledCount() {
+        return spilled.sum();
+    }
+
+    private final class EventSubscription implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super OrderEvent> subscriber;
+        private final OverflowPolicy policy;
+        private final ArrayDeque<OrderEvent> buffer = new ArrayDeque<>();
+        private final AtomicInteger wip = new AtomicInteger();
+        private long demand;
+        private boolean cancelled;
+        private boolean completed;
+        private boolean terminated;
+        private Throwable error;
+
+        EventSubscription(Flow.Subscriber<? super OrderEvent> subscriber, OverflowPolicy policy) {
+            this.subscriber = subscriber;
+            this.policy = policy;
+        }
+
+        /**
+         * Adds the subscription to the publisher's list unless the subscriber
+         * already cancelled it, e.g. from {@code onSubscribe}.
+         * @return false if the subscription was cancelled
+         */
+        synchronized boolean register() {
+            if (cancelled) {
+                return false;
+            }
+            // cancel() sets the flag under this lock before it removes, so a
+            // concurrent cancel is either seen here or removes after the add
+            subscriptions.add(this);
+            return true;
+        }
+
+        void offer(OrderEvent event) {
+            synchronized (this) {
+                if (cancelled || completed) {
+                    return;
+                }
+                if (buffer.size() >= bufferCapacity) {
+                    switch (policy) {
+                        case DROP -> {
+                            dropped.increment();
+                            return;
+                        }
+                        case SPILL -> spilled.increment();
+                        case BLOCK -> {
+                            if (!awaitSpace()) {
+                                return;
+                            }
+                        }
+                    }
+                }
+                buffer.add(event);
+            }
+            schedule();
+        }
+
+        private boolean awaitSpace() {
+            try {
+                while (buffer.size() >= bufferCapacity && !cancelled) {
+                    wait();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                dropped.increment();
+                return false;
+            }
+            return !cancelled;
+        }
+
+        void complete() {
+            synchronized (this) {
+                completed = true;
+            }
+            schedule();
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                if (n <= 0) {
+                    error = new IllegalArgumentException("Non-positive request: " + n);
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                cancelled = true;
+                buffer.clear();
+                notifyAll();
+            }
+            subscriptions.remove(this);
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            List<OrderEvent> batch = new ArrayList<>();
+            while (true) {
+                Throwable failure;
+                boolean finished;
+                synchronized (this) {
+                    if (cancelled || terminated) {
+                        return;
+                    }
+                    failure = error;
+                    int count = failure != null ? 0 : (int) Math.min(Math.min(demand, batchSize), buffer.size());
+                    for (int i = 0; i < count; i++) {
+                        batch.add(buffer.poll());
+                    }
+                    if (demand != Long.MAX_VALUE) {
+                        demand -= count;
+                    }
+                    finished = completed && buffer.isEmpty();
+                    if (count > 0) {
+                        notifyAll();
+                    } else if (failure != null || finished) {
+                        terminated = true;
+                    }
+                }
+                if (batch.isEmpty()) {
+                    if (failure != null) {
+                        cancel();
+                        subscriber.onError(failure);
+                    } else if (finished) {
+                        subscriptions.remove(this);
+                        subscriber.onComplete();
+                    }
+                    return;
+                }
+                for (OrderEvent event : batch) {
+                    try {
+                        subscriber.onNext(event);
+                    } catch (RuntimeException ex) {
+                        cancel();
+                        return;
+                    }
+                }
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package integration.order;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Strategy for assigning identifiers to newly placed orders.
+ * Implementations must be safe for concurrent use.
+ */
+@FunctionalInterface
+public interface OrderIdGenerator {
+
+    /**
+     * Generates a new order identifier.
+     * @param createdAt the creation time of the order being identified
+     * @return a unique identifier
+     */
+    UUID nextId(Instant createdAt);
+
+    /**
+     * Generates a block of identifiers for orders created at the same time.
+     * @param createdAt the shared creation time of the orders
+     * @param count the number of identifiers to generate
+     * @return an array of {@code count} unique identifiers
+     */
+    default UUID[] nextIds(Instant createdAt, int count) {
+        UUID[] ids = new UUID[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = nextId(createdAt);
+        }
+        return ids;
+    }
+
+    /**
+     * Creates a generator producing random (version 4) UUIDs.
+     * Backed by a shared {@code SecureRandom}, so it does not scale across threads.
+     * @return a random UUID generator
+     */
+    static OrderIdGenerator random() {
+        return createdAt -> UUID.randomUUID();
+    }
+
+    /**
+     * Creates a generator producing time-ordered (version 7) UUIDs.
+     * @return a time-ordered UUID generator
+     */
+    static OrderIdGenerator timeOrdered() {
+        return new TimeOrderedIdGenerator();
+    }
+}
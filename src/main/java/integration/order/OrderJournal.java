@@ -0,0 +1,491 @@
+package integration.order;
+
+import car.domain.CarConfigurationCodec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only, durable journal of orders.
+ * <p>
+ * Every order is written as a fixed-size binary record into memory-mapped
+ * segment files ({@code orders-000000.journal}, ...). A background thread
+ * forces written segments to disk and completes the futures of all appends
+ * made since the previous force, so concurrent appends share one fsync
+ * (group commit). Registered through {@link OrderService#addDurableListener},
+ * the journal waits for that commit before the order is counted or published,
+ * so an order is only acknowledged to the caller once its record is durable.
+ * Replaying a directory streams the segments sequentially and stops at the
+ * first record whose checksum does not match, which is where an interrupted
+ * write ends the log; later segments are not read. Reopening a directory cuts
+ * the log at the same record, so new appends are always replayed. A later
+ * record for the same id supersedes an earlier one.
+ * <p>
+ * Segment header (little endian, {@value #HEADER_SIZE} bytes): magic, format
+ * version, record size, configuration cardinality, records per segment and
+ * four reserved bytes. A directory can only be reopened with the records per
+ * segment it was created with.
+ * <p>
+ * Record layout (little endian, {@value #RECORD_SIZE} bytes): id (2 longs),
+ * creation epoch seconds (long), nanos (int), packed car configuration (int),
+ * status ordinal (int), CRC32C of the preceding bytes (int).
+ */
+public final class OrderJournal implements OrderListener, Closeable {
+
+    public static final int RECORD_SIZE = 40;
+    public static final int DEFAULT_RECORDS_PER_SEGMENT = 1 << 16;
+
+    static final int HEADER_SIZE = 24;
+    private static final int MAGIC = 0x4F524A4C;
+    private static final int VERSION = 2;
+    private static final int CHECKSUM_OFFSET = RECORD_SIZE - Integer.BYTES;
+    private static final String SEGMENT_PREFIX = "orders-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final CompletableFuture<Void> SHUTDOWN = new CompletableFuture<>();
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final CRC32C checksum = new CRC32C();
+    private final BlockingQueue<CompletableFuture<Void>> pendingSyncs = new LinkedBlockingQueue<>();
+    private final List<MappedByteBuffer> unsyncedSegments = new ArrayList<>();
+    private final Thread syncThread;
+
+    private MappedByteBuffer segment;
+    private int segmentIndex;
+    private int recordIndex;
+    private boolean closed;
+
+    private OrderJournal(Path directory, int recordsPerSegment) throws IOException {
+        this.directory = directory;
+        this.recordsPerSegment = recordsPerSegment;
+        Files.createDirectories(directory);
+
+        List<Path> segments = listSegments(directory);
+        if (segments.isEmpty()) {
+            openSegment(0);
+        } else {
+            resume(segments);
+        }
+
+        syncThread = new Thread(this::syncLoop, "order-journal-sync");
+        syncThread.setDaemon(true);
+        syncThread.start();
+    }
+
+    /**
+     * Opens the journal in the given directory, continuing after the last
+     * valid record if segments already exist. Everything from the first
+     * invalid record on, in any segment, is discarded first, so records
+     * appended now are never hidden behind a torn write and records left
+     * behind one never come back.
+     * @param directory the journal directory
+     * @return an open journal
+     * @throws IOException if the segments cannot be created or mapped, or
+     *         were written by an incompatible journal
+     */
+    public static OrderJournal open(Path directory) throws IOException {
+        return open(directory, DEFAULT_RECORDS_PER_SEGMENT);
+    }
+
+    public static OrderJournal open(Path directory, int recordsPerSegment) throws IOException {
+        Objects.requireNonNull(directory, "directory");
+        if (recordsPerSegment <= 0) {
+            throw new IllegalArgumentException("recordsPerSegment must be positive");
+        }
+        return new OrderJournal(directory, recordsPerSegment);
+    }
+
+    /**
+     * Appends an order record.
+     * @param order the order to append
+     * @return a future completed once the record is durable on disk
+     */
+    public CompletableFuture<Void> append(Order order) {
+        return appendAll(List.of(order));
+    }
+
+    /**
+     * Appends one record per order. All records share a single fsync.
+     * @param orders the orders to append
+     * @return a future completed once all records are durable on disk
+     * @throws UncheckedIOException if a new segment cannot be created; none of
+     *         the orders is then recorded
+     */
+    public CompletableFuture<Void> appendAll(List<Order> orders) {
+        CompletableFuture<Void> synced = new CompletableFuture<>();
+        synchronized (this) {
+            ensureOpen();
+            MappedByteBuffer startSegment = segment;
+            int startSegmentIndex = segmentIndex;
+            int startRecordIndex = recordIndex;
+            int startUnsynced = unsyncedSegments.size();
+            try {
+                for (Order order : orders) {
+                    if (recordIndex == recordsPerSegment) {
+                        rollSegment();
+                    }
+                    writeRecord(segment, HEADER_SIZE + recordIndex * RECORD_SIZE, order);
+                    recordIndex++;
+                }
+            } catch (RuntimeException ex) {
+                undoAppend(startSegment, startSegmentIndex, startRecordIndex, startUnsynced, ex);
+                throw ex;
+            }
+            pendingSyncs.add(synced);
+        }
+        return synced;
+    }
+
+    /**
+     * Requests a sync of everything appended so far.
+     * @return a future completed once all earlier records are durable
+     */
+    public CompletableFuture<Void> sync() {
+        return appendAll(List.of());
+    }
+
+    /**
+     * Appends the orders and waits until they are durable, so the placing
+     * call only returns once the orders survive a crash.
+     * @throws UncheckedIOException if the records cannot be forced to disk
+     */
+    @Override
+    public void ordersPlaced(List<Order> orders) {
+        awaitDurable(appendAll(orders));
+    }
+
+    /**
+     * Appends a record carrying the new status and waits until it is durable.
+     * The status is read while holding the append lock, so the last record of
+     * an order always reflects its final status even when transitions race.
+     * @throws UncheckedIOException if the record cannot be forced to disk
+     */
+    @Override
+    public void statusChanged(Order order, OrderStatus previous, OrderStatus current) {
+        awaitDurable(append(order));
+    }
+
+    /**
+     * Stops accepting appends, forces outstanding records and stops the sync thread.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pendingSyncs.add(SHUTDOWN);
+        }
+        try {
+            syncThread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Replays all valid records in the directory, oldest first, up to the
+     * first invalid one.
+     * @param directory the journal directory
+     * @param consumer receives each recovered order
+     * @return the number of records replayed
+     * @throws IOException if a segment cannot be read
+     */
+    public static long replay(Path directory, Consumer<Order> consumer) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        CRC32C crc = new CRC32C();
+        long replayed = 0;
+        for (Path file : listSegments(directory)) {
+            MappedByteBuffer buffer = map(file, FileChannel.MapMode.READ_ONLY, Files.size(file));
+            verifyHeader(buffer, file);
+            int records = buffer.getInt(16);
+            if (buffer.capacity() != segmentSize(records)) {
+                throw new IOException("Order journal segment has the wrong size: " + file);
+            }
+            for (int i = 0; i < records; i++) {
+                int offset = HEADER_SIZE + i * RECORD_SIZE;
+                if (!isValidRecord(buffer, offset, crc)) {
+                    // everything after a torn or corrupted record is untrusted
+                    return replayed;
+                }
+                consumer.accept(readRecord(buffer, offset));
+                replayed++;
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * Replays the journal into a repository, so the latest record of each order wins.
+     * @param directory the journal directory
+     * @param repository the repository to fill
+     * @return the number of records replayed
+     * @throws IOException if a segment cannot be read
+     */
+    public static long recover(Path directory, OrderRepository repository) throws IOException {
+        return replay(directory, repository::save);
+    }
+
+    /**
+     * Replays the journal into a service, restoring each order with its fleet counts.
+     * @param directory the journal directory
+     * @param service the service to fill
+     * @return the number of records replayed
+     * @throws IOException if a segment cannot be read
+     */
+    public static long replayInto(Path directory, OrderService service) throws IOException {
+        return replay(directory, service::restore);
+    }
+
+    private void syncLoop() {
+        List<CompletableFuture<Void>> batch = new ArrayList<>();
+        List<MappedByteBuffer> toForce = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(pendingSyncs.take());
+            } catch (InterruptedException ex) {
+                continue;
+            }
+            pendingSyncs.drainTo(batch);
+            running = !batch.remove(SHUTDOWN);
+
+            synchronized (this) {
+                toForce.addAll(unsyncedSegments);
+                unsyncedSegments.clear();
+                toForce.add(segment);
+            }
+            try {
+                for (MappedByteBuffer buffer : toForce) {
+                    buffer.force();
+                }
+                batch.forEach(future -> future.complete(null));
+            } catch (RuntimeException ex) {
+                batch.forEach(future -> future.completeExceptionally(ex));
+            }
+            batch.clear();
+            toForce.clear();
+        }
+    }
+
+    private static void awaitDurable(CompletableFuture<Void> synced) {
+        try {
+            synced.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException failure) {
+                throw failure;
+            }
+            throw ex;
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Order journal is closed");
+        }
+    }
+
+    /**
+     * Continues the log at its first invalid record: the rest of that segment
+     * is zeroed and later segments are deleted before appending resumes there.
+     */
+    private void resume(List<Path> segments) throws IOException {
+        CRC32C crc = new CRC32C();
+        for (int i = 0; i < segments.size(); i++) {
+            Path file = segments.get(i);
+            // check read-only first: a writable mapping of the wrong size would resize the file
+            MappedByteBuffer existing = map(file, FileChannel.MapMode.READ_ONLY, Files.size(file));
+            if (existing.capacity() < HEADER_SIZE || existing.getInt(0) == 0) {
+                // the segment was created but its header never reached the disk
+                deleteSegments(segments.subList(i, segments.size()));
+                openSegment(segmentNumber(file));
+                return;
+            }
+            verifyHeader(existing, file);
+            if (existing.getInt(16) != recordsPerSegment) {
+                throw new IOException("Order journal " + directory + " was created with "
+                        + existing.getInt(16) + " records per segment, not " + recordsPerSegment);
+            }
+            if (existing.capacity() != segmentSize(recordsPerSegment)) {
+                throw new IOException("Order journal segment has the wrong size: " + file);
+            }
+            int valid = countValidRecords(existing, crc);
+            if (valid < recordsPerSegment || i == segments.size() - 1) {
+                segmentIndex = segmentNumber(file);
+                segment = map(file, FileChannel.MapMode.READ_WRITE, segmentSize(recordsPerSegment));
+                recordIndex = valid;
+                clearFrom(segment, HEADER_SIZE + valid * RECORD_SIZE);
+                segment.force();
+                deleteSegments(segments.subList(i + 1, segments.size()));
+                return;
+            }
+        }
+    }
+
+    private static void clearFrom(MappedByteBuffer buffer, int offset) {
+        byte[] zeros = new byte[Math.min(8192, buffer.capacity())];
+        for (int position = offset; position < buffer.capacity(); position += zeros.length) {
+            buffer.put(position, zeros, 0, Math.min(zeros.length, buffer.capacity() - position));
+        }
+    }
+
+    private static void deleteSegments(List<Path> files) throws IOException {
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Erases the records of a batch that failed partway, so the caller can
+     * treat the whole batch as not written: the records are zeroed in the
+     * segment the batch started in, and segments it created are deleted.
+     */
+    private void undoAppend(MappedByteBuffer startSegment, int startSegmentIndex, int startRecordIndex,
+                            int startUnsynced, RuntimeException failure) {
+        clearFrom(startSegment, HEADER_SIZE + startRecordIndex * RECORD_SIZE);
+        for (int index = startSegmentIndex + 1; index <= segmentIndex; index++) {
+            try {
+                Files.deleteIfExists(directory.resolve(segmentName(index)));
+            } catch (IOException ex) {
+                failure.addSuppressed(ex);
+            }
+        }
+        unsyncedSegments.subList(startUnsynced, unsyncedSegments.size()).clear();
+        segment = startSegment;
+        segmentIndex = startSegmentIndex;
+        recordIndex = startRecordIndex;
+        // the sync thread may already have forced part of the batch
+        startSegment.force();
+    }
+
+    private void rollSegment() {
+        unsyncedSegments.add(segment);
+        try {
+            openSegment(segmentIndex + 1);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to create journal segment", ex);
+        }
+    }
+
+    private void openSegment(int index) throws IOException {
+        Path file = directory.resolve(segmentName(index));
+        MappedByteBuffer buffer = map(file, FileChannel.MapMode.READ_WRITE, segmentSize(recordsPerSegment));
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, RECORD_SIZE);
+        buffer.putInt(12, CarConfigurationCodec.CARDINALITY);
+        buffer.putInt(16, recordsPerSegment);
+        segment = buffer;
+        segmentIndex = index;
+        recordIndex = 0;
+    }
+
+    private void writeRecord(ByteBuffer buffer, int offset, Order order) {
+        buffer.putLong(offset, order.getId().getMostSignificantBits());
+        buffer.putLong(offset + 8, order.getId().getLeastSignificantBits());
+        buffer.putLong(offset + 16, order.getCreatedAt().getEpochSecond());
+        buffer.putInt(offset + 24, order.getCreatedAt().getNano());
+        buffer.putInt(offset + 28, CarConfigurationCodec.encode(order.getCar()));
+        buffer.putInt(offset + 32, order.getStatus().ordinal());
+        buffer.putInt(offset + CHECKSUM_OFFSET, checksum(buffer, offset, checksum));
+    }
+
+    private static Order readRecord(ByteBuffer buffer, int offset) {
+        UUID id = new UUID(buffer.getLong(offset), buffer.getLong(offset + 8));
+        Instant createdAt = Instant.ofEpochSecond(buffer.getLong(offset + 16), buffer.getInt(offset + 24));
+        return new Order(id,
+                CarConfigurationCodec.decode(buffer.getInt(offset + 28)),
+                createdAt,
+                OrderStatus.values()[buffer.getInt(offset + 32)]);
+    }
+
+    private static boolean isValidRecord(ByteBuffer buffer, int offset, CRC32C crc) {
+        return buffer.getInt(offset + CHECKSUM_OFFSET) == checksum(buffer, offset, crc);
+    }
+
+    private static int countValidRecords(ByteBuffer buffer, CRC32C crc) {
+        int records = (buffer.capacity() - HEADER_SIZE) / RECORD_SIZE;
+        int valid = 0;
+        while (valid < records && isValidRecord(buffer, HEADER_SIZE + valid * RECORD_SIZE, crc)) {
+            valid++;
+        }
+        return valid;
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset, CRC32C crc) {
+        crc.reset();
+        crc.update(buffer.slice(offset, CHECKSUM_OFFSET));
+        return (int) crc.getValue();
+    }
+
+    private static void verifyHeader(ByteBuffer buffer, Path file) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE
+                || buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) != VERSION
+                || buffer.getInt(8) != RECORD_SIZE
+                || buffer.getInt(12) != CarConfigurationCodec.CARDINALITY
+                || buffer.getInt(16) <= 0) {
+            throw new IOException("Incompatible order journal segment: " + file);
+        }
+    }
+
+    private static MappedByteBuffer map(Path file, FileChannel.MapMode mode, long size) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[] {StandardOpenOption.READ}
+                : new StandardOpenOption[] {StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE};
+        // the mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(file, options)) {
+            MappedByteBuffer buffer = channel.map(mode, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+    private static long segmentSize(int recordsPerSegment) {
+        return HEADER_SIZE + (long) recordsPerSegment * RECORD_SIZE;
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static String segmentName(int index) {
+        return String.format("%s%06d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX);
+    }
+
+    private static int segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,28 @@
+package integration.order;
+
+import java.util.List;
+
+/**
+ * Callback notified by {@link OrderService} after orders have been placed
+ * or have changed status.
+ * Listeners run on the placing thread and should hand heavy work off.
+ */
+@FunctionalInterface
+public interface OrderListener {
+
+    /**
+     * Called once per {@code placeOrder} or {@code placeOrders} call.
+     * @param orders the newly placed orders
+     */
+    void ordersPlaced(List<Order> orders);
+
+    /**
+     * Called after an order status change. When changes race, the order may
+     * already be in a later status than the one that triggered the call.
+     * @param order the updated order
+     * @param previous the status the order was in before this change
+     * @param current the status this change moved the order to
+     */
+    default void statusChanged(Order order, OrderStatus previous, OrderStatus current) {
+    }
+}
@@ -0,0 +1,184 @@
+package integration.order;
+
+import car.domain.CarModel;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Concurrent in-memory store of orders keyed by id.
+ * <p>
+ * Secondary indexes by {@link OrderStatus}, {@link CarModel} and creation time
+ * are maintained on every write. Writes to the same order are serialized per key;
+ * reads never lock and see a weakly consistent view while writes are in flight.
+ */
+public class OrderRepository {
+
+    private static final Comparator<TimeKey> TIME_ORDER = Comparator
+            .comparing(TimeKey::createdAt)
+            .thenComparing(TimeKey::id);
+    private static final UUID LOWEST_ID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+
+    private final ConcurrentHashMap<UUID, Order> byId = new ConcurrentHashMap<>();
+    private final Map<OrderStatus, Set<UUID>> byStatus = new EnumMap<>(OrderStatus.class);
+    private final Map<CarModel, Set<UUID>> byModel = new EnumMap<>(CarModel.class);
+    private final ConcurrentSkipListMap<TimeKey, Order> byCreatedAt = new ConcurrentSkipListMap<>(TIME_ORDER);
+
+    public OrderRepository() {
+        for (OrderStatus status : OrderStatus.values()) {
+            byStatus.put(status, ConcurrentHashMap.newKeySet());
+        }
+        for (CarModel model : CarModel.values()) {
+            byModel.put(model, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    /**
+     * Stores an order, replacing any previous version with the same id.
+     * @param order the order to store
+     */
+    public void save(Order order) {
+        Objects.requireNonNull(order, "order");
+        byId.compute(order.getId(), (id, previous) -> {
+            if (previous != null) {
+                unindex(previous);
+            }
+            index(order);
+            return order;
+        });
+    }
+
+    /**
+     * Stores an order unless one with the same id exists.
+     * @param order the order to store
+     * @return true if the order was stored
+     */
+    public boolean saveIfAbsent(Order order) {
+        Objects.requireNonNull(order, "order");
+        boolean[] saved = new boolean[1];
+        byId.computeIfAbsent(order.getId(), id -> {
+            index(order);
+            saved[0] = true;
+            return order;
+        });
+        return saved[0];
+    }
+
+    /**
+     * Stores all given orders.
+     * @param orders the orders to store
+     */
+    public void saveAll(Collection<Order> orders) {
+        for (Order order : orders) {
+            save(order);
+        }
+    }
+
+    /**
+     * Moves an order to the status index matching its current status after a
+     * status transition. Runs under the per-order lock, so concurrent
+     * transitions of the same order always leave exactly one index entry.
+     * @param order the transitioned order
+     * @param previous the status before the transition
+     */
+    public void reindexStatus(Order order, OrderStatus previous) {
+        byId.computeIfPresent(order.getId(), (id, stored) -> {
+            byStatus.get(previous).remove(id);
+            byStatus.get(stored.getStatus()).add(id);
+            return stored;
+        });
+    }
+
+    /**
+     * Removes an order and its index entries.
+     * @param id the order id
+     * @return the removed order, if it was present
+     */
+    public Optional<Order> remove(UUID id) {
+        Order[] removed = new Order[1];
+        byId.computeIfPresent(id, (key, previous) -> {
+            unindex(previous);
+            removed[0] = previous;
+            return null;
+        });
+        return Optional.ofNullable(removed[0]);
+    }
+
+    public Optional<Order> findById(UUID id) {
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    public List<Order> findByStatus(OrderStatus status) {
+        List<Order> result = new ArrayList<>();
+        for (UUID id : byStatus.get(status)) {
+            Order order = byId.get(id);
+            if (order != null && order.getStatus() == status) {
+                result.add(order);
+            }
+        }
+        return result;
+    }
+
+    public List<Order> findByModel(CarModel model) {
+        List<Order> result = new ArrayList<>();
+        for (UUID id : byModel.get(model)) {
+            Order order = byId.get(id);
+            if (order != null) {
+                result.add(order);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds orders created in the given time range, oldest first.
+     * @param fromInclusive start of the range
+     * @param toExclusive end of the range
+     * @return the matching orders
+     */
+    public List<Order> findCreatedBetween(Instant fromInclusive, Instant toExclusive) {
+        ConcurrentNavigableMap<TimeKey, Order> range = byCreatedAt.subMap(
+                new TimeKey(fromInclusive, LOWEST_ID), true,
+                new TimeKey(toExclusive, LOWEST_ID), false);
+        return new ArrayList<>(range.values());
+    }
+
+    public int countByStatus(OrderStatus status) {
+        return byStatus.get(status).size();
+    }
+
+    public int countByModel(CarModel model) {
+        return byModel.get(model).size();
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    private void index(Order order) {
+        byStatus.get(order.getStatus()).add(order.getId());
+        byModel.get(order.getCar().getModel()).add(order.getId());
+        byCreatedAt.put(new TimeKey(order.getCreatedAt(), order.getId()), order);
+    }
+
+    private void unindex(Order order) {
+        byStatus.get(order.getStatus()).remove(order.getId());
+        byModel.get(order.getCar().getModel()).remove(order.getId());
+        byCreatedAt.remove(new TimeKey(order.getCreatedAt(), order.getId()));
+    }
+
+    private record TimeKey(Instant createdAt, UUID id) {
+    }
+}
@@ -1,13 +1,249 @@
 package integration.order;
 
 import car.domain.Car;
+import metrics.MetricsRegistry;
 
+import java.time.Clock;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
 
 public class OrderService {
 
+    private final OrderIdGenerator idGenerator;
+    private final Clock clock;
+    private final OrderRepository repository;
+    private final List<OrderListener> durableListeners = new CopyOnWriteArrayList<>();
+    private final List<OrderListener> listeners = new CopyOnWriteArrayList<>();
+    private final OrderEventPublisher events = new OrderEventPublisher();
+    private final FleetAggregates fleet = new FleetAggregates();
+
+    public OrderService() {
+        this(OrderIdGenerator.timeOrdered());
+    }
+
+    public OrderService(OrderIdGenerator idGenerator) {
+        this(idGenerator, Clock.systemUTC());
+    }
+
+    public OrderService(OrderIdGenerator idGenerator, Clock clock) {
+        this(idGenerator, clock, new OrderRepository());
+    }
+
+    public OrderService(OrderIdGenerator idGenerator, Clock clock, OrderRepository repository) {
+        this.idGenerator = Objects.requireNonNull(idGenerator, "idGenerator");
+        this.clock = Objects.requireNonNull(clock, "clock");
+        this.repository = Objects.requireNonNull(repository, "repository");
+        this.listeners.add(fleet);
+        this.listeners.add(events);
+    }
+
     public Order placeOrder(Car car) {
-        return new Order(UUID.randomUUID(), car, Instant.now(), OrderStatus.PLACED);
+        Instant createdAt = clock.instant();
+        Order order = new Order(idGenerator.nextId(createdAt), car, createdAt, OrderStatus.PLACED);
+        repository.save(order);
+        notifyPlaced(List.of(order));
+        return order;
+    }
+
+    /**
+     * Places an order under an id assigned elsewhere, e.g. by an importing system.
+     * @param id the order id
+     * @param car the car to order
+     * @return the placed order
+     * @throws IllegalArgumentException if an order with the id exists
+     */
+    public Order placeOrder(UUID id, Car car) {
+        Objects.requireNonNull(id, "id");
+        Objects.requireNonNull(car, "car");
+        Order order = new Order(id, car, clock.instant(), OrderStatus.PLACED);
+        if (!repository.saveIfAbsent(order)) {
+            throw new IllegalArgumentException("Duplicate order: " + id);
+        }
+        notifyPlaced(List.of(order));
+        return order;
+    }
+
+    /**
+     * Places one order per car in a single call.
+     * The whole batch is validated up front, shares one creation timestamp
+     * and draws its identifiers as one block.
+     * @param cars the cars to order
+     * @return the placed orders, in the iteration order of {@code cars}
+     * @throws NullPointerException if the collection or any car is null
+     */
+    public List<Order> placeOrders(Collection<? extends Car> cars) {
+        Car[] batch = cars.toArray(new Car[0]);
+        for (int i = 0; i < batch.length; i++) {
+            if (batch[i] == null) {
+                throw new NullPointerException("car at index " + i);
+            }
+        }
+
+        Instant createdAt = clock.instant();
+        UUID[] ids = idGenerator.nextIds(createdAt, batch.length);
+        Order[] orders = new Order[batch.length];
+        for (int i = 0; i < batch.length; i++) {
+            orders[i] = new Order(ids[i], batch[i], createdAt, OrderStatus.PLACED);
+        }
+        List<Order> placed = List.of(orders);
+        repository.saveAll(placed);
+        notifyPlaced(placed);
+        return placed;
+    }
+
+    /**
+     * Moves an order to a new status.
+     * @param id the order id
+     * @param target the new status
+     * @return the updated order
+     * @throws IllegalArgumentException if no order with the id exists
+     * @throws IllegalOrderTransitionException if the current status cannot move to {@code target}
+     */
+    public Order updateStatus(UUID id, OrderStatus target) {
+        Order order = requireOrder(id);
+        OrderStatus previous = order.transitionTo(target);
+        statusChanged(order, previous, target);
+        return order;
+    }
+
+    /**
+     * Moves an order to a new status only if it is currently in the expected status.
+     * @param id the order id
+     * @param expected the status the order must be in
+     * @param target the new status
+     * @return true if the status was changed
+     * @throws IllegalArgumentException if no order with the id exists
+     * @throws IllegalOrderTransitionException if {@code expected} cannot move to {@code target}
+     */
+    public boolean compareAndSetStatus(UUID id, OrderStatus expected, OrderStatus target) {
+        Order order = requireOrder(id);
+        if (!order.compareAndSetStatus(expected, target)) {
+            return false;
+        }
+        statusChanged(order, expected, target);
+        return true;
+    }
+
+    public Order cancelOrder(UUID id) {
+        return updateStatus(id, OrderStatus.CANCELLED);
+    }
+
+    /**
+     * Restores an order recovered from a journal, replacing any earlier record
+     * of it. The fleet counts follow the restored status; listeners and the
+     * event stream are not notified, since the order is not new.
+     * @param order the recovered order
+     */
+    public void restore(Order order) {
+        Optional<Order> previous = repository.findById(order.getId());
+        repository.save(order);
+        previous.filter(OrderService::isActive).ifPresent(fleet::remove);
+        if (isActive(order)) {
+            fleet.add(order);
+        }
+    }
+
+    /**
+     * Registers a listener notified after every placement and status change.
+     * @param listener the listener to add
+     */
+    public void addListener(OrderListener listener) {
+        listeners.add(Objects.requireNonNull(listener, "listener"));
+    }
+
+    /**
+     * Registers a listener that makes placements and status changes durable,
+     * such as an {@link OrderJournal}. Durable listeners run before the fleet
+     * counts, the event stream and all other listeners. If one fails while
+     * orders are placed, the orders are removed again; if one fails on a
+     * status change, the order returns to its previous status. Either way the
+     * failure is rethrown and the other listeners are not notified.
+     * @param listener the listener to add
+     */
+    public void addDurableListener(OrderListener listener) {
+        durableListeners.add(Objects.requireNonNull(listener, "listener"));
+    }
+
+    public void removeListener(OrderListener listener) {
+        durableListeners.remove(listener);
+        listeners.remove(listener);
+    }
+
+    /**
+     * Gets the stream of placement and status change events.
+     * Subscribers default to {@link OrderEventPublisher.OverflowPolicy#DROP}; use
+     * {@link OrderEventPublisher#subscribe(Flow.Subscriber, OrderEventPublisher.OverflowPolicy)}
+     * or register a separately configured publisher via {@link #addListener(OrderListener)}
+     * for other policies.
+     * @return the event publisher
+     */
+    public OrderEventPublisher events() {
+        return events;
+    }
+
+    /**
+     * Gets the running fleet counts, kept up to date as orders are placed and cancelled.
+     * Orders recovered through {@link #restore(Order)} are counted as well.
+     * @return the fleet aggregates
+     */
+    public FleetAggregates getFleetAggregates() {
+        return fleet;
+    }
+
+    public Optional<Order> findOrder(UUID id) {
+        return repository.findById(id);
+    }
+
+    public OrderRepository getRepository() {
+        return repository;
+    }
+
+    private Order requireOrder(UUID id) {
+        return repository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown order: " + id));
+    }
+
+    private static boolean isActive(Order order) {
+        return order.getStatus() != OrderStatus.CANCELLED;
+    }
+
+    private void statusChanged(Order order, OrderStatus previous, OrderStatus current) {
+        repository.reindexStatus(order, previous);
+        try {
+            for (OrderListener listener : durableListeners) {
+                listener.statusChanged(order, previous, current);
+            }
+        } catch (RuntimeException ex) {
+            if (order.revertStatus(current, previous)) {
+                repository.reindexStatus(order, current);
+            }
+            throw ex;
+        }
+        for (OrderListener listener : listeners) {
+            listener.statusChanged(order, previous, current);
+        }
+    }
+
+    private void notifyPlaced(List<Order> orders) {
+        try {
+            for (OrderListener listener : durableListeners) {
+                listener.ordersPlaced(orders);
+            }
+        } catch (RuntimeException ex) {
+            for (Order order : orders) {
+                repository.remove(order.getId());
+            }
+            throw ex;
+        }
+        MetricsRegistry.global().recordOrdersPlaced(orders.size());
+        for (OrderListener listener : listeners) {
+            listener.ordersPlaced(orders);
+        }
     }
 }
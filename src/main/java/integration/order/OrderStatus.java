@@ -1,5 +1,39 @@
 package integration.order;
 
+/**
+ * Lifecycle states of an order.
+ * <pre>
+ * PLACED -> CONFIRMED -> IN_PRODUCTION -> SHIPPED
+ *    \          \
+ *     +----------+-> CANCELLED
+ * </pre>
+ */
 public enum OrderStatus {
-    PLACED
+    PLACED,
+    CONFIRMED,
+    IN_PRODUCTION,
+    SHIPPED,
+    CANCELLED;
+
+    /**
+     * Checks whether an order in this state may move to the target state.
+     * @param target the requested next state
+     * @return true if the transition is allowed
+     */
+    public boolean canTransitionTo(OrderStatus target) {
+        return switch (this) {
+            case PLACED -> target == CONFIRMED || target == CANCELLED;
+            case CONFIRMED -> target == IN_PRODUCTION || target == CANCELLED;
+            case IN_PRODUCTION -> target == SHIPPED;
+            case SHIPPED, CANCELLED -> false;
+        };
+    }
+
+    /**
+     * Checks whether no further transitions are possible.
+     * @return true for SHIPPED and CANCELLED
+     */
+    public boolean isTerminal() {
+        return this == SHIPPED || this == CANCELLED;
+    }
 }
@@ -0,0 +1,62 @@
+package integration.order;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates version 7 UUIDs as described in RFC 9562.
+ * <p>
+ * The most significant 48 bits hold the Unix epoch milliseconds of the order
+ * creation time, followed by a 12 bit sub-millisecond fraction, so identifiers
+ * sort by creation time. The remaining 62 bits come from {@link ThreadLocalRandom},
+ * which keeps generation free of shared state and contention.
+ */
+public final class TimeOrderedIdGenerator implements OrderIdGenerator {
+
+    private static final long VERSION_7 = 0x7000L;
+    private static final long VARIANT_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+    private static final long VARIANT_RFC = 0x8000_0000_0000_0000L;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    @Override
+    public UUID nextId(Instant createdAt) {
+        long leastSigBits = (ThreadLocalRandom.current().nextLong() & VARIANT_MASK) | VARIANT_RFC;
+        return new UUID(mostSigBits(createdAt), leastSigBits);
+    }
+
+    /**
+     * Allocates the block with a single random draw: the random bits of the
+     * first identifier are incremented for each following one, so the block
+     * also sorts in allocation order.
+     */
+    @Override
+    public UUID[] nextIds(Instant createdAt, int count) {
+        long mostSigBits = mostSigBits(createdAt);
+        long start = ThreadLocalRandom.current().nextLong(VARIANT_MASK - count + 1);
+        UUID[] ids = new UUID[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = new UUID(mostSigBits, (start + i) | VARIANT_RFC);
+        }
+        return ids;
+    }
+
+    private static long mostSigBits(Instant createdAt) {
+        long millis = createdAt.toEpochMilli();
+        long subMillis = (createdAt.getNano() % NANOS_PER_MILLI) * 4096 / NANOS_PER_MILLI;
+        return (millis << 16) | VERSION_7 | subMillis;
+    }
+
+    /**
+     * Extracts the creation time encoded in a version 7 UUID.
+     * @param id a UUID produced by this generator
+     * @return the encoded creation time, truncated to milliseconds
+     * @throws IllegalArgumentException if the UUID is not version 7
+     */
+    public static Instant timestampOf(UUID id) {
+        if (id.version() != 7) {
+            throw new IllegalArgumentException("Not a time-ordered UUID: " + id);
+        }
+        return Instant.ofEpochMilli(id.getMostSignificantBits() >>> 16);
+    }
+}
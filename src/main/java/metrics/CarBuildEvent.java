@@ -0,0 +1,50 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event around {@code CarBuilder.build()}.
+ */
+@Name("car.management.CarBuild")
+@Label("Car Build")
+@Category({"Car Management", "Configuration"})
+@Description("Validation and construction of a car configuration")
+public final class CarBuildEvent extends Event {
+
+    // never committed; only asked whether the event type is enabled
+    private static final CarBuildEvent PROBE = new CarBuildEvent();
+
+    @Label("Model")
+    String model;
+
+    @Label("Feature Count")
+    int featureCount;
+
+    @Label("Valid")
+    boolean valid;
+
+    /**
+     * Tells whether a running recording collects this event. Lets the hot path
+     * skip creating the event, which escape analysis does not always remove.
+     * @return true if the event is enabled
+     */
+    public static boolean isRecording() {
+        return PROBE.isEnabled();
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public void setFeatureCount(int featureCount) {
+        this.featureCount = featureCount;
+    }
+
+    public void setValid(boolean valid) {
+        this.valid = valid;
+    }
+}
@@ -0,0 +1,56 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event around encoding a document, i.e. {@code Document.save()}
+ * and {@code Document.writeTo()}.
+ */
+@Name("car.management.DocumentSave")
+@Label("Document Save")
+@Category({"Car Management", "Documents"})
+@Description("Encoding of a document into its output format")
+public final class DocumentSaveEvent extends Event {
+
+    @Label("Format")
+    String formatKey;
+
+    @Label("Order ID")
+    String orderId;
+
+    @Label("Title")
+    String title;
+
+    @Label("Content Length")
+    @Description("Document content length in characters")
+    long contentLength;
+
+    @Label("Output Bytes")
+    @DataAmount
+    long outputBytes;
+
+    public void setFormatKey(String formatKey) {
+        this.formatKey = formatKey;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public void setContentLength(long contentLength) {
+        this.contentLength = contentLength;
+    }
+
+    public void setOutputBytes(long outputBytes) {
+        this.outputBytes = outputBytes;
+    }
+}
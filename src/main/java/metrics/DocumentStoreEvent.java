@@ -0,0 +1,48 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event around writing a document to disk, including the
+ * encoding when the document streams into the file.
+ */
+@Name("car.management.DocumentStore")
+@Label("Document Store")
+@Category({"Car Management", "Storage"})
+@Description("Writing of a document file")
+public final class DocumentStoreEvent extends Event {
+
+    @Label("Format")
+    String formatKey;
+
+    @Label("Order ID")
+    String orderId;
+
+    @Label("Path")
+    String path;
+
+    @Label("Output Bytes")
+    @DataAmount
+    long outputBytes;
+
+    public void setFormatKey(String formatKey) {
+        this.formatKey = formatKey;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public void setOutputBytes(long outputBytes) {
+        this.outputBytes = outputBytes;
+    }
+}
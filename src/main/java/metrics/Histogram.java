@@ -0,0 +1,160 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative values over fixed logarithmic buckets.
+ * <p>
+ * Every power of two is split into {@code 2^subBucketBits} buckets. The default
+ * of two bits (four sub-buckets per power of two) keeps a reported value within
+ * 25% of the recorded one across the whole {@code long} range, which is enough
+ * for the always-on metrics; a measurement harness should use at least seven
+ * bits (under 1%). Recording updates three {@link LongAdder}s (bucket, count
+ * and sum) and a max accumulator and never allocates.
+ */
+public final class Histogram {
+
+    static final int DEFAULT_SUB_BUCKET_BITS = 2;
+    static final int MAX_SUB_BUCKET_BITS = 14;
+    static final int BUCKET_COUNT = bucketCount(DEFAULT_SUB_BUCKET_BITS);
+
+    private final int subBucketBits;
+    private final LongAdder[] buckets;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public Histogram() {
+        this(DEFAULT_SUB_BUCKET_BITS);
+    }
+
+    /**
+     * Creates a histogram splitting every power of two into
+     * {@code 2^subBucketBits} buckets, so reported values are within
+     * {@code 1 / 2^subBucketBits} of the recorded ones.
+     * @param subBucketBits between 1 and 14
+     */
+    public Histogram(int subBucketBits) {
+        if (subBucketBits < 1 || subBucketBits > MAX_SUB_BUCKET_BITS) {
+            throw new IllegalArgumentException("subBucketBits must be between 1 and " + MAX_SUB_BUCKET_BITS
+                    + ": " + subBucketBits);
+        }
+        this.subBucketBits = subBucketBits;
+        this.buckets = new LongAdder[bucketCount(subBucketBits)];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one value; negative values are counted as zero.
+     * @param value the value to record
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        buckets[bucketIndex(v, subBucketBits)].increment();
+        count.increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Estimates a percentile from the bucket counts.
+     * @param percentile between 0 and 100
+     * @return the upper bound of the bucket holding the percentile, capped at
+     *         the maximum recorded value; 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100: " + percentile);
+        }
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i, subBucketBits), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Clears all recorded values. Values recorded concurrently may be lost.
+     */
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    static int bucketIndex(long value) {
+        return bucketIndex(value, DEFAULT_SUB_BUCKET_BITS);
+    }
+
+    static long lowerBound(int index) {
+        return lowerBound(index, DEFAULT_SUB_BUCKET_BITS);
+    }
+
+    static long upperBound(int index) {
+        return upperBound(index, DEFAULT_SUB_BUCKET_BITS);
+    }
+
+    static int bucketCount(int bits) {
+        return bucketIndex(Long.MAX_VALUE, bits) + 1;
+    }
+
+    static int bucketIndex(long value, int bits) {
+        int subBuckets = 1 << bits;
+        if (value < subBuckets) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - bits)) & (subBuckets - 1);
+        return (exponent - bits + 1) * subBuckets + sub;
+    }
+
+    static long lowerBound(int index, int bits) {
+        int subBuckets = 1 << bits;
+        if (index < subBuckets) {
+            return index;
+        }
+        int exponent = index / subBuckets + bits - 1;
+        long sub = index % subBuckets;
+        return (subBuckets + sub) << (exponent - bits);
+    }
+
+    static long upperBound(int index, int bits) {
+        return index == bucketCount(bits) - 1 ? Long.MAX_VALUE : lowerBound(index + 1, bits) - 1;
+    }
+}
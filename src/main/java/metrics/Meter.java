@@ -0,0 +1,87 @@
+package metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free event rate meter: a total count plus a one-minute exponentially
+ * weighted moving average, updated in five-second ticks.
+ * <p>
+ * Ticks are applied lazily by whichever thread marks or reads the meter first
+ * after a tick boundary; a compare-and-set on the tick time makes sure each
+ * interval is folded in once.
+ */
+public final class Meter {
+
+    static final long TICK_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final double ALPHA = 1 - Math.exp(-5.0 / 60.0);
+    private static final int MAX_CATCH_UP_TICKS = 120;
+
+    private final LongSupplier clock;
+    private final long started;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder uncounted = new LongAdder();
+    private final AtomicLong lastTick;
+    private volatile double ratePerNano;
+    private volatile boolean initialized;
+
+    public Meter() {
+        this(System::nanoTime);
+    }
+
+    Meter(LongSupplier clock) {
+        this.clock = clock;
+        this.started = clock.getAsLong();
+        this.lastTick = new AtomicLong(started);
+    }
+
+    /**
+     * Records {@code n} events.
+     * @param n number of events
+     */
+    public void mark(long n) {
+        tickIfNecessary();
+        count.add(n);
+        uncounted.add(n);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /** @return events per second over roughly the last minute */
+    public double getOneMinuteRate() {
+        tickIfNecessary();
+        return ratePerNano * TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /** @return events per second since the meter was created */
+    public double getMeanRate() {
+        long elapsed = clock.getAsLong() - started;
+        return elapsed <= 0 ? 0 : count.sum() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+
+    private void tickIfNecessary() {
+        long last = lastTick.get();
+        long now = clock.getAsLong();
+        long ticks = (now - last) / TICK_NANOS;
+        if (ticks > 0 && lastTick.compareAndSet(last, last + ticks * TICK_NANOS)) {
+            tick(uncounted.sumThenReset());
+            for (long i = 1; i < Math.min(ticks, MAX_CATCH_UP_TICKS); i++) {
+                tick(0);
+            }
+        }
+    }
+
+    private void tick(long events) {
+        double instantRate = (double) events / TICK_NANOS;
+        if (initialized) {
+            ratePerNano += ALPHA * (instantRate - ratePerNano);
+        } else {
+            ratePerNano = instantRate;
+            initialized = true;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package metrics;
+
+import java.util.Map;
+
+/**
+ * Management view of the {@link MetricsRegistry}, registered with the platform
+ * MBean server as {@value MetricsRegistry#OBJECT_NAME}.
+ * Per-format values are keyed by document format.
+ */
+public interface MetricsMXBean {
+
+    Map<String, Long> getDocumentsCreated();
+
+    Map<String, Long> getDocumentsSaved();
+
+    Map<String, Long> getOutputBytes();
+
+    Map<String, Long> getOutputBytesMax();
+
+    Map<String, Double> getSaveLatencyMeanMillis();
+
+    Map<String, Double> getSaveLatencyP50Millis();
+
+    Map<String, Double> getSaveLatencyP99Millis();
+
+    Map<String, Double> getSaveLatencyMaxMillis();
+
+    /** @return failed car validations keyed by reason, e.g. {@code missing_engine} */
+    Map<String, Long> getValidationFailures();
+
+    /** @return document cache hits, misses and evictions keyed by event, e.g. {@code heap_hit} */
+    Map<String, Long> getDocumentCacheEvents();
+
+    long getOrdersPlaced();
+
+    /** @return orders placed per second over roughly the last minute */
+    double getOrderRatePerSecond();
+
+    /** @return orders placed per second since start-up */
+    double getOrderMeanRatePerSecond();
+
+    /**
+     * Clears the counters and histograms; the order rate is kept.
+     */
+    void reset();
+}
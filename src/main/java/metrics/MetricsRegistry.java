@@ -0,0 +1,233 @@
+package metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Process-wide counters and histograms for the document and order hot paths.
+ * <p>
+ * Recording is lock-free and does not allocate once a format or failure
+ * reason has been seen: values go into {@link LongAdder}s and fixed-bucket
+ * {@link Histogram}s. Reading assembles maps for the management view.
+ */
+public final class MetricsRegistry implements MetricsMXBean {
+
+    public static final String OBJECT_NAME = "car.management:type=Metrics";
+
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final Map<String, FormatMetrics> formats = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> validationFailures = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> cacheEvents = new ConcurrentHashMap<>();
+    private final Meter orders = new Meter();
+
+    /**
+     * Gets the registry the application records into.
+     * @return the shared registry
+     */
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Registers this registry with the platform MBean server, so JConsole and
+     * JMX agents can read it. Registering twice is a no-op.
+     * @return the object name it is registered under
+     * @throws IllegalStateException if the registration fails
+     */
+    public ObjectName registerPlatformMBean() {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            try {
+                server.registerMBean(this, name);
+            } catch (InstanceAlreadyExistsException ex) {
+                // already exported
+            }
+            return name;
+        } catch (JMException ex) {
+            throw new IllegalStateException("Failed to register metrics MBean", ex);
+        }
+    }
+
+    public void recordDocumentCreated(String formatKey) {
+        format(formatKey).created.increment();
+    }
+
+    /**
+     * Records one encoded document.
+     * @param formatKey the document format
+     * @param nanos time spent encoding
+     * @param bytes size of the encoded output
+     */
+    public void recordSave(String formatKey, long nanos, long bytes) {
+        FormatMetrics metrics = format(formatKey);
+        metrics.saveLatency.record(nanos);
+        metrics.outputBytes.record(bytes);
+    }
+
+    /**
+     * Records a rejected car configuration.
+     * @param reason a short, stable reason key such as {@code missing_engine}
+     */
+    public void recordValidationFailure(String reason) {
+        counter(validationFailures, reason).increment();
+    }
+
+    /**
+     * Records a document cache lookup outcome or eviction.
+     * @param event a short, stable event key such as {@code heap_hit}
+     */
+    public void recordCacheEvent(String event) {
+        counter(cacheEvents, event).increment();
+    }
+
+    public void recordOrdersPlaced(int count) {
+        orders.mark(count);
+    }
+
+    /**
+     * Gets the save latency histogram of a format, in nanoseconds.
+     * @param formatKey the document format
+     * @return the histogram, empty if nothing was recorded yet
+     */
+    public Histogram saveLatency(String formatKey) {
+        return format(formatKey).saveLatency;
+    }
+
+    /**
+     * Gets the output size histogram of a format, in bytes.
+     * @param formatKey the document format
+     * @return the histogram, empty if nothing was recorded yet
+     */
+    public Histogram outputBytes(String formatKey) {
+        return format(formatKey).outputBytes;
+    }
+
+    @Override
+    public Map<String, Long> getDocumentsCreated() {
+        return perFormat(metrics -> metrics.created.sum());
+    }
+
+    @Override
+    public Map<String, Long> getDocumentsSaved() {
+        return perFormat(metrics -> metrics.saveLatency.getCount());
+    }
+
+    @Override
+    public Map<String, Long> getOutputBytes() {
+        return perFormat(metrics -> metrics.outputBytes.getSum());
+    }
+
+    @Override
+    public Map<String, Long> getOutputBytesMax() {
+        return perFormat(metrics -> metrics.outputBytes.getMax());
+    }
+
+    @Override
+    public Map<String, Double> getSaveLatencyMeanMillis() {
+        return perFormatMillis(metrics -> metrics.saveLatency.getMean());
+    }
+
+    @Override
+    public Map<String, Double> getSaveLatencyP50Millis() {
+        return perFormatMillis(metrics -> metrics.saveLatency.getPercentile(50));
+    }
+
+    @Override
+    public Map<String, Double> getSaveLatencyP99Millis() {
+        return perFormatMillis(metrics -> metrics.saveLatency.getPercentile(99));
+    }
+
+    @Override
+    public Map<String, Double> getSaveLatencyMaxMillis() {
+        return perFormatMillis(metrics -> metrics.saveLatency.getMax());
+    }
+
+    @Override
+    public Map<String, Long> getValidationFailures() {
+        return sums(validationFailures);
+    }
+
+    @Override
+    public Map<String, Long> getDocumentCacheEvents() {
+        return sums(cacheEvents);
+    }
+
+    @Override
+    public long getOrdersPlaced() {
+        return orders.getCount();
+    }
+
+    @Override
+    public double getOrderRatePerSecond() {
+        return orders.getOneMinuteRate();
+    }
+
+    @Override
+    public double getOrderMeanRatePerSecond() {
+        return orders.getMeanRate();
+    }
+
+    @Override
+    public void reset() {
+        for (FormatMetrics metrics : formats.values()) {
+            metrics.created.reset();
+            metrics.saveLatency.reset();
+            metrics.outputBytes.reset();
+        }
+        validationFailures.values().forEach(LongAdder::reset);
+        cacheEvents.values().forEach(LongAdder::reset);
+    }
+
+    private static LongAdder counter(Map<String, LongAdder> counters, String key) {
+        LongAdder counter = counters.get(key);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(key, ignored -> new LongAdder());
+        }
+        return counter;
+    }
+
+    private static Map<String, Long> sums(Map<String, LongAdder> counters) {
+        Map<String, Long> result = new TreeMap<>();
+        counters.forEach((key, counter) -> result.put(key, counter.sum()));
+        return result;
+    }
+
+    private FormatMetrics format(String formatKey) {
+        FormatMetrics metrics = formats.get(formatKey);
+        if (metrics == null) {
+            metrics = formats.computeIfAbsent(formatKey, key -> new FormatMetrics());
+        }
+        return metrics;
+    }
+
+    private Map<String, Long> perFormat(ToLongFunction<FormatMetrics> value) {
+        Map<String, Long> result = new TreeMap<>();
+        formats.forEach((format, metrics) -> result.put(format, value.applyAsLong(metrics)));
+        return result;
+    }
+
+    private Map<String, Double> perFormatMillis(ToDoubleFunction<FormatMetrics> nanos) {
+        Map<String, Double> result = new TreeMap<>();
+        formats.forEach((format, metrics) -> result.put(format, nanos.applyAsDouble(metrics) / NANOS_PER_MILLI));
+        return result;
+    }
+
+    private static final class FormatMetrics {
+
+        final LongAdder created = new LongAdder();
+        final Histogram saveLatency = new Histogram();
+        final Histogram outputBytes = new Histogram();
+    }
+}
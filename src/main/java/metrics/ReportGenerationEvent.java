@@ -0,0 +1,40 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event around rendering a car report into text or a document.
+ */
+@Name("car.management.ReportGeneration")
+@Label("Report Generation")
+@Category({"Car Management", "Documents"})
+@Description("Rendering of a car configuration report")
+public final class ReportGenerationEvent extends Event {
+
+    @Label("Format")
+    @Description("Target document format, or empty for plain text")
+    String formatKey;
+
+    @Label("Order ID")
+    String orderId;
+
+    @Label("Content Length")
+    @Description("Report length in characters")
+    long contentLength;
+
+    public void setFormatKey(String formatKey) {
+        this.formatKey = formatKey;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    public void setContentLength(long contentLength) {
+        this.contentLength = contentLength;
+    }
+}
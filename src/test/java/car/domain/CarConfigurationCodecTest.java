@@ -0,0 +1,45 @@
+package car.domain;
+
+import car.builder.CarBuilder;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarConfigurationCodecTest {
+
+    @Test
+    void encodeAndDecodeShouldRoundTrip() {
+        Car car = new CarBuilder()
+                .withModel(CarModel.SUV)
+                .withEngine(EngineType.V8)
+                .withTransmission(TransmissionType.AUTOMATIC)
+                .setColor(Color.SILVER)
+                .addInteriorFeatures(InteriorFeature.LEATHER, InteriorFeature.GPS)
+                .addExteriorFeature(ExteriorFeature.SUNROOF)
+                .addSafetyFeatures(SafetyFeature.ABS, SafetyFeature.REAR_CAMERA)
+                .build();
+
+        int code = CarConfigurationCodec.encode(car);
+
+        assertEquals(car, CarConfigurationCodec.decode(code));
+    }
+
+    @Test
+    void everyCodeShouldDecodeAndReEncodeToItself() {
+        for (int code = 0; code < CarConfigurationCodec.CARDINALITY; code++) {
+            assertEquals(code, CarConfigurationCodec.encode(CarConfigurationCodec.decode(code)));
+        }
+    }
+
+    @Test
+    void decodeShouldReturnCachedInstances() {
+        assertSame(CarConfigurationCodec.decode(42), CarConfigurationCodec.decode(42));
+    }
+
+    @Test
+    void decodeShouldRejectOutOfRangeCodes() {
+        assertThrows(IllegalArgumentException.class, () -> CarConfigurationCodec.decode(-1));
+        assertThrows(IllegalArgumentException.class,
+                () -> CarConfigurationCodec.decode(CarConfigurationCodec.CARDINALITY));
+    }
+}
@@ -8,6 +8,20 @@ import editor.formats.HtmlDocument;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -139,6 +153,131 @@ class DocumentFactoryTest {
         assertNotNull(factory.createDocument("html", "Test"));
     }
     
+    @Test
+    @DisplayName("Lazily registered provider should be created on first use only")
+    void lazyProviderShouldBeCreatedOnFirstUse() {
+        AtomicInteger created = new AtomicInteger();
+        factory.register("PDF", () -> {
+            created.incrementAndGet();
+            return new PdfDocumentProvider();
+        });
+        
+        assertTrue(factory.supportsFormat("pdf"));
+        assertEquals(0, created.get());
+        
+        assertTrue(factory.createDocument("pdf", "One") instanceof PdfDocument);
+        assertTrue(factory.createDocument("Pdf", "Two") instanceof PdfDocument);
+        assertEquals(1, created.get());
+    }
+    
+    @Test
+    @DisplayName("Lazy provider for the wrong format should be rejected on first use")
+    void lazyProviderForWrongFormatShouldBeRejected() {
+        factory.register("pdf", HtmlDocumentProvider::new);
+        
+        assertThrows(IllegalStateException.class, () -> factory.createDocument("pdf", "Test"));
+        assertThrows(IllegalArgumentException.class, () -> factory.register("pdf", null));
+    }
+    
+    @Test
+    @DisplayName("Warm-up should initialize the selected engines in the background")
+    void warmUpShouldRunInTheBackground() throws Exception {
+        AtomicInteger warmedUp = new AtomicInteger();
+        factory.register("html", () -> new HtmlDocumentProvider() {
+            @Override
+            public void warmUp() {
+                warmedUp.incrementAndGet();
+            }
+        });
+        
+        factory.warmUp("HTML").get(10, TimeUnit.SECONDS);
+        
+        assertEquals(1, warmedUp.get());
+        assertThrows(UnknownDocumentFormatException.class, () -> factory.warmUp("rtf"));
+    }
+    
+    @Test
+    @DisplayName("Warm-up failure should complete the future exceptionally")
+    void warmUpFailureShouldBeReported() {
+        factory.register(new HtmlDocumentProvider() {
+            @Override
+            public void warmUp() {
+                throw new IllegalStateException("engine missing");
+            }
+        });
+        
+        CompletableFuture<Void> warmUp = factory.warmUp("html");
+        
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> warmUp.get(10, TimeUnit.SECONDS));
+        assertEquals("engine missing", ex.getCause().getMessage());
+    }
+    
+    @Test
+    @DisplayName("Default engines should warm up")
+    void defaultEnginesShouldWarmUp() throws Exception {
+        factory = DocumentFactory.createDefault();
+        
+        factory.warmUp("pdf", "word", "html").get(60, TimeUnit.SECONDS);
+        
+        assertTrue(factory.createDocument("pdf", "Test").save().length > 0);
+    }
+    
+    @Test
+    @DisplayName("Providers listed as services should be discovered")
+    void shouldDiscoverServiceProviders(@TempDir Path classpath) throws Exception {
+        Path services = classpath.resolve("META-INF/services");
+        Files.createDirectories(services);
+        Files.writeString(services.resolve(DocumentProvider.class.getName()),
+                "# discovered by ServiceLoader\n" + DiscoveredProvider.class.getName() + "\n");
+        
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{classpath.toUri().toURL()},
+                getClass().getClassLoader())) {
+            factory.register(new PdfDocumentProvider()).registerDiscovered(loader);
+        }
+        
+        assertEquals(List.of("pdf", "html"), new ArrayList<>(factory.getSupportedFormats()));
+        assertEquals("Discovered", factory.createDocument("HTML", "Discovered").getTitle());
+    }
+    
+    @Test
+    @DisplayName("Registering should not disturb concurrent lookups")
+    void registeringShouldNotDisturbConcurrentLookups() throws Exception {
+        factory.register(new HtmlDocumentProvider());
+        AtomicInteger failures = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            for (int i = 0; i < 20_000; i++) {
+                if (!factory.supportsFormat("HTML")) {
+                    failures.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 200; i++) {
+            factory.register("format" + i, HtmlDocumentProvider::new);
+        }
+        reader.join();
+        
+        assertEquals(0, failures.get());
+        assertEquals(201, factory.getSupportedFormats().size());
+        assertTrue(factory.supportsFormat("FORMAT199"));
+        assertFalse(factory.supportsFormat("format200"));
+    }
+    
+    @Test
+    @DisplayName("Lookup should not depend on the default locale")
+    void lookupShouldNotDependOnDefaultLocale() {
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr"));
+        try {
+            factory.register("WIDGET", HtmlDocumentProvider::new);
+            
+            assertEquals(Set.of("widget"), factory.getSupportedFormats());
+            assertTrue(factory.supportsFormat("WIDGET"));
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+    
     @Test
     @DisplayName("New format can be registered without modifying factory")
     void newFormatCanBeRegisteredWithoutModifyingFactory() {
@@ -190,4 +329,8 @@ class DocumentFactoryTest {
         assertTrue(doc.render().contains("# Test MD"));
         assertTrue(doc.render().contains("Hello **world**"));
     }
+    
+    /** Registered through a {@code META-INF/services} file in a test. */
+    public static class DiscoveredProvider extends HtmlDocumentProvider {
+    }
 }
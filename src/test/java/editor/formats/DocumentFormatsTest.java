@@ -1,5 +1,6 @@
 package editor.formats;
 
+import editor.core.Document;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.apache.pdfbox.pdmodel.PDDocument;
@@ -8,6 +9,9 @@ import org.apache.poi.xwpf.usermodel.XWPFDocument;
 import org.apache.poi.xwpf.usermodel.XWPFParagraph;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 
@@ -57,6 +61,27 @@ class DocumentFormatsTest {
         }
     }
     
+    @Test
+    @DisplayName("PdfDocument should paginate long content and keep wide table cells whole")
+    void pdfShouldPaginateWithoutTruncating() throws IOException {
+        StringBuilder content = new StringBuilder();
+        content.append(table("Rank\tModel\tEngine\tTransmission\tColor\tFeatures\tOrders\n"));
+        content.append(table("1\tConvertible\tElectric\tAutomatic\tSilver\tGPS, Sunroof, Heated Seats\t42\n\n"));
+        for (int i = 1; i <= 100; i++) {
+            content.append("Line ").append(i).append('\n');
+        }
+        PdfDocument pdf = new PdfDocument("Long");
+        pdf.setContent(content.toString());
+
+        try (PDDocument doc = PDDocument.load(pdf.save())) {
+            String text = new PDFTextStripper().getText(doc);
+            assertTrue(doc.getNumberOfPages() > 1);
+            assertTrue(text.contains("Transmission"));
+            assertTrue(text.contains("Convertible"));
+            assertTrue(text.contains("Line 100"));
+        }
+    }
+    
     // Word Document Tests
     
     @Test
@@ -137,6 +162,66 @@ class DocumentFormatsTest {
         assertTrue(content.contains("<main>"));
     }
     
+    @Test
+    @DisplayName("HtmlDocument should lay out cell separated lines as a table")
+    void htmlShouldRenderTableBlocks() {
+        HtmlDocument html = new HtmlDocument("Table");
+        html.setContent(table("Intro\nName\tCount\nA & B\t1\nOutro"));
+
+        String saved = new String(html.save(), StandardCharsets.UTF_8);
+
+        assertTrue(saved.contains("<p>Intro</p>\n        <table>\n"));
+        assertTrue(saved.contains("<tr><th>Name</th><th>Count</th></tr>\n"));
+        assertTrue(saved.contains("<tr><td>A &amp; B</td><td>1</td></tr>\n        </table>\n"));
+        assertTrue(saved.contains("<p>Outro</p>"));
+    }
+
+    @Test
+    @DisplayName("Tabs in ordinary content should not start a table")
+    void tabsShouldNotStartTables() throws IOException {
+        String content = "Custom\ttitle\nPasted\ttext";
+        HtmlDocument html = new HtmlDocument("Tabs");
+        html.setContent(content);
+        WordDocument word = new WordDocument("Tabs");
+        word.setContent(content);
+
+        String saved = new String(html.save(), StandardCharsets.UTF_8);
+
+        assertFalse(saved.contains("<table>"));
+        assertTrue(saved.contains("<p>Custom\ttitle</p>"));
+        try (XWPFDocument doc = new XWPFDocument(new ByteArrayInputStream(word.save()))) {
+            assertTrue(doc.getTables().isEmpty());
+        }
+        PdfDocument pdf = new PdfDocument("Tabs");
+        pdf.setContent(content);
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        pdf.writeTo(encoded);
+        try (PDDocument doc = PDDocument.load(encoded.toByteArray())) {
+            assertTrue(new PDFTextStripper().getText(doc).contains("Pasted"));
+        }
+    }
+
+    @Test
+    @DisplayName("HtmlDocument encoder should stream the same bytes as save")
+    void htmlEncoderShouldMatchSave() throws IOException {
+        String[] contents = {"", "One line", table("Intro\n\nName\tCount\nA & B\t1\n\n\nOutro\n\n"),
+                table("\n\nx\ty"), "Pasted\ttext"};
+        for (String content : contents) {
+            HtmlDocument html = new HtmlDocument("T <&>");
+            html.setContent(content);
+            ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+            
+            try (Writer encoder = HtmlDocument.openEncoder("T <&>", streamed)) {
+                // arrive in uneven pieces, as from a generator
+                for (int i = 0; i < content.length(); i += 3) {
+                    encoder.write(content, i, Math.min(3, content.length() - i));
+                }
+            }
+            
+            assertArrayEquals(html.save(), streamed.toByteArray(), content);
+        }
+    }
+
     @Test
     @DisplayName("HtmlDocument should render with HTML markers")
     void htmlShouldRenderWithMarkers() {
@@ -180,6 +265,20 @@ class DocumentFormatsTest {
         assertTrue(content.contains("&gt;"));
     }
     
+    @Test
+    @DisplayName("HtmlDocument should stream the same bytes it saves")
+    void htmlWriteToShouldMatchSave() throws IOException {
+        HtmlDocument html = new HtmlDocument("Stream");
+        html.setContent("first\n\nthird & <last>\n\n");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        html.writeTo(out);
+        String written = out.toString(StandardCharsets.UTF_8);
+
+        assertArrayEquals(html.save(), out.toByteArray());
+        assertTrue(written.contains("<p>first</p>\n        <p></p>\n        <p>third &amp; &lt;last&gt;</p>\n    </div>"));
+    }
+    
     // Common tests for all documents
     
     @Test
@@ -246,4 +345,9 @@ class DocumentFormatsTest {
         assertNotEquals(pdfSaved, wordSaved);
         assertNotEquals(wordSaved, htmlSaved);
     }
+
+    /** Turns tab separated test rows into table rows. */
+    private static String table(String rows) {
+        return rows.replace('\t', Document.TABLE_CELL_SEPARATOR);
+    }
 }
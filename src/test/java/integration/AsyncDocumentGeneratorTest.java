@@ -0,0 +1,213 @@
+package integration;
+
+import car.builder.CarBuilder;
+import car.domain.*;
+import editor.core.Document;
+import editor.core.UnknownDocumentFormatException;
+import editor.factory.DocumentFactory;
+import editor.factory.DocumentProvider;
+import editor.formats.HtmlDocument;
+import integration.order.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncDocumentGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private CarManagementSystem system;
+    private Order order;
+    private AsyncDocumentGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        system = new CarManagementSystem(DocumentFactory.createDefault());
+        Car car = new CarBuilder()
+                .withModel(CarModel.SPORTS)
+                .withEngine(EngineType.V8)
+                .withTransmission(TransmissionType.MANUAL)
+                .setColor(Color.RED)
+                .build();
+        order = system.getOrderService().placeOrder(car);
+    }
+
+    @AfterEach
+    void tearDown() {
+        system.close();
+        if (generator != null) {
+            generator.close();
+        }
+    }
+
+    @Test
+    void submitShouldGenerateDocumentInMemory() throws Exception {
+        GeneratedDocument generated = system.submitConfirmation(order, "html").get(5, TimeUnit.SECONDS);
+
+        assertSame(order, generated.order());
+        assertNull(generated.path());
+        assertEquals(generated.content().length, generated.size());
+        assertTrue(new String(generated.content(), StandardCharsets.UTF_8).contains(order.getId().toString()));
+    }
+
+    @Test
+    void submitShouldWriteDocumentToOutputDirectory() throws Exception {
+        generator = new AsyncDocumentGenerator(DocumentFactory.createDefault(), tempDir);
+        system.setDocumentGenerator(generator);
+
+        GeneratedDocument generated = system.submitConfirmation(order, "html").get(5, TimeUnit.SECONDS);
+
+        assertNull(generated.content());
+        assertEquals(DocumentStorage.shardedPath(tempDir, order.getId(), "html"), generated.path());
+        assertEquals(Files.size(generated.path()), generated.size());
+    }
+
+    @Test
+    void failedAttemptsShouldBeRetried() throws Exception {
+        FlakyProvider provider = new FlakyProvider(2);
+        generator = flakyGenerator(provider, 3);
+
+        GeneratedDocument generated = generator.submit(order, FlakyProvider.KEY).get(5, TimeUnit.SECONDS);
+
+        assertEquals(3, provider.calls.get());
+        assertTrue(generated.document() instanceof HtmlDocument);
+    }
+
+    @Test
+    void exhaustedRetriesShouldFailTheFuture() {
+        FlakyProvider provider = new FlakyProvider(5);
+        generator = flakyGenerator(provider, 2);
+
+        CompletableFuture<GeneratedDocument> future = generator.submit(order, FlakyProvider.KEY);
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(ex.getCause() instanceof IllegalStateException);
+        assertEquals(2, provider.calls.get());
+    }
+
+    @Test
+    void encoderFailuresShouldBeRetried() throws Exception {
+        AtomicInteger writes = new AtomicInteger();
+        DocumentFactory factory = new DocumentFactory().register(new DocumentProvider() {
+            @Override
+            public String formatKey() {
+                return FlakyProvider.KEY;
+            }
+
+            @Override
+            public Document create(String title) {
+                return new HtmlDocument(title) {
+                    @Override
+                    protected void encode(OutputStream out) throws IOException {
+                        if (writes.incrementAndGet() == 1) {
+                            throw new IOException("encoder failure");
+                        }
+                        super.encode(out);
+                    }
+                };
+            }
+        });
+        generator = new AsyncDocumentGenerator(factory, null, Executors.newSingleThreadExecutor(),
+                2, Duration.ofMillis(1));
+
+        GeneratedDocument generated = generator.submit(order, FlakyProvider.KEY).get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, writes.get());
+        assertTrue(new String(generated.content(), StandardCharsets.UTF_8).startsWith("<!DOCTYPE html>"));
+    }
+
+    @Test
+    void closingTheSystemShouldStopItsGenerator() {
+        AsyncDocumentGenerator created = system.getDocumentGenerator();
+        system.close();
+
+        CompletableFuture<GeneratedDocument> future = created.submit(order, "html");
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(ex.getCause() instanceof RejectedExecutionException);
+        assertNotSame(created, system.getDocumentGenerator());
+        system.close();
+    }
+
+    @Test
+    void unknownFormatShouldBeRejectedImmediately() {
+        assertThrows(UnknownDocumentFormatException.class, () -> system.submitConfirmation(order, "rtf"));
+        assertThrows(UnknownDocumentFormatException.class,
+                () -> system.enableAutomaticConfirmations("rtf", (doc, error) -> { }));
+    }
+
+    @Test
+    void closedGeneratorShouldFailNewSubmissions() {
+        generator = new AsyncDocumentGenerator(DocumentFactory.createDefault(), null);
+        generator.close();
+
+        CompletableFuture<GeneratedDocument> future = generator.submit(order, "html");
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(ex.getCause() instanceof RejectedExecutionException);
+    }
+
+    @Test
+    void automaticConfirmationsShouldFollowEveryPlacedOrder() throws Exception {
+        CompletableFuture<GeneratedDocument> delivered = new CompletableFuture<>();
+        system.enableAutomaticConfirmations("html", (doc, error) -> {
+            if (error != null) {
+                delivered.completeExceptionally(error);
+            } else {
+                delivered.complete(doc);
+            }
+        });
+
+        Order placed = system.getOrderService().placeOrder(order.getCar());
+
+        assertSame(placed, delivered.get(5, TimeUnit.SECONDS).order());
+    }
+
+    private static AsyncDocumentGenerator flakyGenerator(FlakyProvider provider, int maxAttempts) {
+        DocumentFactory factory = new DocumentFactory().register(provider);
+        return new AsyncDocumentGenerator(factory, null, Executors.newSingleThreadExecutor(),
+                maxAttempts, Duration.ofMillis(1));
+    }
+
+    private static final class FlakyProvider implements DocumentProvider {
+
+        static final String KEY = "flaky";
+
+        final AtomicInteger calls = new AtomicInteger();
+        final int failures;
+
+        FlakyProvider(int failures) {
+            this.failures = failures;
+        }
+
+        @Override
+        public String formatKey() {
+            return KEY;
+        }
+
+        @Override
+        public Document create(String title) {
+            if (calls.incrementAndGet() <= failures) {
+                throw new IllegalStateException("transient failure");
+            }
+            return new HtmlDocument(title);
+        }
+    }
+}
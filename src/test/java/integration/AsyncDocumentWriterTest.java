@@ -0,0 +1,153 @@
+package integration;
+
+import editor.formats.HtmlDocument;
+import editor.formats.PdfDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncDocumentWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writeShouldStoreDocumentInShardedLayout() throws Exception {
+        HtmlDocument document = new HtmlDocument("Async Report");
+        document.setContent("content");
+        Path root = tempDir.resolve("nested").resolve("out");
+        UUID orderId = UUID.randomUUID();
+
+        try (AsyncDocumentWriter writer = new AsyncDocumentWriter()) {
+            Path saved = writer.write(root, orderId, document).get(5, TimeUnit.SECONDS);
+
+            assertEquals(DocumentStorage.shardedPath(root, orderId, "html"), saved);
+            assertArrayEquals(document.save(), Files.readAllBytes(saved));
+        }
+    }
+
+    @Test
+    void batchedWritesShouldAllCompleteWithSyncing() throws Exception {
+        List<UUID> orderIds = new ArrayList<>();
+        List<CompletableFuture<Path>> futures = new ArrayList<>();
+        try (AsyncDocumentWriter writer = new AsyncDocumentWriter(8, 4, 3)) {
+            for (int i = 0; i < 50; i++) {
+                UUID orderId = UUID.randomUUID();
+                orderIds.add(orderId);
+                byte[] payload = ("doc " + i).getBytes(StandardCharsets.UTF_8);
+                futures.add(writer.write(tempDir, orderId, "pdf", payload));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+        }
+
+        for (int i = 0; i < 50; i++) {
+            Path saved = futures.get(i).join();
+            assertEquals(orderIds.get(i) + ".pdf", saved.getFileName().toString());
+            assertEquals("doc " + i, Files.readString(saved));
+        }
+        try (Stream<Path> files = Files.walk(tempDir)) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    void removedShardDirectoryShouldBeCreatedAgain() throws Exception {
+        UUID orderId = UUID.randomUUID();
+        byte[] payload = "report".getBytes(StandardCharsets.UTF_8);
+
+        try (AsyncDocumentWriter writer = new AsyncDocumentWriter()) {
+            Path first = writer.write(tempDir, orderId, "pdf", payload).get(5, TimeUnit.SECONDS);
+            Files.delete(first);
+            Files.delete(first.getParent());
+
+            Path second = writer.write(tempDir, orderId, "pdf", payload).get(5, TimeUnit.SECONDS);
+
+            assertEquals(first, second);
+            assertArrayEquals(payload, Files.readAllBytes(second));
+        }
+    }
+
+    @Test
+    void documentsWithTheSameTitleShouldNotOverwriteEachOther() throws Exception {
+        HtmlDocument first = new HtmlDocument("Same Title");
+        first.setContent("first");
+        HtmlDocument second = new HtmlDocument("Same Title");
+        second.setContent("second");
+
+        try (AsyncDocumentWriter writer = new AsyncDocumentWriter()) {
+            Path a = writer.write(tempDir, UUID.randomUUID(), first).get(5, TimeUnit.SECONDS);
+            Path b = writer.write(tempDir, UUID.randomUUID(), second).get(5, TimeUnit.SECONDS);
+
+            assertNotEquals(a, b);
+            assertArrayEquals(first.save(), Files.readAllBytes(a));
+            assertArrayEquals(second.save(), Files.readAllBytes(b));
+        }
+    }
+
+    @Test
+    void failedRenderShouldFailTheFutureAndWriteNothing() throws Exception {
+        PdfDocument broken = new PdfDocument("Broken") {
+            @Override
+            protected void encode(OutputStream out) throws IOException {
+                throw new IOException("encoder failure");
+            }
+        };
+
+        try (AsyncDocumentWriter writer = new AsyncDocumentWriter()) {
+            CompletableFuture<Path> failed = writer.write(tempDir, UUID.randomUUID(), broken);
+
+            ExecutionException ex = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+            assertEquals("encoder failure", ex.getCause().getMessage());
+        }
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void failedWriteShouldFailOnlyItsFuture() throws Exception {
+        Path blocker = Files.writeString(tempDir.resolve("blocker"), "not a directory");
+
+        try (AsyncDocumentWriter writer = new AsyncDocumentWriter()) {
+            CompletableFuture<Path> failed = writer.write(blocker.resolve("sub"), UUID.randomUUID(), "html", new byte[] {1});
+            CompletableFuture<Path> ok = writer.write(tempDir, UUID.randomUUID(), "html", new byte[] {2});
+
+            ExecutionException ex = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+            assertNotNull(ex.getCause());
+            assertTrue(Files.exists(ok.get(5, TimeUnit.SECONDS)));
+        }
+    }
+
+    @Test
+    void closeShouldCompletePendingWritesAndRejectNewOnes() throws Exception {
+        AsyncDocumentWriter writer = new AsyncDocumentWriter();
+        CompletableFuture<Path> pending = writer.write(tempDir, UUID.randomUUID(), "html", new byte[] {1});
+        writer.close();
+
+        assertTrue(pending.isDone());
+        assertTrue(Files.exists(pending.get()));
+        CompletableFuture<Path> rejected = writer.write(tempDir, UUID.randomUUID(), "html", new byte[] {1});
+        ExecutionException ex = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(IllegalStateException.class, ex.getCause());
+    }
+
+    @Test
+    void invalidSettingsShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new AsyncDocumentWriter(0, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new AsyncDocumentWriter(1, 1, -1));
+    }
+}
@@ -0,0 +1,123 @@
+package integration;
+
+import editor.core.UnknownDocumentFormatException;
+import editor.factory.DocumentFactory;
+import integration.order.OrderService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchRunnerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void runShouldWriteOneDocumentPerValidRow() throws IOException {
+        UUID knownId = UUID.randomUUID();
+        List<String> lines = new ArrayList<>();
+        lines.add("model,engine,transmission,color,interior,exterior,safety,orderId");
+        for (int i = 0; i < 600; i++) {
+            lines.add(i % 2 == 0 ? "SUV,V8,AUTOMATIC,BLACK,LEATHER,,ABS," : "SEDAN,V6,MANUAL,RED,,,,");
+        }
+        lines.add("SUV,V8,AUTOMATIC,,,,," + knownId);
+        lines.add("SPORTS,V6,AUTOMATIC");
+        lines.add("TRUCK,V8,AUTOMATIC");
+        Path input = Files.write(tempDir.resolve("cars.csv"), lines);
+        Path output = tempDir.resolve("out");
+        OrderService orders = new OrderService();
+
+        BatchRunner.Summary summary = new BatchRunner(orders, DocumentFactory.createDefault(), output, "html", 4, null)
+                .run(input);
+
+        assertEquals(603, summary.rows());
+        assertEquals(601, summary.documents());
+        assertEquals(2, summary.invalid());
+        assertEquals(0, summary.failed());
+        assertEquals(601, orders.getRepository().size());
+        assertTrue(summary.throughput() > 0);
+        assertTrue(summary.errors().stream().anyMatch(error -> error.startsWith("line 603: ")));
+        assertTrue(summary.errors().stream().anyMatch(error -> error.equals("line 604: unknown model 'TRUCK'")));
+        assertTrue(Files.exists(DocumentStorage.shardedPath(output, knownId, "html")));
+    }
+
+    @Test
+    void runShouldNotRetainOrdersUnlessAsked() throws IOException {
+        Path input = Files.write(tempDir.resolve("cars.csv"), Collections.nCopies(300, "SEDAN,V6,MANUAL,RED,,,,"));
+        OrderService orders = new OrderService();
+
+        BatchRunner.Summary summary = new BatchRunner(orders, DocumentFactory.createDefault(),
+                tempDir.resolve("out"), "html", 2, null, false).run(input);
+
+        assertEquals(300, summary.documents());
+        assertEquals(0, orders.getRepository().size());
+        assertEquals(300, orders.getFleetAggregates().snapshot().total());
+    }
+
+    @Test
+    void runShouldReadJsonLines() throws IOException {
+        Path input = Files.write(tempDir.resolve("cars.jsonl"), List.of(
+                "{\"model\":\"SUV\",\"engine\":\"V8\",\"transmission\":\"AUTOMATIC\"}",
+                "",
+                "{\"model\":\"SEDAN\",\"engine\":\"V6\",\"transmission\":\"MANUAL\",\"safety\":[\"AIRBAGS\"]}"));
+
+        BatchRunner.Summary summary = new BatchRunner(new OrderService(), DocumentFactory.createDefault(),
+                tempDir.resolve("out"), "pdf", 2, null).run(input);
+
+        assertEquals(2, summary.rows());
+        assertEquals(2, summary.documents());
+        assertTrue(summary.errors().isEmpty());
+    }
+
+    @Test
+    void duplicateOrderIdsShouldBeReportedAsInvalid() throws IOException {
+        UUID id = UUID.randomUUID();
+        Path input = Files.write(tempDir.resolve("cars.csv"), List.of(
+                "SUV,V8,AUTOMATIC,,,,," + id,
+                "SUV,V8,AUTOMATIC,,,,," + id));
+
+        BatchRunner.Summary summary = new BatchRunner(new OrderService(), DocumentFactory.createDefault(),
+                tempDir.resolve("out"), "html", 1, null).run(input);
+
+        assertEquals(1, summary.documents());
+        assertEquals(1, summary.invalid());
+        assertEquals("line 2: Duplicate order: " + id, summary.errors().get(0));
+    }
+
+    @Test
+    void unexpectedFailuresShouldCountEveryUnfinishedRow() throws IOException {
+        Path input = Files.write(tempDir.resolve("cars.csv"), List.of(
+                "SUV,V8,AUTOMATIC",
+                "SEDAN,V6,MANUAL",
+                "TRUCK,V8,AUTOMATIC",
+                "SUV,V8,AUTOMATIC,,,,," + UUID.randomUUID()));
+        OrderService orders = new OrderService();
+        orders.addListener(placed -> {
+            throw new IllegalStateException("listener down");
+        });
+
+        BatchRunner.Summary summary = new BatchRunner(orders, DocumentFactory.createDefault(),
+                tempDir.resolve("out"), "html", 1, null).run(input);
+
+        assertEquals(4, summary.rows());
+        assertEquals(0, summary.documents());
+        assertEquals(1, summary.invalid());
+        assertEquals(3, summary.failed());
+        assertTrue(summary.errors().contains("lines 1-4: java.lang.IllegalStateException: listener down"));
+    }
+
+    @Test
+    void unknownFormatShouldBeRejectedUpFront() {
+        assertThrows(UnknownDocumentFormatException.class, () -> new BatchRunner(new OrderService(),
+                DocumentFactory.createDefault(), tempDir, "rtf", 1, null));
+    }
+}
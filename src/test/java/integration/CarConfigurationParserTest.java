@@ -0,0 +1,101 @@
+package integration;
+
+import car.builder.InvalidCarConfigurationException;
+import car.domain.*;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarConfigurationParserTest {
+
+    private static final CarConfigurationParser.InputFormat CSV = CarConfigurationParser.InputFormat.CSV;
+    private static final CarConfigurationParser.InputFormat JSONL = CarConfigurationParser.InputFormat.JSONL;
+
+    @Test
+    void csvRowShouldBuildCar() {
+        UUID id = UUID.randomUUID();
+        CarConfigurationParser.Row row = CarConfigurationParser.parse(CSV,
+                "suv, V8 ,automatic,\"silver\",leather;gps,sunroof;sport-rims,ABS;rear camera," + id, 2);
+
+        Car car = row.builder().build();
+        assertEquals(2, row.lineNumber());
+        assertEquals(id, row.orderId());
+        assertEquals(CarModel.SUV, car.getModel());
+        assertEquals(EngineType.V8, car.getEngine());
+        assertEquals(Color.SILVER, car.getColor());
+        assertEquals(Set.of(InteriorFeature.LEATHER, InteriorFeature.GPS), car.getInteriorFeatures());
+        assertEquals(Set.of(ExteriorFeature.SUNROOF, ExteriorFeature.SPORT_RIMS), car.getExteriorFeatures());
+        assertEquals(Set.of(SafetyFeature.ABS, SafetyFeature.REAR_CAMERA), car.getSafetyFeatures());
+    }
+
+    @Test
+    void csvRowWithEmptyOptionalColumnsShouldUseDefaults() {
+        CarConfigurationParser.Row row = CarConfigurationParser.parse(CSV, "SEDAN,V6,AUTOMATIC", 1);
+
+        Car car = row.builder().build();
+        assertNull(row.orderId());
+        assertEquals(Color.BLACK, car.getColor());
+        assertTrue(car.getInteriorFeatures().isEmpty());
+    }
+
+    @Test
+    void jsonLineShouldBuildCar() {
+        CarConfigurationParser.Row row = CarConfigurationParser.parse(JSONL,
+                "{ \"model\": \"SUV\", \"engine\": \"v8\", \"transmission\": \"AUTOMATIC\", \"color\": null,"
+                        + " \"interior\": [\"LEATHER\", \"SOUND_\\u0053YSTEM\"], \"exterior\": [], \"safety\": null }", 1);
+
+        Car car = row.builder().build();
+        assertEquals(CarModel.SUV, car.getModel());
+        assertEquals(Set.of(InteriorFeature.LEATHER, InteriorFeature.SOUND_SYSTEM), car.getInteriorFeatures());
+    }
+
+    @Test
+    void jsonShouldDecodeAllSingleCharacterEscapes() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> CarConfigurationParser.parse(JSONL,
+                        "{\"model\":\"SUV\",\"engine\":\"\\b\\f\\r\\n\\t\\/\\\\\\\"\",\"transmission\":\"MANUAL\"}", 1));
+        assertEquals("unknown engine '\b\f\r\n\t/\\\"'", ex.getMessage());
+    }
+
+    @Test
+    void unknownOptionsShouldBeRejectedWithTheirName() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> CarConfigurationParser.parse(CSV, "SUV,V12,AUTOMATIC", 1));
+        assertEquals("unknown engine 'V12'", ex.getMessage());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> CarConfigurationParser.parse(CSV, "SUV,V8,AUTOMATIC,BLACK,,,,not-a-uuid", 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> CarConfigurationParser.parse(CSV, "SUV,V8,AUTOMATIC,BLACK,,,,,extra", 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> CarConfigurationParser.parse(JSONL, "{\"model\":\"SUV\",\"wheels\":\"4\"}", 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> CarConfigurationParser.parse(JSONL, "{\"model\":\"SUV\"", 1));
+    }
+
+    @Test
+    void incompatibleConfigurationShouldFailValidation() {
+        CarConfigurationParser.Row row = CarConfigurationParser.parse(CSV, "SPORTS,V6,AUTOMATIC", 1);
+
+        assertThrows(InvalidCarConfigurationException.class, () -> row.builder().build());
+    }
+
+    @Test
+    void headerCommentsAndBlankLinesShouldBeSkipped() {
+        assertTrue(CarConfigurationParser.isSkippable("model,engine,transmission"));
+        assertTrue(CarConfigurationParser.isSkippable("  # comment"));
+        assertTrue(CarConfigurationParser.isSkippable("   "));
+        assertFalse(CarConfigurationParser.isSkippable("SUV,V8,AUTOMATIC"));
+        assertFalse(CarConfigurationParser.isSkippable("{\"model\":\"SUV\"}"));
+    }
+
+    @Test
+    void inputFormatShouldFollowFileExtension() {
+        assertEquals(JSONL, CarConfigurationParser.InputFormat.forFile(Path.of("cars.JSONL")));
+        assertEquals(CSV, CarConfigurationParser.InputFormat.forFile(Path.of("cars.csv")));
+    }
+}
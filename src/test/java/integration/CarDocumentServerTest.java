@@ -0,0 +1,196 @@
+package integration;
+
+import car.builder.CarBuilder;
+import car.domain.CarModel;
+import car.domain.EngineType;
+import car.domain.TransmissionType;
+import editor.core.Document;
+import editor.factory.DocumentFactory;
+import editor.factory.DocumentProvider;
+import editor.formats.HtmlDocument;
+import integration.order.OrderService;
+import metrics.MetricsRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarDocumentServerTest {
+
+    private static final Pattern ORDER_ID = Pattern.compile("\"orderId\":\"([0-9a-f-]+)\"");
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private OrderService orderService;
+    private CarDocumentServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        orderService = new OrderService();
+        server = new CarDocumentServer(orderService, DocumentFactory.createDefault(),
+                new InetSocketAddress(0), CarDocumentServer.defaultExecutor());
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void validateShouldAcceptValidConfiguration() throws Exception {
+        HttpResponse<String> response = post("/configurations/validate", "application/json",
+                "{\"model\":\"SUV\",\"engine\":\"V8\",\"transmission\":\"AUTOMATIC\"}");
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().startsWith("{\"valid\":true"));
+        assertEquals(0, orderService.getRepository().size());
+    }
+
+    @Test
+    void validateShouldRejectInvalidConfiguration() throws Exception {
+        HttpResponse<String> unknown = post("/configurations/validate", "text/csv", "TRUCK,V8,AUTOMATIC");
+        HttpResponse<String> incomplete = post("/configurations/validate", "text/csv", "SPORTS,V6,AUTOMATIC");
+
+        assertEquals(422, unknown.statusCode());
+        assertEquals("{\"valid\":false,\"error\":\"unknown model 'TRUCK'\"}", unknown.body());
+        assertEquals(422, incomplete.statusCode());
+    }
+
+    @Test
+    void placedOrderDocumentShouldStreamInEveryFormat() throws Exception {
+        HttpResponse<String> placed = post("/orders", "text/csv", "SEDAN,V6,MANUAL,RED,,,,");
+        assertEquals(201, placed.statusCode());
+        Matcher matcher = ORDER_ID.matcher(placed.body());
+        assertTrue(matcher.find(), placed.body());
+        UUID id = UUID.fromString(matcher.group(1));
+        assertTrue(orderService.findOrder(id).isPresent());
+        assertEquals("/orders/" + id + "/document", placed.headers().firstValue("Location").orElseThrow());
+
+        HttpResponse<byte[]> html = get("/orders/" + id + "/document?format=html");
+        assertEquals(200, html.statusCode());
+        assertEquals("text/html; charset=utf-8", html.headers().firstValue("Content-Type").orElseThrow());
+        assertTrue(new String(html.body(), StandardCharsets.UTF_8).contains("Sedan"));
+
+        for (String format : new String[]{"pdf", "word"}) {
+            HttpResponse<byte[]> document = get("/orders/" + id + "/document?format=" + format);
+            assertEquals(200, document.statusCode(), format);
+            assertTrue(document.body().length > 0, format);
+            assertEquals(CarDocumentServer.contentType(format),
+                    document.headers().firstValue("Content-Type").orElseThrow());
+        }
+    }
+
+    @Test
+    void documentShouldReportUnknownOrderAndFormat() throws Exception {
+        UUID id = orderService.placeOrder(new CarBuilder()
+                .withModel(CarModel.SUV)
+                .withEngine(EngineType.V8)
+                .withTransmission(TransmissionType.AUTOMATIC)
+                .build()).getId();
+
+        assertEquals(404, get("/orders/" + UUID.randomUUID() + "/document").statusCode());
+        assertEquals(404, get("/orders/not-an-id/document").statusCode());
+        assertEquals(400, get("/orders/" + id + "/document?format=rtf").statusCode());
+    }
+
+    @Test
+    void cachedServerShouldServeRepeatedRequestsFromTheCache(@TempDir Path cacheDir) throws Exception {
+        MetricsRegistry metrics = new MetricsRegistry();
+        DocumentCache cache = DocumentCache.open(cacheDir, 1024 * 1024, 1024 * 1024, metrics);
+        UUID id = orderService.placeOrder(new CarBuilder()
+                .withModel(CarModel.SUV)
+                .withEngine(EngineType.V8)
+                .withTransmission(TransmissionType.AUTOMATIC)
+                .build()).getId();
+        server.close();
+        server = new CarDocumentServer(orderService, DocumentFactory.createDefault(),
+                new InetSocketAddress(0), CarDocumentServer.defaultExecutor(), cache);
+        server.start();
+
+        HttpResponse<byte[]> first = get("/orders/" + id + "/document?format=html");
+        HttpResponse<byte[]> second = get("/orders/" + id + "/document?format=html");
+
+        assertEquals(200, second.statusCode());
+        assertArrayEquals(first.body(), second.body());
+        assertEquals(1L, metrics.getDocumentCacheEvents().get(DocumentCache.MISS));
+        assertEquals(1L, metrics.getDocumentCacheEvents().get(DocumentCache.HEAP_HIT));
+    }
+
+    @Test
+    void encoderFailureShouldAbortTheResponse() throws Exception {
+        DocumentFactory failing = new DocumentFactory().register(new DocumentProvider() {
+            @Override
+            public String formatKey() {
+                return "html";
+            }
+
+            @Override
+            public Document create(String title) {
+                return new HtmlDocument(title) {
+                    @Override
+                    protected void encode(OutputStream out) throws IOException {
+                        out.write("<!DOCTYPE html>".getBytes(StandardCharsets.UTF_8));
+                        out.flush();
+                        throw new IOException("encoder failure");
+                    }
+                };
+            }
+        });
+        UUID id = orderService.placeOrder(new CarBuilder()
+                .withModel(CarModel.SUV)
+                .withEngine(EngineType.V8)
+                .withTransmission(TransmissionType.AUTOMATIC)
+                .build()).getId();
+        server.close();
+        server = new CarDocumentServer(orderService, failing,
+                new InetSocketAddress(0), CarDocumentServer.defaultExecutor());
+        server.start();
+
+        // without the terminating chunk the client sees a truncated body, not a short document
+        assertThrows(IOException.class, () -> get("/orders/" + id + "/document?format=html"));
+    }
+
+    @Test
+    void wrongMethodShouldBeRejected() throws Exception {
+        HttpResponse<byte[]> response = get("/orders");
+
+        assertEquals(405, response.statusCode());
+        assertEquals("POST", response.headers().firstValue("Allow").orElseThrow());
+    }
+
+    @Test
+    void jsonStringShouldEscapeControlCharacters() {
+        assertEquals("\"a\\\"b\\\\c\\n\\u0001\"", CarDocumentServer.jsonString("a\"b\\c\n\u0001"));
+    }
+
+    private HttpResponse<String> post(String path, String contentType, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<byte[]> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path)).GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+}
@@ -9,9 +9,14 @@ import editor.formats.WordDocument;
 import editor.formats.HtmlDocument;
 import integration.order.Order;
 import integration.order.OrderService;
+import integration.order.OrderStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -179,6 +184,33 @@ class CarManagementSystemTest {
         assertTrue(doc.getContent().contains(order.getId().toString()));
     }
     
+    @Test
+    @DisplayName("Should recover journaled orders on restart")
+    void shouldRecoverJournaledOrdersOnRestart(@TempDir Path journalDir) throws IOException {
+        Order kept;
+        Order cancelled;
+        try (CarManagementSystem first = new CarManagementSystem(documentFactory)) {
+            assertEquals(0, first.openJournal(journalDir));
+            kept = first.getOrderService().placeOrder(testCar);
+            cancelled = first.getOrderService().placeOrder(testCar);
+            first.getOrderService().cancelOrder(cancelled.getId());
+        }
+
+        try (CarManagementSystem second = new CarManagementSystem(documentFactory)) {
+            assertEquals(3, second.openJournal(journalDir));
+            OrderService recovered = second.getOrderService();
+
+            assertEquals(OrderStatus.PLACED, recovered.findOrder(kept.getId()).orElseThrow().getStatus());
+            assertEquals(OrderStatus.CANCELLED, recovered.findOrder(cancelled.getId()).orElseThrow().getStatus());
+            assertEquals(1, recovered.getFleetAggregates().snapshot().total());
+
+            Order placed = recovered.placeOrder(testCar);
+            assertEquals(2, recovered.getFleetAggregates().snapshot().total());
+            assertThrows(IllegalStateException.class, () -> second.openJournal(journalDir));
+            assertTrue(recovered.findOrder(placed.getId()).isPresent());
+        }
+    }
+    
     @Test
     @DisplayName("Correct document implementation should be used via factory")
     void correctDocumentImplementationShouldBeUsedViaFactory() {
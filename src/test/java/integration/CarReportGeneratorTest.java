@@ -2,12 +2,18 @@ package integration;
 
 import car.builder.CarBuilder;
 import car.domain.*;
+import editor.core.Document;
+import editor.formats.HtmlDocument;
 import integration.order.Order;
 import integration.order.OrderService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -125,4 +131,38 @@ class CarReportGeneratorTest {
         assertTrue(report.contains(order.getId().toString()));
         assertTrue(report.contains(order.getStatus().name()));
     }
+
+    @Test
+    @DisplayName("Streaming report should match generated string")
+    void writeReportShouldMatchGenerateReport() throws IOException {
+        Order order = new OrderService().placeOrder(testCar);
+        StringWriter writer = new StringWriter();
+
+        generator.writeReport(testCar, order, writer);
+
+        assertEquals(generator.generateReport(testCar, order), writer.toString());
+    }
+
+    @Test
+    @DisplayName("HTML report should stream through the encoder")
+    void writeHtmlReportShouldMatchHtmlDocument() throws IOException {
+        Order order = new OrderService().placeOrder(testCar);
+        HtmlDocument document = new HtmlDocument(generator.generateTitle(testCar));
+        document.setContent(generator.generateReport(testCar, order));
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+
+        generator.writeHtmlReport(testCar, order, streamed);
+
+        assertArrayEquals(document.save(), streamed.toByteArray());
+    }
+
+    @Test
+    @DisplayName("Report should stream into a document content sink")
+    void writeReportShouldFillDocumentContent() throws IOException {
+        Document document = new HtmlDocument("Report");
+
+        generator.writeReport(testCar, null, document);
+
+        assertEquals(generator.generateReport(testCar), document.getContent());
+    }
 }
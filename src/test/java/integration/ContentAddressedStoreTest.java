@@ -0,0 +1,170 @@
+package integration;
+
+import editor.formats.HtmlDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentAddressedStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void identicalDocumentsShouldShareOneBlob() throws IOException {
+        HtmlDocument document = new HtmlDocument("Template");
+        document.setContent("same content");
+
+        try (ContentAddressedStore store = ContentAddressedStore.open(tempDir)) {
+            String first = store.put("order-1", document);
+            String second = store.put("order-2", document);
+
+            assertEquals(first, second);
+            assertEquals(DocumentStorage.sha256Hex(document.save()), first);
+            assertEquals(2, store.size());
+            assertEquals(1, store.blobCount());
+            assertEquals(2, store.referenceCount(first));
+            assertEquals(store.find("order-1"), store.find("order-2"));
+            assertArrayEquals(document.save(), Files.readAllBytes(store.find("order-1").orElseThrow()));
+            assertEquals(Optional.of("html"), store.formatOf("order-2"));
+        }
+    }
+
+    @Test
+    void duplicatePayloadShouldNotBeWrittenAgain() throws IOException {
+        byte[] payload = "payload".getBytes(StandardCharsets.UTF_8);
+
+        try (ContentAddressedStore store = ContentAddressedStore.open(tempDir)) {
+            store.put("a", "pdf", payload);
+            Path blob = store.find("a").orElseThrow();
+            // a rewrite of the blob would replace this marker
+            Files.write(blob, new byte[] {42});
+
+            store.put("a", "pdf", payload);
+            store.put("b", "pdf", payload);
+
+            assertArrayEquals(new byte[] {42}, Files.readAllBytes(blob));
+            assertEquals(2, Files.readAllLines(tempDir.resolve("index")).size());
+            try (Stream<Path> temporary = Files.list(tempDir.resolve("tmp"))) {
+                assertEquals(0, temporary.count());
+            }
+        }
+    }
+
+    @Test
+    void blobShouldBeDeletedWithItsLastReference() throws IOException {
+        byte[] payload = "payload".getBytes(StandardCharsets.UTF_8);
+
+        try (ContentAddressedStore store = ContentAddressedStore.open(tempDir)) {
+            String hash = store.put("a", "pdf", payload);
+            store.put("b", "pdf", payload);
+            Path blob = store.find("a").orElseThrow();
+
+            assertTrue(store.remove("a"));
+            assertTrue(Files.exists(blob));
+            assertFalse(store.remove("a"));
+            assertTrue(store.remove("b"));
+
+            assertFalse(Files.exists(blob));
+            assertEquals(0, store.referenceCount(hash));
+            assertEquals(Optional.empty(), store.find("b"));
+        }
+    }
+
+    @Test
+    void replacingANameShouldReleaseItsPreviousBlob() throws IOException {
+        try (ContentAddressedStore store = ContentAddressedStore.open(tempDir)) {
+            store.put("doc", "pdf", new byte[] {1});
+            Path old = store.find("doc").orElseThrow();
+
+            store.put("doc", "pdf", new byte[] {2});
+
+            assertFalse(Files.exists(old));
+            assertEquals(1, store.blobCount());
+            assertArrayEquals(new byte[] {2}, Files.readAllBytes(store.find("doc").orElseThrow()));
+        }
+    }
+
+    @Test
+    void indexShouldSurviveReopenAndBeCompacted() throws IOException {
+        try (ContentAddressedStore store = ContentAddressedStore.open(tempDir)) {
+            store.put("keep", "pdf", new byte[] {1});
+            store.put("drop", "pdf", new byte[] {2});
+            store.remove("drop");
+        }
+        Files.writeString(tempDir.resolve("index"), "+\ttorn", StandardOpenOption.APPEND);
+
+        try (ContentAddressedStore store = ContentAddressedStore.open(tempDir)) {
+            assertEquals(1, store.size());
+            assertArrayEquals(new byte[] {1}, Files.readAllBytes(store.find("keep").orElseThrow()));
+            assertEquals(1, Files.readAllLines(tempDir.resolve("index")).size());
+        }
+    }
+
+    @Test
+    void blobsShouldUseTheContentHashLayout() throws IOException {
+        byte[] payload = "payload".getBytes(StandardCharsets.UTF_8);
+
+        try (ContentAddressedStore store = ContentAddressedStore.open(tempDir)) {
+            String hash = store.put("a", "word", payload);
+
+            assertEquals(DocumentStorage.contentPath(tempDir, hash, "word"), store.find("a").orElseThrow());
+            assertEquals(DocumentStorage.saveByContentHash(tempDir, "word", payload), store.find("a").orElseThrow());
+        }
+    }
+
+    @Test
+    void tornRecordShouldNotBeReadAsAnotherName() throws IOException {
+        try (ContentAddressedStore store = ContentAddressedStore.open(tempDir)) {
+            store.put("order", "pdf", new byte[] {1});
+            store.put("order-2", "pdf", new byte[] {2});
+            store.remove("order-2");
+        }
+        // cut the last record, "-<tab>order-2", down to "-<tab>order"
+        Path index = tempDir.resolve("index");
+        byte[] content = Files.readAllBytes(index);
+        Files.write(index, Arrays.copyOf(content, content.length - 3));
+
+        try (ContentAddressedStore store = ContentAddressedStore.open(tempDir)) {
+            assertArrayEquals(new byte[] {1}, Files.readAllBytes(store.find("order").orElseThrow()));
+            assertEquals(2, store.size());
+            store.put("order-3", "pdf", new byte[] {3});
+        }
+        try (ContentAddressedStore store = ContentAddressedStore.open(tempDir)) {
+            assertEquals(3, store.size());
+        }
+    }
+
+    @Test
+    void unreferencedBlobsShouldBeDeletedOnOpen() throws IOException {
+        byte[] payload = "orphan".getBytes(StandardCharsets.UTF_8);
+        Path orphan = DocumentStorage.saveByContentHash(tempDir, "pdf", payload);
+
+        try (ContentAddressedStore store = ContentAddressedStore.open(tempDir)) {
+            store.put("kept", "pdf", new byte[] {1});
+        }
+        try (ContentAddressedStore store = ContentAddressedStore.open(tempDir)) {
+            assertFalse(Files.exists(orphan));
+            assertTrue(Files.exists(store.find("kept").orElseThrow()));
+            assertEquals(1, store.blobCount());
+        }
+    }
+
+    @Test
+    void invalidNamesShouldBeRejected() throws IOException {
+        try (ContentAddressedStore store = ContentAddressedStore.open(tempDir)) {
+            assertThrows(IllegalArgumentException.class, () -> store.put("a\tb", "pdf", new byte[0]));
+            assertThrows(IllegalArgumentException.class, () -> store.put("", "pdf", new byte[0]));
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package integration;
+
+import editor.formats.HtmlDocument;
+import editor.formats.PdfDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentBundleTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void bundleShouldRoundTripDocumentsAndManifest() throws IOException {
+        Path file = tempDir.resolve("batch").resolve("bundle.zip");
+        HtmlDocument html = new HtmlDocument("Report");
+        html.setContent("html body");
+        PdfDocument pdf = new PdfDocument("Report");
+        pdf.setContent("pdf body");
+
+        try (DocumentBundleWriter writer = DocumentBundleWriter.create(file)) {
+            assertEquals("Report.html", writer.add(html));
+            assertEquals("Report-2.html", writer.add(html));
+            writer.add("order-1.pdf", pdf);
+            assertEquals(3, writer.size());
+        }
+
+        try (DocumentBundleReader reader = new DocumentBundleReader(file)) {
+            assertArrayEquals(html.save(), reader.readAllBytes("Report-2.html"));
+            assertTrue(reader.contains("Report.html"));
+
+            List<DocumentBundleReader.Entry> manifest = reader.manifest();
+            assertEquals(3, manifest.size());
+            assertEquals("order-1.pdf", manifest.get(2).name());
+            assertEquals("pdf", manifest.get(2).formatKey());
+            assertEquals(html.save().length, manifest.get(0).size());
+
+            // PDFBox stamps every save with a new document id, so check the
+            // PDF against what the manifest recorded rather than a second save
+            byte[] stored = reader.readAllBytes("order-1.pdf");
+            CRC32 crc = new CRC32();
+            crc.update(stored);
+            assertEquals(manifest.get(2).size(), stored.length);
+            assertEquals(manifest.get(2).crc32(), Long.toHexString(crc.getValue()));
+            assertEquals("%PDF", new String(stored, 0, 4, StandardCharsets.US_ASCII));
+            assertThrows(NoSuchElementException.class, () -> reader.open("missing.pdf"));
+        }
+    }
+
+    @Test
+    void precompressedFormatsShouldBeStored() throws IOException {
+        Path file = tempDir.resolve("bundle.zip");
+        PdfDocument pdf = new PdfDocument("Stored");
+        HtmlDocument html = new HtmlDocument("Deflated");
+
+        try (DocumentBundleWriter writer = DocumentBundleWriter.create(file)) {
+            writer.add(pdf);
+            writer.add(html);
+        }
+
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            assertEquals(ZipEntry.STORED, zip.getEntry("Stored.pdf").getMethod());
+            assertEquals(ZipEntry.DEFLATED, zip.getEntry("Deflated.html").getMethod());
+        }
+    }
+
+    @Test
+    void failedRenderShouldNotBeStoredInBundle() throws IOException {
+        Path file = tempDir.resolve("bundle.zip");
+        PdfDocument broken = new PdfDocument("Broken") {
+            @Override
+            protected void encode(OutputStream out) throws IOException {
+                throw new IOException("encoder failure");
+            }
+        };
+
+        try (DocumentBundleWriter writer = DocumentBundleWriter.create(file)) {
+            IOException failure = assertThrows(IOException.class, () -> writer.add("order-1.pdf", broken));
+            assertEquals("encoder failure", failure.getMessage());
+            assertEquals(0, writer.size());
+
+            writer.add("order-1.pdf", new PdfDocument("Fixed"));
+        }
+
+        try (DocumentBundleReader reader = new DocumentBundleReader(file)) {
+            assertEquals(1, reader.manifest().size());
+            assertEquals("%PDF", new String(reader.readAllBytes("order-1.pdf"), 0, 4, StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    void renderFailingPartwayShouldLeaveNoEntryBehind() throws IOException {
+        Path file = tempDir.resolve("bundle.zip");
+        HtmlDocument broken = new HtmlDocument("Broken") {
+            @Override
+            protected void encode(OutputStream out) throws IOException {
+                out.write("<html>".getBytes(StandardCharsets.UTF_8));
+                throw new IOException("encoder failure");
+            }
+        };
+        HtmlDocument good = new HtmlDocument("Good");
+
+        try (DocumentBundleWriter writer = DocumentBundleWriter.create(file)) {
+            assertThrows(IOException.class, () -> writer.add("a.html", broken));
+            writer.add("a.html", good);
+        }
+
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            assertEquals(2, zip.size());
+        }
+        try (DocumentBundleReader reader = new DocumentBundleReader(file)) {
+            assertEquals(1, reader.manifest().size());
+            assertArrayEquals(good.save(), reader.readAllBytes("a.html"));
+        }
+    }
+
+    @Test
+    void duplicateEntryNamesShouldBeRejected() throws IOException {
+        try (DocumentBundleWriter writer = DocumentBundleWriter.create(tempDir.resolve("bundle.zip"), false)) {
+            writer.add("a.html", new HtmlDocument("A"));
+
+            assertThrows(IllegalArgumentException.class, () -> writer.add("a.html", new HtmlDocument("A")));
+            assertThrows(IllegalArgumentException.class,
+                    () -> writer.add(DocumentBundleWriter.MANIFEST_NAME, new HtmlDocument("A")));
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package integration;
+
+import editor.core.Document;
+import editor.formats.HtmlDocument;
+import metrics.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final MetricsRegistry metrics = new MetricsRegistry();
+
+    @Test
+    void repeatedSaveShouldRenderOnce() throws IOException {
+        DocumentCache cache = DocumentCache.open(tempDir, 1024 * 1024, 1024 * 1024, metrics);
+        Document document = html("Order", "first report");
+
+        byte[] first = cache.save(document);
+        byte[] second = cache.save(document);
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        cache.writeTo(document, streamed);
+
+        assertArrayEquals(document.save(), first);
+        assertArrayEquals(first, second);
+        assertArrayEquals(first, streamed.toByteArray());
+        assertEquals(1L, events(DocumentCache.MISS));
+        assertEquals(2L, events(DocumentCache.HEAP_HIT));
+        assertEquals(first.length, cache.getHeapBytes());
+    }
+
+    @Test
+    void keyShouldCoverFormatTitleAndContent() throws IOException {
+        DocumentCache cache = DocumentCache.open(tempDir, 1024 * 1024, 1024 * 1024, metrics);
+        Document document = html("Order", "first report");
+
+        cache.save(document);
+        document.setContent("second report");
+        byte[] changed = cache.save(document);
+        cache.save(html("Other", "second report"));
+
+        assertEquals(3L, events(DocumentCache.MISS));
+        assertTrue(new String(changed).contains("second report"));
+        assertNotEquals(DocumentCache.key(html("a", "b")), DocumentCache.key(html("ab", "")));
+    }
+
+    @Test
+    void failedRenderShouldNotBeCached() throws IOException {
+        DocumentCache cache = DocumentCache.open(tempDir, 1024 * 1024, 1024 * 1024, metrics);
+        AtomicInteger failures = new AtomicInteger(1);
+        Document document = new HtmlDocument("Flaky") {
+            @Override
+            protected void encode(OutputStream out) throws IOException {
+                if (failures.getAndDecrement() > 0) {
+                    throw new IOException("encoder failure");
+                }
+                super.encode(out);
+            }
+        };
+        document.setContent("report");
+
+        UncheckedIOException failure = assertThrows(UncheckedIOException.class, () -> cache.save(document));
+        assertEquals("encoder failure", failure.getCause().getMessage());
+        assertEquals(0, cache.getHeapEntries());
+        assertEquals(0, cache.getDiskEntries());
+
+        byte[] saved = cache.save(document);
+
+        assertTrue(new String(saved, StandardCharsets.UTF_8).contains("report"));
+        assertEquals(2L, events(DocumentCache.MISS));
+        assertEquals(1, cache.getHeapEntries());
+    }
+
+    @Test
+    void heapOverflowShouldDemoteToDiskAndPromoteOnHit() throws IOException {
+        Document first = html("First", "a");
+        Document second = html("Second", "b");
+        long size = first.save().length;
+        DocumentCache cache = DocumentCache.open(tempDir, size + size / 2, 1024 * 1024, metrics);
+
+        cache.save(first);
+        cache.save(first);
+        // refused by the heap while it is requested less often than the first
+        cache.save(second);
+        cache.save(second);
+        cache.save(second);
+
+        assertEquals(2L, events(DocumentCache.DISK_HIT));
+        assertEquals(1L, events(DocumentCache.HEAP_EVICTION));
+        assertEquals(1, cache.getHeapEntries());
+        assertEquals(1, cache.getDiskEntries());
+        assertEquals(1, countFiles());
+
+        byte[] fromDisk = cache.save(first);
+
+        assertArrayEquals(first.save(), fromDisk);
+        assertEquals(3L, events(DocumentCache.DISK_HIT));
+        assertEquals(2L, events(DocumentCache.MISS));
+    }
+
+    @Test
+    void oneOffDocumentsShouldNotDisplaceAFrequentOne() throws IOException {
+        Document popular = html("Popular", "x");
+        long size = popular.save().length;
+        DocumentCache cache = DocumentCache.open(tempDir, size + size / 2, 0, metrics);
+
+        for (int i = 0; i < 5; i++) {
+            cache.save(popular);
+        }
+        for (int i = 0; i < 20; i++) {
+            cache.save(html("Scan " + i, "y"));
+        }
+        cache.save(popular);
+
+        assertEquals(5L, events(DocumentCache.HEAP_HIT));
+        assertEquals(0L, events(DocumentCache.HEAP_EVICTION));
+        assertEquals(0, cache.getDiskEntries());
+    }
+
+    @Test
+    void diskTierShouldRespectItsBudgetAndSurviveRestart() throws IOException {
+        long size = html("Doc 0", "z").save().length;
+        DocumentCache cache = DocumentCache.open(tempDir, 0, 3 * size + size / 2, metrics);
+
+        for (int i = 0; i < 5; i++) {
+            cache.save(html("Doc " + i, "z"));
+        }
+
+        assertEquals(3, cache.getDiskEntries());
+        assertEquals(2L, events(DocumentCache.DISK_EVICTION));
+        assertEquals(3, countFiles());
+
+        DocumentCache reopened = DocumentCache.open(tempDir, 0, 3 * size + size / 2, metrics);
+        reopened.save(html("Doc 4", "z"));
+
+        assertEquals(3, reopened.getDiskEntries());
+        assertEquals(3 * size, reopened.getDiskBytes());
+        assertEquals(1L, events(DocumentCache.DISK_HIT));
+    }
+
+    @Test
+    void concurrentUseShouldKeepTheTiersConsistent() throws Exception {
+        long size = html("Doc 0", "z").save().length;
+        DocumentCache cache = DocumentCache.open(tempDir, 2 * size + size / 2, 4 * size + size / 2, metrics);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int w = 0; w < 4; w++) {
+                int seed = w;
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        Document document = html("Doc " + (i * 7 + seed) % 12, "z");
+                        assertArrayEquals(document.save(), cache.save(document));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(cache.getHeapBytes() <= 2 * size + size / 2);
+        assertTrue(cache.getDiskBytes() <= 4 * size + size / 2);
+        assertEquals(cache.getDiskEntries(), countFiles());
+    }
+
+    @Test
+    void negativeBudgetShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> DocumentCache.open(tempDir, -1, 0, metrics));
+    }
+
+    @Test
+    void frequencySketchShouldCountAndAge() {
+        DocumentCache.FrequencySketch sketch = new DocumentCache.FrequencySketch(16);
+
+        for (int i = 0; i < 20; i++) {
+            sketch.increment("hot");
+        }
+        sketch.increment("cold");
+
+        assertEquals(15, sketch.frequency("hot"));
+        assertTrue(sketch.frequency("cold") >= 1);
+
+        for (int i = 0; i < 160; i++) {
+            sketch.increment("other" + i);
+        }
+
+        assertTrue(sketch.frequency("hot") < 15);
+    }
+
+    private long events(String event) {
+        return metrics.getDocumentCacheEvents().getOrDefault(event, 0L);
+    }
+
+    private long countFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(tempDir)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private static Document html(String title, String content) {
+        Document document = new HtmlDocument(title);
+        document.setContent(content);
+        return document;
+    }
+}
@@ -1,14 +1,23 @@
 package integration;
 
+import editor.formats.HtmlDocument;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 class DocumentStorageTest {
 
@@ -56,4 +65,148 @@ class DocumentStorageTest {
         assertFalse(sanitized.contains(">"));
         assertFalse(sanitized.contains("|"));
     }
+
+    @Test
+    void saveShouldStreamDocumentIntoFile() throws IOException {
+        HtmlDocument document = new HtmlDocument("Streamed Report");
+        document.setContent("line one\nline <two>");
+
+        Path saved = DocumentStorage.save(tempDir, document);
+
+        assertEquals("Streamed_Report.html", saved.getFileName().toString());
+        assertArrayEquals(document.save(), Files.readAllBytes(saved));
+    }
+
+    @Test
+    void failedRenderShouldKeepPreviousTitleBasedFile() throws IOException {
+        HtmlDocument document = new HtmlDocument("Report");
+        document.setContent("first");
+        Path saved = DocumentStorage.save(tempDir, document);
+        HtmlDocument broken = new HtmlDocument("Report") {
+            @Override
+            protected void encode(OutputStream out) throws IOException {
+                out.write("partial".getBytes(StandardCharsets.UTF_8));
+                throw new IOException("encoder failure");
+            }
+        };
+
+        assertThrows(IOException.class, () -> DocumentStorage.save(tempDir, broken));
+
+        assertArrayEquals(document.save(), Files.readAllBytes(saved));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void saveShardedShouldKeepOneFilePerOrder() throws IOException {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        HtmlDocument document = new HtmlDocument("Same Title");
+        document.setContent("first");
+
+        Path firstPath = DocumentStorage.saveSharded(tempDir, first, document);
+        document.setContent("second");
+        Path secondPath = DocumentStorage.saveSharded(tempDir, second, document);
+
+        assertNotEquals(firstPath, secondPath);
+        assertEquals(first + ".html", firstPath.getFileName().toString());
+        assertEquals(tempDir, firstPath.getParent().getParent().getParent());
+        assertTrue(new String(Files.readAllBytes(firstPath), StandardCharsets.UTF_8).contains("first"));
+        assertEquals(Optional.of(secondPath), DocumentStorage.findSharded(tempDir, second, "html"));
+        assertEquals(Optional.empty(), DocumentStorage.findSharded(tempDir, UUID.randomUUID(), "html"));
+    }
+
+    @Test
+    void saveShardedShouldReplaceAtomicallyWithoutLeftovers() throws IOException {
+        UUID orderId = UUID.randomUUID();
+        HtmlDocument document = new HtmlDocument("Report");
+        document.setContent("v1");
+        DocumentStorage.saveSharded(tempDir, orderId, document);
+        document.setContent("v2");
+
+        Path saved = DocumentStorage.saveSharded(tempDir, orderId, document);
+
+        assertArrayEquals(document.save(), Files.readAllBytes(saved));
+        try (Stream<Path> files = Files.list(saved.getParent())) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void atomicWritesShouldGetDefaultPermissions() throws IOException {
+        assumeTrue(tempDir.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        Path plain = Files.createFile(tempDir.resolve("plain.html"));
+
+        Path saved = DocumentStorage.writeAtomically(tempDir.resolve("atomic.html"), out -> out.write(1));
+
+        assertEquals(Files.getPosixFilePermissions(plain), Files.getPosixFilePermissions(saved));
+    }
+
+    @Test
+    void failedWriteShouldLeaveNoTemporaryFile() throws IOException {
+        Path target = tempDir.resolve("ab").resolve("cd").resolve("doc.pdf");
+
+        assertThrows(IOException.class, () -> DocumentStorage.writeAtomically(target, out -> {
+            out.write(1);
+            throw new IOException("boom");
+        }));
+
+        assertFalse(Files.exists(target));
+        try (Stream<Path> files = Files.list(target.getParent())) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void saveByContentHashShouldStoreIdenticalPayloadOnce() throws IOException {
+        byte[] payload = "same bytes".getBytes(StandardCharsets.UTF_8);
+
+        Path first = DocumentStorage.saveByContentHash(tempDir, "pdf", payload);
+        Path second = DocumentStorage.saveByContentHash(tempDir, "pdf", payload.clone());
+
+        assertEquals(first, second);
+        String hash = DocumentStorage.sha256Hex(payload);
+        assertEquals(hash + ".pdf", first.getFileName().toString());
+        assertEquals(hash.substring(2, 4), first.getParent().getFileName().toString());
+        assertArrayEquals(payload, Files.readAllBytes(first));
+    }
+
+    @Test
+    void mapShouldExposeStoredBytes() throws IOException {
+        byte[] payload = "0123456789".getBytes(StandardCharsets.UTF_8);
+        Path saved = DocumentStorage.save(tempDir, "html", "Mapped", payload);
+
+        ByteBuffer whole = DocumentStorage.map(saved);
+        ByteBuffer range = DocumentStorage.map(saved, 7, 100);
+
+        assertTrue(whole.isReadOnly());
+        assertEquals(ByteBuffer.wrap(payload), whole);
+        assertEquals(ByteBuffer.wrap(payload, 7, 3), range);
+    }
+
+    @Test
+    void transferToShouldSendWholeAndRangedContent() throws IOException {
+        byte[] payload = "0123456789".getBytes(StandardCharsets.UTF_8);
+        Path saved = DocumentStorage.save(tempDir, "pdf", "Sent", payload);
+        ByteArrayOutputStream whole = new ByteArrayOutputStream();
+        ByteArrayOutputStream range = new ByteArrayOutputStream();
+
+        assertEquals(10, DocumentStorage.transferTo(saved, Channels.newChannel(whole)));
+        assertEquals(4, DocumentStorage.transferTo(saved, 2, 4, Channels.newChannel(range)));
+
+        assertArrayEquals(payload, whole.toByteArray());
+        assertEquals("2345", range.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void rangesOutsideTheDocumentShouldBeRejected() throws IOException {
+        Path saved = DocumentStorage.save(tempDir, "pdf", "Small", new byte[] {1, 2, 3});
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+
+        assertThrows(IllegalArgumentException.class, () -> DocumentStorage.map(saved, 3, 1));
+        assertThrows(IllegalArgumentException.class, () -> DocumentStorage.map(saved, -1, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> DocumentStorage.transferTo(saved, 0, -1, Channels.newChannel(sink)));
+    }
 }
@@ -0,0 +1,104 @@
+package integration;
+
+import car.builder.CarBuilder;
+import car.domain.*;
+import editor.core.Document;
+import editor.factory.DocumentFactory;
+import integration.order.FleetSnapshot;
+import integration.order.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for FleetReportGenerator.
+ */
+class FleetReportGeneratorTest {
+
+    private FleetReportGenerator generator;
+    private OrderService orderService;
+    private Car suv;
+    private Car sedan;
+
+    @BeforeEach
+    void setUp() {
+        generator = new FleetReportGenerator();
+        orderService = new OrderService();
+        suv = new CarBuilder()
+            .withModel(CarModel.SUV)
+            .withEngine(EngineType.V8)
+            .withTransmission(TransmissionType.AUTOMATIC)
+            .setColor(Color.BLACK)
+            .addInteriorFeature(InteriorFeature.LEATHER)
+            .build();
+        sedan = new CarBuilder()
+            .withModel(CarModel.SEDAN)
+            .withEngine(EngineType.V6)
+            .withTransmission(TransmissionType.AUTOMATIC)
+            .build();
+    }
+
+    @Test
+    @DisplayName("Report should contain totals and breakdown tables")
+    void reportShouldContainTotalsAndBreakdowns() {
+        orderService.placeOrders(List.of(suv, suv, sedan));
+
+        String report = cellsAsTabs(generator.generateReport(orderService.getFleetAggregates().snapshot()));
+
+        assertTrue(report.contains("Active orders: 3"));
+        assertTrue(report.contains("Model\tOrders\tShare\n"));
+        assertTrue(report.contains("SUV\t2\t66.7%\n"));
+        assertTrue(report.contains("Sedan\t1\t33.3%\n"));
+        assertTrue(report.contains("Leather Interior\tInterior\t2\t66.7%\n"));
+        assertFalse(report.contains("TOP CONFIGURATIONS"));
+    }
+
+    @Test
+    @DisplayName("Report should rank top configurations")
+    void reportShouldRankTopConfigurations() {
+        orderService.placeOrders(List.of(suv, sedan, suv));
+
+        String report = cellsAsTabs(generator.generateReport(orderService.getFleetAggregates().snapshot(2)));
+
+        assertTrue(report.contains("TOP CONFIGURATIONS"));
+        assertTrue(report.contains("1\tSUV\tV8 Engine\tAutomatic Transmission\tBlack\tLeather Interior\t2\n"));
+        assertTrue(report.contains("\tSedan\tV6 Engine\tAutomatic Transmission\t"));
+        assertTrue(report.contains("\t-\t1\n"));
+    }
+
+    @Test
+    @DisplayName("Empty fleet should report zero shares")
+    void emptyFleetShouldReportZeroShares() {
+        String report = cellsAsTabs(generator.generateReport(orderService.getFleetAggregates().snapshot()));
+
+        assertTrue(report.contains("Active orders: 0"));
+        assertTrue(report.contains("SUV\t0\t0.0%\n"));
+    }
+
+    @Test
+    @DisplayName("Fleet document should be generated in every format")
+    void fleetDocumentShouldBeGeneratedInEveryFormat() {
+        CarManagementSystem system = new CarManagementSystem(DocumentFactory.createDefault());
+        system.getOrderService().placeOrder(suv);
+
+        for (String format : List.of("pdf", "word", "html")) {
+            Document document = system.generateFleetDocument(format);
+            assertEquals(format, document.getFormatKey());
+            assertEquals(generator.generateTitle(), document.getTitle());
+            assertTrue(document.getContent().contains("Active orders: 1"));
+            assertTrue(document.save().length > 0);
+        }
+        String html = new String(system.generateFleetDocument("html").save());
+        assertTrue(html.contains("<table>"));
+        assertTrue(html.contains("<tr><th>Model</th><th>Orders</th><th>Share</th></tr>"));
+        assertTrue(html.contains("<tr><td>SUV</td><td>1</td><td>100.0%</td></tr>"));
+    }
+
+    private static String cellsAsTabs(String report) {
+        return report.replace(Document.TABLE_CELL_SEPARATOR, '\t');
+    }
+}
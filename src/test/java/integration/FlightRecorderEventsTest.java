@@ -0,0 +1,123 @@
+package integration;
+
+import car.builder.CarBuilder;
+import car.builder.InvalidCarConfigurationException;
+import car.domain.Car;
+import car.domain.CarModel;
+import car.domain.EngineType;
+import car.domain.InteriorFeature;
+import car.domain.TransmissionType;
+import editor.core.Document;
+import editor.factory.DocumentFactory;
+import integration.order.Order;
+import integration.order.OrderService;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecorderEventsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void generationStagesShouldEmitEventsWithTheirFields() throws Exception {
+        Path dump = tempDir.resolve("stages.jfr");
+        Order order;
+        Path stored;
+        try (Recording recording = new Recording()) {
+            for (String name : List.of("CarBuild", "ReportGeneration", "DocumentSave", "DocumentStore")) {
+                recording.enable("car.management." + name).withoutThreshold();
+            }
+            recording.start();
+
+            Car car = new CarBuilder()
+                    .withModel(CarModel.SUV)
+                    .withEngine(EngineType.V8)
+                    .withTransmission(TransmissionType.AUTOMATIC)
+                    .addInteriorFeature(InteriorFeature.GPS)
+                    .build();
+            assertThrows(InvalidCarConfigurationException.class, () -> new CarBuilder().build());
+            order = new OrderService().placeOrder(car);
+            CarReportGenerator generator = new CarReportGenerator();
+            Document document = DocumentFactory.createDefault().createDocument("html", generator.generateTitle(car));
+            generator.writeReport(car, order, document);
+            stored = DocumentStorage.saveSharded(tempDir, order.getId(), document);
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        List<RecordedEvent> builds = named(events, "car.management.CarBuild");
+        assertEquals(2, builds.size());
+        assertTrue(builds.stream().anyMatch(e -> e.getBoolean("valid") && "SUV".equals(e.getString("model"))
+                && e.getInt("featureCount") == 1));
+        assertTrue(builds.stream().anyMatch(e -> !e.getBoolean("valid") && e.getString("model") == null));
+
+        RecordedEvent report = single(events, "car.management.ReportGeneration");
+        assertEquals("html", report.getString("formatKey"));
+        assertEquals(order.getId().toString(), report.getString("orderId"));
+        assertTrue(report.getLong("contentLength") > 0);
+
+        RecordedEvent save = single(events, "car.management.DocumentSave");
+        assertEquals("html", save.getString("formatKey"));
+        assertEquals(order.getId().toString(), save.getString("orderId"));
+        assertEquals(Files.size(stored), save.getLong("outputBytes"));
+        assertEquals(report.getLong("contentLength"), save.getLong("contentLength"));
+
+        RecordedEvent store = single(events, "car.management.DocumentStore");
+        assertEquals(order.getId().toString(), store.getString("orderId"));
+        assertEquals(stored.toString(), store.getString("path"));
+        assertEquals(Files.size(stored), store.getLong("outputBytes"));
+        assertFalse(store.getDuration().isNegative());
+    }
+
+    @Test
+    void streamedHtmlReportShouldEmitSaveEvent() throws Exception {
+        Path dump = tempDir.resolve("streamed.jfr");
+        Order order;
+        ByteArrayOutputStream html = new ByteArrayOutputStream();
+        try (Recording recording = new Recording()) {
+            recording.enable("car.management.DocumentSave").withoutThreshold();
+            recording.start();
+
+            Car car = new CarBuilder()
+                    .withModel(CarModel.SEDAN)
+                    .withEngine(EngineType.V6)
+                    .withTransmission(TransmissionType.MANUAL)
+                    .build();
+            order = new OrderService().placeOrder(car);
+            new CarReportGenerator().writeHtmlReport(car, order, html);
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        RecordedEvent save = single(RecordingFile.readAllEvents(dump), "car.management.DocumentSave");
+        assertEquals("html", save.getString("formatKey"));
+        assertEquals(order.getId().toString(), save.getString("orderId"));
+        assertEquals(html.size(), save.getLong("outputBytes"));
+        assertTrue(save.getLong("contentLength") > 0);
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(name)).collect(Collectors.toList());
+    }
+
+    private static RecordedEvent single(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matching = named(events, name);
+        assertEquals(1, matching.size(), name);
+        return matching.get(0);
+    }
+}
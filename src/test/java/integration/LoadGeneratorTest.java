@@ -0,0 +1,134 @@
+package integration;
+
+import car.domain.Car;
+import car.domain.CarModel;
+import editor.core.Document;
+import editor.core.UnknownDocumentFormatException;
+import editor.factory.DocumentFactory;
+import editor.factory.DocumentProvider;
+import editor.formats.HtmlDocument;
+import integration.order.OrderService;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadGeneratorTest {
+
+    @Test
+    void closedLoopShouldPlaceAndReleaseOneOrderPerOperation() throws InterruptedException {
+        OrderService orders = new OrderService();
+        LoadGenerator generator = new LoadGenerator(orders, DocumentFactory.createDefault(),
+                new LoadGenerator.Settings(2, 0, Duration.ofMillis(300), LoadGenerator.Distribution.UNIFORM,
+                        List.of("html", "pdf"), 42));
+
+        LoadGenerator.Report report = generator.run();
+
+        assertTrue(report.operations() > 0);
+        assertEquals(0, report.errors());
+        assertEquals(report.operations(), orders.getFleetAggregates().snapshot().total());
+        assertEquals(0, orders.getRepository().size());
+        assertEquals(List.of("html", "pdf"), report.formats().stream().map(LoadGenerator.FormatResult::formatKey)
+                .toList());
+        assertEquals(report.operations(), report.formats().stream()
+                .mapToLong(LoadGenerator.FormatResult::operations).sum());
+        assertTrue(report.format().contains("Closed loop"));
+    }
+
+    @Test
+    void targetRateShouldScheduleOperationsAndOrderPercentiles() throws InterruptedException {
+        LoadGenerator generator = new LoadGenerator(new OrderService(), DocumentFactory.createDefault(),
+                new LoadGenerator.Settings(4, 200, Duration.ofMillis(500), LoadGenerator.Distribution.SKEWED,
+                        List.of("html"), 7));
+
+        LoadGenerator.Report report = generator.run();
+
+        // 200 ops/s for half a second schedules exactly 100 operations
+        assertEquals(100, report.operations() + report.errors());
+        LoadGenerator.FormatResult html = report.formats().get(0);
+        assertTrue(html.p50().compareTo(html.p99()) <= 0);
+        assertTrue(html.p99().compareTo(html.p999()) <= 0);
+        assertTrue(html.p999().compareTo(html.max()) <= 0);
+        assertTrue(report.format().contains("Target rate 200 ops/s"));
+    }
+
+    @Test
+    void failuresShouldBeCountedPerFormat() throws InterruptedException {
+        DocumentFactory factory = DocumentFactory.createDefault().register(new DocumentProvider() {
+            @Override
+            public String formatKey() {
+                return "broken";
+            }
+
+            @Override
+            public Document create(String title) {
+                return new HtmlDocument(title) {
+                    @Override
+                    protected void encode(OutputStream out) throws IOException {
+                        throw new IOException("encoder failure");
+                    }
+                };
+            }
+        });
+        LoadGenerator generator = new LoadGenerator(new OrderService(), factory,
+                new LoadGenerator.Settings(1, 200, Duration.ofMillis(100), LoadGenerator.Distribution.UNIFORM,
+                        List.of("html", "broken"), 3));
+
+        LoadGenerator.Report report = generator.run();
+
+        LoadGenerator.FormatResult html = report.formats().get(0);
+        LoadGenerator.FormatResult broken = report.formats().get(1);
+        assertEquals(0, html.errors());
+        assertEquals(10, html.operations());
+        assertEquals(0, broken.operations());
+        assertEquals(10, broken.errors());
+        assertEquals(10, report.errors());
+    }
+
+    @Test
+    void configurationSpaceShouldContainOnlyDistinctValidCars() {
+        Car[] cars = LoadGenerator.validConfigurations();
+        Set<Car> distinct = new HashSet<>(Arrays.asList(cars));
+
+        assertEquals(cars.length, distinct.size());
+        assertTrue(Arrays.stream(cars).anyMatch(car -> car.getModel() == CarModel.COMPACT));
+        for (Car car : cars) {
+            assertTrue(car.getModel().supportsEngine(car.getEngine()));
+            assertTrue(car.getInteriorFeatures().stream().allMatch(car.getModel()::supportsInteriorFeature));
+        }
+    }
+
+    @Test
+    void zipfDistributionShouldFavourLowRanks() {
+        double[] cdf = LoadGenerator.zipfCdf(1000);
+
+        assertEquals(1.0, cdf[cdf.length - 1], 1e-9);
+        for (int i = 1; i < cdf.length; i++) {
+            assertTrue(cdf[i] > cdf[i - 1]);
+        }
+        assertTrue(cdf[9] > 0.35, "top 10 of 1000 ranks should take over a third of the draws");
+    }
+
+    @Test
+    void invalidSettingsShouldBeRejected() {
+        DocumentFactory factory = DocumentFactory.createDefault();
+        assertThrows(UnknownDocumentFormatException.class, () -> new LoadGenerator(new OrderService(), factory,
+                new LoadGenerator.Settings(1, 0, Duration.ofSeconds(1), LoadGenerator.Distribution.UNIFORM,
+                        List.of("rtf"), 1)));
+        assertThrows(IllegalArgumentException.class, () -> new LoadGenerator.Settings(0, 0, Duration.ofSeconds(1),
+                LoadGenerator.Distribution.UNIFORM, List.of("pdf"), 1));
+        assertThrows(IllegalArgumentException.class, () -> new LoadGenerator.Settings(1, -1, Duration.ofSeconds(1),
+                LoadGenerator.Distribution.UNIFORM, List.of("pdf"), 1));
+        assertThrows(IllegalArgumentException.class, () -> new LoadGenerator.Settings(1, 0, Duration.ZERO,
+                LoadGenerator.Distribution.UNIFORM, List.of("pdf"), 1));
+        assertThrows(IllegalArgumentException.class, () -> new LoadGenerator.Settings(1, 0, Duration.ofSeconds(1),
+                LoadGenerator.Distribution.UNIFORM, List.of(), 1));
+    }
+}
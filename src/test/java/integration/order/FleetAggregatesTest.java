@@ -0,0 +1,122 @@
+package integration.order;
+
+import car.builder.CarBuilder;
+import car.domain.Car;
+import car.domain.CarModel;
+import car.domain.Color;
+import car.domain.EngineType;
+import car.domain.InteriorFeature;
+import car.domain.SafetyFeature;
+import car.domain.TransmissionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FleetAggregatesTest {
+
+    private OrderService service;
+    private Car sedan;
+    private Car suv;
+
+    @BeforeEach
+    void setUp() {
+        service = new OrderService();
+        sedan = new CarBuilder()
+                .withModel(CarModel.SEDAN)
+                .withEngine(EngineType.V6)
+                .withTransmission(TransmissionType.AUTOMATIC)
+                .setColor(Color.RED)
+                .addInteriorFeature(InteriorFeature.GPS)
+                .build();
+        suv = new CarBuilder()
+                .withModel(CarModel.SUV)
+                .withEngine(EngineType.V8)
+                .withTransmission(TransmissionType.AUTOMATIC)
+                .setColor(Color.BLACK)
+                .addInteriorFeature(InteriorFeature.GPS)
+                .addSafetyFeature(SafetyFeature.ABS)
+                .build();
+    }
+
+    @Test
+    void placedOrdersShouldBeCounted() {
+        service.placeOrder(sedan);
+        service.placeOrders(List.of(suv, suv));
+
+        FleetSnapshot snapshot = service.getFleetAggregates().snapshot();
+        assertEquals(3, snapshot.total());
+        assertEquals(1L, snapshot.byModel().get(CarModel.SEDAN));
+        assertEquals(2L, snapshot.byModel().get(CarModel.SUV));
+        assertEquals(2L, snapshot.byColor().get(Color.BLACK));
+        assertEquals(0L, snapshot.byColor().get(Color.WHITE));
+        assertEquals(2L, snapshot.byEngine().get(EngineType.V8));
+        assertEquals(3L, snapshot.byTransmission().get(TransmissionType.AUTOMATIC));
+        assertEquals(3L, snapshot.byInteriorFeature().get(InteriorFeature.GPS));
+        assertEquals(2L, snapshot.bySafetyFeature().get(SafetyFeature.ABS));
+        assertTrue(snapshot.topConfigurations().isEmpty());
+    }
+
+    @Test
+    void cancelledOrdersShouldNoLongerBeCounted() {
+        Order order = service.placeOrder(sedan);
+        Order other = service.placeOrder(sedan);
+        service.updateStatus(other.getId(), OrderStatus.CONFIRMED);
+
+        service.cancelOrder(order.getId());
+
+        FleetSnapshot snapshot = service.getFleetAggregates().snapshot();
+        assertEquals(1, snapshot.total());
+        assertEquals(1L, snapshot.byModel().get(CarModel.SEDAN));
+    }
+
+    @Test
+    void topConfigurationsShouldBeRankedByCount() {
+        service.placeOrders(List.of(suv, suv, sedan));
+
+        List<FleetSnapshot.ConfigurationCount> top = service.getFleetAggregates().snapshot(5).topConfigurations();
+
+        assertEquals(2, top.size());
+        assertEquals(CarModel.SUV, top.get(0).configuration().getModel());
+        assertEquals(2, top.get(0).count());
+        assertEquals(sedan.getColor(), top.get(1).configuration().getColor());
+        assertEquals(1, top.get(1).count());
+        assertEquals(1, service.getFleetAggregates().snapshot(1).topConfigurations().size());
+    }
+
+    @Test
+    void negativeTopConfigurationsShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new FleetAggregates().snapshot(-1));
+    }
+
+    @Test
+    void concurrentPlacementsShouldAllBeCounted() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        service.placeOrder(i % 2 == 0 ? sedan : suv);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        FleetSnapshot snapshot = service.getFleetAggregates().snapshot(1);
+        assertEquals(2000, snapshot.total());
+        assertEquals(1000L, snapshot.byModel().get(CarModel.SUV));
+        assertEquals(1000, snapshot.topConfigurations().get(0).count());
+    }
+}
@@ -0,0 +1,271 @@
+package integration.order;
+
+import car.builder.CarBuilder;
+import car.domain.Car;
+import car.domain.CarModel;
+import car.domain.EngineType;
+import car.domain.TransmissionType;
+import integration.order.OrderEventPublisher.OverflowPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderEventPublisherTest {
+
+    private Car car;
+
+    @BeforeEach
+    void setUp() {
+        car = new CarBuilder()
+                .withModel(CarModel.COMPACT)
+                .withEngine(EngineType.V6)
+                .withTransmission(TransmissionType.AUTOMATIC)
+                .build();
+    }
+
+    @Test
+    void subscriberShouldReceivePlacementAndStatusEvents() {
+        OrderService service = new OrderService();
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        service.events().subscribe(subscriber);
+
+        Order order = service.placeOrder(car);
+        service.updateStatus(order.getId(), OrderStatus.CONFIRMED);
+
+        subscriber.awaitEvents(2);
+        OrderEvent placed = subscriber.events.get(0);
+        OrderEvent confirmed = subscriber.events.get(1);
+        assertEquals(OrderEvent.Type.PLACED, placed.type());
+        assertSame(order, placed.order());
+        assertEquals(OrderEvent.Type.STATUS_CHANGED, confirmed.type());
+        assertEquals(OrderStatus.PLACED, confirmed.previousStatus());
+        assertEquals(OrderStatus.CONFIRMED, confirmed.status());
+    }
+
+    @Test
+    void eventsShouldOnlyBeDeliveredOnDemand() {
+        OrderEventPublisher publisher = directPublisher(16, OverflowPolicy.DROP);
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber);
+
+        publisher.ordersPlaced(List.of(order(), order(), order()));
+        assertTrue(subscriber.events.isEmpty());
+
+        subscriber.subscription.request(2);
+        assertEquals(2, subscriber.events.size());
+
+        subscriber.subscription.request(5);
+        assertEquals(3, subscriber.events.size());
+    }
+
+    @Test
+    void dropPolicyShouldDiscardEventsBeyondCapacity() {
+        OrderEventPublisher publisher = directPublisher(2, OverflowPolicy.DROP);
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber);
+
+        publisher.ordersPlaced(List.of(order(), order(), order(), order(), order()));
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertEquals(2, subscriber.events.size());
+        assertEquals(3, publisher.getDroppedCount());
+    }
+
+    @Test
+    void spillPolicyShouldKeepEventsBeyondCapacity() {
+        OrderEventPublisher publisher = directPublisher(2, OverflowPolicy.DROP);
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber, OverflowPolicy.SPILL);
+
+        publisher.ordersPlaced(List.of(order(), order(), order(), order(), order()));
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertEquals(5, subscriber.events.size());
+        assertEquals(3, publisher.getSpilledCount());
+        assertEquals(0, publisher.getDroppedCount());
+    }
+
+    @Test
+    void blockPolicyShouldWaitForSubscriberDemand() throws Exception {
+        ExecutorService delivery = Executors.newSingleThreadExecutor();
+        ExecutorService intake = Executors.newSingleThreadExecutor();
+        try {
+            OrderEventPublisher publisher = new OrderEventPublisher(delivery, 1, 8, OverflowPolicy.BLOCK);
+            RecordingSubscriber subscriber = new RecordingSubscriber(0);
+            publisher.subscribe(subscriber);
+
+            var publishing = intake.submit(() -> publisher.ordersPlaced(List.of(order(), order(), order())));
+            Thread.sleep(100);
+            assertFalse(publishing.isDone());
+
+            subscriber.subscription.request(Long.MAX_VALUE);
+            publishing.get(5, TimeUnit.SECONDS);
+            subscriber.awaitEvents(3);
+            assertEquals(0, publisher.getDroppedCount());
+        } finally {
+            delivery.shutdownNow();
+            intake.shutdownNow();
+        }
+    }
+
+    @Test
+    void closeShouldCompleteSubscribersAfterBufferedEvents() {
+        OrderEventPublisher publisher = directPublisher(8, OverflowPolicy.DROP);
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber);
+        publisher.ordersPlaced(List.of(order()));
+
+        publisher.close();
+        assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(1);
+        assertTrue(subscriber.completed);
+        assertEquals(1, subscriber.events.size());
+        assertEquals(0, publisher.getSubscriberCount());
+        assertThrows(IllegalStateException.class, () -> publisher.publish(OrderEvent.placed(order())));
+
+        RecordingSubscriber late = new RecordingSubscriber(1);
+        publisher.subscribe(late);
+        assertTrue(late.completed);
+    }
+
+    @Test
+    void closedPublisherShouldNotBreakOrderService() {
+        OrderService service = new OrderService();
+        OrderEventPublisher publisher = directPublisher(8, OverflowPolicy.DROP);
+        service.addListener(publisher);
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber);
+        publisher.close();
+
+        Order order = service.placeOrder(car);
+        service.cancelOrder(order.getId());
+
+        assertEquals(OrderStatus.CANCELLED, service.findOrder(order.getId()).orElseThrow().getStatus());
+        subscriber.subscription.request(1);
+        assertTrue(subscriber.events.isEmpty());
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    void nonPositiveRequestShouldSignalError() {
+        OrderEventPublisher publisher = directPublisher(8, OverflowPolicy.DROP);
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.request(0);
+
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertEquals(0, publisher.getSubscriberCount());
+    }
+
+    @Test
+    void cancelledSubscriberShouldStopReceivingEvents() {
+        OrderEventPublisher publisher = directPublisher(8, OverflowPolicy.DROP);
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(subscriber);
+        publisher.ordersPlaced(List.of(order()));
+
+        subscriber.subscription.cancel();
+        publisher.ordersPlaced(List.of(order()));
+
+        assertEquals(1, subscriber.events.size());
+        assertEquals(0, publisher.getSubscriberCount());
+    }
+
+    @Test
+    void subscriberCancellingInOnSubscribeShouldNotBeKept() {
+        OrderEventPublisher publisher = directPublisher(8, OverflowPolicy.DROP);
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE) {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                super.onSubscribe(subscription);
+                subscription.cancel();
+            }
+        };
+        publisher.subscribe(subscriber);
+
+        publisher.ordersPlaced(List.of(order()));
+
+        assertEquals(0, publisher.getSubscriberCount());
+        assertTrue(subscriber.events.isEmpty());
+    }
+
+    @Test
+    void throwingSubscriberShouldBeCancelled() {
+        OrderEventPublisher publisher = directPublisher(8, OverflowPolicy.DROP);
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE) {
+            @Override
+            public void onNext(OrderEvent item) {
+                throw new IllegalStateException("boom");
+            }
+        };
+        publisher.subscribe(subscriber);
+
+        publisher.ordersPlaced(List.of(order()));
+
+        assertEquals(0, publisher.getSubscriberCount());
+    }
+
+    private static OrderEventPublisher directPublisher(int capacity, OverflowPolicy policy) {
+        return new OrderEventPublisher(Runnable::run, capacity, 4, policy);
+    }
+
+    private Order order() {
+        return new Order(UUID.randomUUID(), car, Instant.now(), OrderStatus.PLACED);
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<OrderEvent> {
+
+        final List<OrderEvent> events = new CopyOnWriteArrayList<>();
+        final long initialRequest;
+        volatile Flow.Subscription subscription;
+        volatile boolean completed;
+        volatile Throwable error;
+
+        RecordingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialRequest > 0) {
+                subscription.request(initialRequest);
+            }
+        }
+
+        @Override
+        public void onNext(OrderEvent item) {
+            events.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+        void awaitEvents(int count) {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (events.size() < count && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            assertEquals(count, events.size());
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package integration.order;
+
+import car.builder.CarBuilder;
+import car.domain.Car;
+import car.domain.CarModel;
+import car.domain.Color;
+import car.domain.EngineType;
+import car.domain.InteriorFeature;
+import car.domain.SafetyFeature;
+import car.domain.TransmissionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Car car;
+
+    @BeforeEach
+    void setUp() {
+        car = new CarBuilder()
+                .withModel(CarModel.SUV)
+                .withEngine(EngineType.V8)
+                .withTransmission(TransmissionType.AUTOMATIC)
+                .setColor(Color.RED)
+                .addInteriorFeature(InteriorFeature.GPS)
+                .addSafetyFeature(SafetyFeature.AIRBAGS)
+                .build();
+    }
+
+    @Test
+    void appendedOrdersShouldBeReplayedWithAllFields() throws Exception {
+        Order order = new Order(UUID.randomUUID(), car, Instant.parse("2024-02-03T04:05:06.789012345Z"), OrderStatus.PLACED);
+
+        try (OrderJournal journal = OrderJournal.open(tempDir)) {
+            journal.append(order).get(5, TimeUnit.SECONDS);
+        }
+
+        List<Order> replayed = replayAll();
+        assertEquals(1, replayed.size());
+        assertEquals(order.getId(), replayed.get(0).getId());
+        assertEquals(order.getCreatedAt(), replayed.get(0).getCreatedAt());
+        assertEquals(order.getCar(), replayed.get(0).getCar());
+        assertEquals(order.getStatus(), replayed.get(0).getStatus());
+    }
+
+    @Test
+    void journalShouldRollSegmentsAndReplayInOrder() throws Exception {
+        List<Order> orders = new OrderService().placeOrders(Collections.nCopies(10, car));
+
+        try (OrderJournal journal = OrderJournal.open(tempDir, 4)) {
+            journal.appendAll(orders).get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(3, segmentFiles().size());
+        assertEquals(ids(orders), ids(replayAll()));
+    }
+
+    @Test
+    void reopenedJournalShouldContinueAfterLastRecord() throws Exception {
+        OrderService service = new OrderService();
+        List<Order> first = service.placeOrders(Collections.nCopies(3, car));
+        List<Order> second = service.placeOrders(Collections.nCopies(3, car));
+
+        try (OrderJournal journal = OrderJournal.open(tempDir, 4)) {
+            journal.appendAll(first).get(5, TimeUnit.SECONDS);
+        }
+        try (OrderJournal journal = OrderJournal.open(tempDir, 4)) {
+            journal.appendAll(second).get(5, TimeUnit.SECONDS);
+        }
+
+        List<Order> expected = new ArrayList<>(first);
+        expected.addAll(second);
+        assertEquals(ids(expected), ids(replayAll()));
+    }
+
+    @Test
+    void replayShouldStopAtCorruptedRecord() throws Exception {
+        List<Order> orders = new OrderService().placeOrders(Collections.nCopies(5, car));
+        try (OrderJournal journal = OrderJournal.open(tempDir)) {
+            journal.appendAll(orders).get(5, TimeUnit.SECONDS);
+        }
+
+        Path segment = segmentFiles().get(0);
+        flipByte(segment, OrderJournal.HEADER_SIZE + 2L * OrderJournal.RECORD_SIZE + 3);
+
+        assertEquals(ids(orders.subList(0, 2)), ids(replayAll()));
+    }
+
+    @Test
+    void replayShouldNotContinueIntoLaterSegmentsAfterCorruptedRecord() throws Exception {
+        List<Order> orders = new OrderService().placeOrders(Collections.nCopies(10, car));
+        try (OrderJournal journal = OrderJournal.open(tempDir, 4)) {
+            journal.appendAll(orders).get(5, TimeUnit.SECONDS);
+        }
+
+        Path segment = segmentFiles().get(0);
+        flipByte(segment, OrderJournal.HEADER_SIZE + OrderJournal.RECORD_SIZE + 3);
+
+        assertEquals(ids(orders.subList(0, 1)), ids(replayAll()));
+    }
+
+    @Test
+    void reopenedJournalShouldAppendAfterCorruptedRecordInEarlierSegment() throws Exception {
+        OrderService service = new OrderService();
+        List<Order> before = service.placeOrders(Collections.nCopies(10, car));
+        List<Order> after = service.placeOrders(Collections.nCopies(2, car));
+        try (OrderJournal journal = OrderJournal.open(tempDir, 4)) {
+            journal.appendAll(before).get(5, TimeUnit.SECONDS);
+        }
+        flipByte(segmentFiles().get(0), OrderJournal.HEADER_SIZE + OrderJournal.RECORD_SIZE + 3);
+
+        try (OrderJournal journal = OrderJournal.open(tempDir, 4)) {
+            journal.appendAll(after).get(5, TimeUnit.SECONDS);
+        }
+
+        List<Order> expected = new ArrayList<>(before.subList(0, 1));
+        expected.addAll(after);
+        assertEquals(ids(expected), ids(replayAll()));
+        assertEquals(1, segmentFiles().size());
+    }
+
+    @Test
+    void reopenedJournalShouldNotRevealRecordsBehindCorruptedRecord() throws Exception {
+        OrderService service = new OrderService();
+        List<Order> before = service.placeOrders(Collections.nCopies(3, car));
+        Order after = service.placeOrders(List.of(car)).get(0);
+        try (OrderJournal journal = OrderJournal.open(tempDir, 8)) {
+            journal.appendAll(before).get(5, TimeUnit.SECONDS);
+        }
+        flipByte(segmentFiles().get(0), OrderJournal.HEADER_SIZE + OrderJournal.RECORD_SIZE + 3);
+
+        try (OrderJournal journal = OrderJournal.open(tempDir, 8)) {
+            journal.append(after).get(5, TimeUnit.SECONDS);
+            journal.append(after).get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(List.of(before.get(0).getId(), after.getId(), after.getId()), ids(replayAll()));
+    }
+
+    @Test
+    void reopeningWithDifferentSegmentSizeShouldFail() throws Exception {
+        try (OrderJournal journal = OrderJournal.open(tempDir, 4)) {
+            journal.append(new Order(UUID.randomUUID(), car, Instant.now(), OrderStatus.PLACED)).get(5, TimeUnit.SECONDS);
+        }
+
+        assertThrows(IOException.class, () -> OrderJournal.open(tempDir, 8));
+        assertEquals(1, replayAll().size());
+    }
+
+    @Test
+    void recoverShouldKeepLatestRecordPerOrder() throws Exception {
+        UUID id = UUID.randomUUID();
+        Car sedan = new CarBuilder()
+                .withModel(CarModel.SEDAN)
+                .withEngine(EngineType.V6)
+                .withTransmission(TransmissionType.MANUAL)
+                .build();
+        try (OrderJournal journal = OrderJournal.open(tempDir)) {
+            journal.append(new Order(id, car, Instant.now(), OrderStatus.PLACED));
+            journal.append(new Order(id, sedan, Instant.now(), OrderStatus.PLACED)).get(5, TimeUnit.SECONDS);
+        }
+
+        OrderRepository repository = new OrderRepository();
+        assertEquals(2, OrderJournal.recover(tempDir, repository));
+
+        assertEquals(1, repository.size());
+        assertEquals(sedan, repository.findById(id).orElseThrow().getCar());
+    }
+
+    @Test
+    void journalShouldRecordOrdersPlacedThroughService() throws Exception {
+        OrderService service = new OrderService();
+        List<Order> placed;
+        try (OrderJournal journal = OrderJournal.open(tempDir)) {
+            service.addDurableListener(journal);
+            placed = new ArrayList<>(service.placeOrders(Collections.nCopies(3, car)));
+            placed.add(service.placeOrder(car));
+            // the listener waits for the group commit, so no explicit sync is needed
+            assertEquals(ids(placed), ids(replayAll()));
+        }
+
+        assertEquals(ids(placed), ids(replayAll()));
+    }
+
+    @Test
+    void failedSegmentRollShouldDiscardTheWholeBatch() throws Exception {
+        OrderService service = new OrderService();
+        List<Order> before = service.placeOrders(Collections.nCopies(2, car));
+        List<Order> failed = service.placeOrders(Collections.nCopies(3, car));
+        Order after = service.placeOrder(car);
+        try (OrderJournal journal = OrderJournal.open(tempDir, 4)) {
+            journal.appendAll(before).get(5, TimeUnit.SECONDS);
+            // a directory in place of the next segment makes the roll fail
+            Path blocker = Files.createDirectory(tempDir.resolve("orders-000001.journal"));
+
+            assertThrows(UncheckedIOException.class, () -> journal.appendAll(failed));
+
+            Files.delete(blocker);
+            journal.append(after).get(5, TimeUnit.SECONDS);
+        }
+
+        List<Order> expected = new ArrayList<>(before);
+        expected.add(after);
+        assertEquals(ids(expected), ids(replayAll()));
+    }
+
+    @Test
+    void closedJournalShouldRejectAppends() throws IOException {
+        OrderJournal journal = OrderJournal.open(tempDir);
+        journal.close();
+        journal.close();
+
+        assertThrows(IllegalStateException.class, journal::sync);
+    }
+
+    @Test
+    void replayOfMissingDirectoryShouldBeEmpty() throws IOException {
+        assertEquals(0, OrderJournal.replay(tempDir.resolve("missing"), order -> fail("unexpected order")));
+    }
+
+    private List<Order> replayAll() throws IOException {
+        List<Order> replayed = new ArrayList<>();
+        OrderJournal.replay(tempDir, replayed::add);
+        return replayed;
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    /** Inverts one byte, so the record changes whatever it held. */
+    private static void flipByte(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1);
+            channel.read(buffer, position);
+            buffer.put(0, (byte) ~buffer.get(0));
+            buffer.rewind();
+            channel.write(buffer, position);
+        }
+    }
+
+    private static List<UUID> ids(List<Order> orders) {
+        return orders.stream().map(Order::getId).toList();
+    }
+}
@@ -0,0 +1,163 @@
+package integration.order;
+
+import car.builder.CarBuilder;
+import car.domain.Car;
+import car.domain.CarModel;
+import car.domain.EngineType;
+import car.domain.TransmissionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderLifecycleTest {
+
+    @TempDir
+    Path tempDir;
+
+    private OrderService service;
+    private Car car;
+
+    @BeforeEach
+    void setUp() {
+        service = new OrderService();
+        car = new CarBuilder()
+                .withModel(CarModel.SEDAN)
+                .withEngine(EngineType.V6)
+                .withTransmission(TransmissionType.AUTOMATIC)
+                .build();
+    }
+
+    @Test
+    void transitionTableShouldFollowLifecycle() {
+        assertTrue(OrderStatus.PLACED.canTransitionTo(OrderStatus.CONFIRMED));
+        assertTrue(OrderStatus.PLACED.canTransitionTo(OrderStatus.CANCELLED));
+        assertTrue(OrderStatus.CONFIRMED.canTransitionTo(OrderStatus.IN_PRODUCTION));
+        assertTrue(OrderStatus.CONFIRMED.canTransitionTo(OrderStatus.CANCELLED));
+        assertTrue(OrderStatus.IN_PRODUCTION.canTransitionTo(OrderStatus.SHIPPED));
+
+        assertFalse(OrderStatus.PLACED.canTransitionTo(OrderStatus.SHIPPED));
+        assertFalse(OrderStatus.IN_PRODUCTION.canTransitionTo(OrderStatus.CANCELLED));
+        assertFalse(OrderStatus.CONFIRMED.canTransitionTo(OrderStatus.PLACED));
+        for (OrderStatus target : OrderStatus.values()) {
+            assertFalse(OrderStatus.SHIPPED.canTransitionTo(target));
+            assertFalse(OrderStatus.CANCELLED.canTransitionTo(target));
+        }
+        assertTrue(OrderStatus.SHIPPED.isTerminal());
+        assertFalse(OrderStatus.CONFIRMED.isTerminal());
+    }
+
+    @Test
+    void updateStatusShouldWalkTheLifecycleAndReindex() {
+        Order order = service.placeOrder(car);
+
+        service.updateStatus(order.getId(), OrderStatus.CONFIRMED);
+        service.updateStatus(order.getId(), OrderStatus.IN_PRODUCTION);
+        Order shipped = service.updateStatus(order.getId(), OrderStatus.SHIPPED);
+
+        assertSame(order, shipped);
+        assertEquals(OrderStatus.SHIPPED, order.getStatus());
+        assertEquals(0, service.getRepository().countByStatus(OrderStatus.PLACED));
+        assertEquals(List.of(order), service.getRepository().findByStatus(OrderStatus.SHIPPED));
+    }
+
+    @Test
+    void invalidTransitionShouldBeRejected() {
+        Order order = service.placeOrder(car);
+
+        IllegalOrderTransitionException ex = assertThrows(IllegalOrderTransitionException.class,
+                () -> service.updateStatus(order.getId(), OrderStatus.SHIPPED));
+
+        assertEquals(order.getId(), ex.getOrderId());
+        assertEquals(OrderStatus.PLACED, ex.getFrom());
+        assertEquals(OrderStatus.SHIPPED, ex.getTo());
+        assertEquals(OrderStatus.PLACED, order.getStatus());
+    }
+
+    @Test
+    void compareAndSetStatusShouldFailWhenStatusDiffers() {
+        Order order = service.placeOrder(car);
+
+        assertFalse(service.compareAndSetStatus(order.getId(), OrderStatus.CONFIRMED, OrderStatus.IN_PRODUCTION));
+        assertTrue(service.compareAndSetStatus(order.getId(), OrderStatus.PLACED, OrderStatus.CONFIRMED));
+        assertEquals(OrderStatus.CONFIRMED, order.getStatus());
+    }
+
+    @Test
+    void unknownOrderShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> service.cancelOrder(UUID.randomUUID()));
+    }
+
+    @Test
+    void concurrentConfirmationsShouldSucceedExactlyOnce() throws Exception {
+        Order order = service.placeOrder(car);
+        AtomicInteger winners = new AtomicInteger();
+        AtomicInteger notifications = new AtomicInteger();
+        service.addListener(new OrderListener() {
+            @Override
+            public void ordersPlaced(List<Order> orders) {
+            }
+
+            @Override
+            public void statusChanged(Order changed, OrderStatus previous, OrderStatus current) {
+                notifications.incrementAndGet();
+            }
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    if (service.compareAndSetStatus(order.getId(), OrderStatus.PLACED, OrderStatus.CONFIRMED)) {
+                        winners.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1, winners.get());
+        assertEquals(1, notifications.get());
+        assertEquals(1, service.getRepository().countByStatus(OrderStatus.CONFIRMED));
+    }
+
+    @Test
+    void journalShouldRecoverLatestStatus() throws Exception {
+        Order order;
+        try (OrderJournal journal = OrderJournal.open(tempDir)) {
+            service.addDurableListener(journal);
+            order = service.placeOrder(car);
+            service.updateStatus(order.getId(), OrderStatus.CONFIRMED);
+            service.cancelOrder(order.getId());
+            journal.sync().get(5, TimeUnit.SECONDS);
+        }
+
+        OrderRepository recovered = new OrderRepository();
+        OrderJournal.recover(tempDir, recovered);
+
+        assertEquals(OrderStatus.CANCELLED, recovered.findById(order.getId()).orElseThrow().getStatus());
+        assertEquals(1, recovered.countByStatus(OrderStatus.CANCELLED));
+        assertEquals(0, recovered.countByStatus(OrderStatus.PLACED));
+    }
+}
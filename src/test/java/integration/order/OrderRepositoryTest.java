@@ -0,0 +1,149 @@
+package integration.order;
+
+import car.builder.CarBuilder;
+import car.domain.Car;
+import car.domain.CarModel;
+import car.domain.EngineType;
+import car.domain.TransmissionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderRepositoryTest {
+
+    private static final Instant BASE = Instant.parse("2024-03-01T12:00:00Z");
+
+    private OrderRepository repository;
+    private Car suv;
+    private Car sedan;
+
+    @BeforeEach
+    void setUp() {
+        repository = new OrderRepository();
+        suv = new CarBuilder()
+                .withModel(CarModel.SUV)
+                .withEngine(EngineType.V8)
+                .withTransmission(TransmissionType.AUTOMATIC)
+                .build();
+        sedan = new CarBuilder()
+                .withModel(CarModel.SEDAN)
+                .withEngine(EngineType.V6)
+                .withTransmission(TransmissionType.MANUAL)
+                .build();
+    }
+
+    @Test
+    void saveShouldMakeOrderFindableById() {
+        Order order = order(suv, BASE);
+
+        repository.save(order);
+
+        assertSame(order, repository.findById(order.getId()).orElseThrow());
+        assertTrue(repository.findById(UUID.randomUUID()).isEmpty());
+        assertEquals(1, repository.size());
+    }
+
+    @Test
+    void findByModelAndStatusShouldUseIndexes() {
+        repository.saveAll(List.of(order(suv, BASE), order(suv, BASE), order(sedan, BASE)));
+
+        assertEquals(2, repository.findByModel(CarModel.SUV).size());
+        assertEquals(1, repository.findByModel(CarModel.SEDAN).size());
+        assertTrue(repository.findByModel(CarModel.SPORTS).isEmpty());
+        assertEquals(3, repository.findByStatus(OrderStatus.PLACED).size());
+        assertEquals(2, repository.countByModel(CarModel.SUV));
+        assertEquals(3, repository.countByStatus(OrderStatus.PLACED));
+    }
+
+    @Test
+    void findCreatedBetweenShouldReturnOrdersInRangeOldestFirst() {
+        Order early = order(suv, BASE.minusSeconds(60));
+        Order first = order(suv, BASE);
+        Order second = order(sedan, BASE.plusSeconds(30));
+        Order late = order(sedan, BASE.plusSeconds(60));
+        repository.saveAll(List.of(late, second, early, first));
+
+        List<Order> found = repository.findCreatedBetween(BASE, BASE.plusSeconds(60));
+
+        assertEquals(List.of(first, second), found);
+    }
+
+    @Test
+    void saveShouldReplaceExistingOrderAndReindex() {
+        Order original = order(suv, BASE);
+        repository.save(original);
+        Order replacement = new Order(original.getId(), sedan, BASE.plusSeconds(5), OrderStatus.PLACED);
+
+        repository.save(replacement);
+
+        assertEquals(1, repository.size());
+        assertTrue(repository.findByModel(CarModel.SUV).isEmpty());
+        assertEquals(List.of(replacement), repository.findByModel(CarModel.SEDAN));
+        assertEquals(List.of(replacement), repository.findCreatedBetween(BASE, BASE.plusSeconds(10)));
+    }
+
+    @Test
+    void removeShouldDropOrderFromAllIndexes() {
+        Order order = order(suv, BASE);
+        repository.save(order);
+
+        assertSame(order, repository.remove(order.getId()).orElseThrow());
+
+        assertTrue(repository.remove(order.getId()).isEmpty());
+        assertEquals(0, repository.size());
+        assertEquals(0, repository.countByModel(CarModel.SUV));
+        assertEquals(0, repository.countByStatus(OrderStatus.PLACED));
+        assertTrue(repository.findCreatedBetween(BASE, BASE.plusSeconds(1)).isEmpty());
+    }
+
+    @Test
+    void concurrentSavesShouldAllBeIndexed() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        repository.save(order(i % 2 == 0 ? suv : sedan, BASE.plusMillis(i)));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(4_000, repository.size());
+        assertEquals(2_000, repository.countByModel(CarModel.SUV));
+        assertEquals(4_000, repository.findCreatedBetween(BASE, BASE.plusSeconds(1)).size());
+    }
+
+    @Test
+    void orderServiceShouldStorePlacedOrders() {
+        OrderService service = new OrderService();
+
+        Order single = service.placeOrder(suv);
+        List<Order> batch = service.placeOrders(List.of(sedan, sedan));
+
+        assertSame(single, service.findOrder(single.getId()).orElseThrow());
+        assertEquals(3, service.getRepository().size());
+        assertEquals(batch, service.getRepository().findByModel(CarModel.SEDAN).stream()
+                .sorted((a, b) -> a.getId().compareTo(b.getId()))
+                .toList());
+    }
+
+    private static Order order(Car car, Instant createdAt) {
+        return new Order(UUID.randomUUID(), car, createdAt, OrderStatus.PLACED);
+    }
+}
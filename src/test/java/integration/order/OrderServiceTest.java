@@ -1,11 +1,23 @@
 package integration.order;
 
 import car.builder.CarBuilder;
+import car.domain.Car;
 import car.domain.CarModel;
 import car.domain.EngineType;
 import car.domain.TransmissionType;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class OrderServiceTest {
@@ -26,4 +38,178 @@ class OrderServiceTest {
         assertNotNull(order.getCreatedAt());
         assertEquals(car, order.getCar());
     }
+
+    @Test
+    void placeOrderShouldAcceptExternalIdOnce() {
+        var car = new CarBuilder()
+                .withModel(CarModel.SUV)
+                .withEngine(EngineType.V6)
+                .withTransmission(TransmissionType.AUTOMATIC)
+                .build();
+        UUID id = UUID.randomUUID();
+
+        OrderService service = new OrderService();
+        Order order = service.placeOrder(id, car);
+
+        assertEquals(id, order.getId());
+        assertEquals(order, service.findOrder(id).orElseThrow());
+        assertEquals(1, service.getFleetAggregates().snapshot().total());
+        assertThrows(IllegalArgumentException.class, () -> service.placeOrder(id, car));
+    }
+
+    @Test
+    void placeOrderShouldUseTimeOrderedIdsByDefault() {
+        Order order = new OrderService().placeOrder(sampleCar());
+
+        assertEquals(7, order.getId().version());
+        assertEquals(order.getCreatedAt().toEpochMilli(),
+                TimeOrderedIdGenerator.timestampOf(order.getId()).toEpochMilli());
+    }
+
+    @Test
+    void placeOrderShouldUseConfiguredGeneratorAndClock() {
+        Instant now = Instant.parse("2024-01-01T00:00:00Z");
+        UUID fixedId = UUID.randomUUID();
+        OrderService service = new OrderService(createdAt -> fixedId, Clock.fixed(now, ZoneOffset.UTC));
+
+        Order order = service.placeOrder(sampleCar());
+
+        assertEquals(fixedId, order.getId());
+        assertEquals(now, order.getCreatedAt());
+    }
+
+    @Test
+    void randomGeneratorShouldProduceVersion4Ids() {
+        Order order = new OrderService(OrderIdGenerator.random()).placeOrder(sampleCar());
+
+        assertEquals(4, order.getId().version());
+    }
+
+    @Test
+    void placeOrdersShouldShareTimestampAndUseUniqueSortedIds() {
+        Instant now = Instant.parse("2024-01-01T00:00:00Z");
+        OrderService service = new OrderService(OrderIdGenerator.timeOrdered(), Clock.fixed(now, ZoneOffset.UTC));
+        List<Car> cars = Collections.nCopies(1_000, sampleCar());
+
+        List<Order> orders = service.placeOrders(cars);
+
+        assertEquals(1_000, orders.size());
+        assertEquals(1_000, orders.stream().map(Order::getId).distinct().count());
+        for (int i = 0; i < orders.size(); i++) {
+            assertEquals(now, orders.get(i).getCreatedAt());
+            assertEquals(OrderStatus.PLACED, orders.get(i).getStatus());
+            if (i > 0) {
+                assertTrue(orders.get(i - 1).getId().compareTo(orders.get(i).getId()) < 0);
+            }
+        }
+    }
+
+    @Test
+    void placeOrdersShouldRejectBatchContainingNull() {
+        List<Car> cars = Arrays.asList(sampleCar(), null);
+
+        NullPointerException ex = assertThrows(NullPointerException.class,
+                () -> new OrderService().placeOrders(cars));
+        assertTrue(ex.getMessage().contains("index 1"));
+    }
+
+    @Test
+    void placeOrdersShouldUseDefaultBlockAllocationForCustomGenerators() {
+        OrderService service = new OrderService(OrderIdGenerator.random());
+
+        List<Order> orders = service.placeOrders(List.of(sampleCar(), sampleCar()));
+
+        assertNotEquals(orders.get(0).getId(), orders.get(1).getId());
+        assertTrue(new OrderService().placeOrders(List.of()).isEmpty());
+    }
+
+    @Test
+    void durableListenersShouldRunBeforeFleetAndOtherListeners() {
+        OrderService service = new OrderService();
+        List<Long> fleetTotals = new ArrayList<>();
+        service.addListener(orders -> fleetTotals.add(service.getFleetAggregates().snapshot().total()));
+        service.addDurableListener(orders -> fleetTotals.add(service.getFleetAggregates().snapshot().total()));
+
+        service.placeOrder(sampleCar());
+
+        assertEquals(List.of(0L, 1L), fleetTotals);
+    }
+
+    @Test
+    void failingDurableListenerShouldUndoPlacement() {
+        OrderService service = new OrderService();
+        List<Order> notified = new ArrayList<>();
+        service.addListener(notified::addAll);
+        service.addDurableListener(orders -> {
+            throw new UncheckedIOException(new IOException("disk full"));
+        });
+
+        assertThrows(UncheckedIOException.class, () -> service.placeOrders(List.of(sampleCar(), sampleCar())));
+        assertThrows(UncheckedIOException.class, () -> service.placeOrder(UUID.randomUUID(), sampleCar()));
+
+        assertEquals(0, service.getRepository().size());
+        assertEquals(0, service.getFleetAggregates().snapshot().total());
+        assertTrue(notified.isEmpty());
+    }
+
+    @Test
+    void failingDurableListenerShouldUndoStatusChange() {
+        OrderService service = new OrderService();
+        Order order = service.placeOrder(sampleCar());
+        List<OrderStatus> notified = new ArrayList<>();
+        service.addListener(new OrderListener() {
+            @Override
+            public void ordersPlaced(List<Order> orders) {
+            }
+
+            @Override
+            public void statusChanged(Order changed, OrderStatus previous, OrderStatus current) {
+                notified.add(current);
+            }
+        });
+        service.addDurableListener(new OrderListener() {
+            @Override
+            public void ordersPlaced(List<Order> orders) {
+            }
+
+            @Override
+            public void statusChanged(Order changed, OrderStatus previous, OrderStatus current) {
+                throw new UncheckedIOException(new IOException("disk full"));
+            }
+        });
+
+        assertThrows(UncheckedIOException.class, () -> service.cancelOrder(order.getId()));
+        assertThrows(UncheckedIOException.class,
+                () -> service.compareAndSetStatus(order.getId(), OrderStatus.PLACED, OrderStatus.CONFIRMED));
+
+        assertEquals(OrderStatus.PLACED, order.getStatus());
+        assertEquals(1, service.getRepository().countByStatus(OrderStatus.PLACED));
+        assertEquals(0, service.getRepository().countByStatus(OrderStatus.CANCELLED));
+        assertEquals(1, service.getFleetAggregates().snapshot().total());
+        assertTrue(notified.isEmpty());
+    }
+
+    @Test
+    void restoreShouldReplaceEarlierRecordAndKeepFleetCounts() {
+        OrderService service = new OrderService();
+        UUID id = UUID.randomUUID();
+        Instant createdAt = Instant.parse("2024-01-01T00:00:00Z");
+
+        service.restore(new Order(id, sampleCar(), createdAt, OrderStatus.PLACED));
+        service.restore(new Order(id, sampleCar(), createdAt, OrderStatus.CONFIRMED));
+        assertEquals(1, service.getFleetAggregates().snapshot().total());
+
+        service.restore(new Order(id, sampleCar(), createdAt, OrderStatus.CANCELLED));
+        assertEquals(0, service.getFleetAggregates().snapshot().total());
+        assertEquals(OrderStatus.CANCELLED, service.findOrder(id).orElseThrow().getStatus());
+        assertEquals(1, service.getRepository().size());
+    }
+
+    private static Car sampleCar() {
+        return new CarBuilder()
+                .withModel(CarModel.SUV)
+                .withEngine(EngineType.V6)
+                .withTransmission(TransmissionType.AUTOMATIC)
+                .build();
+    }
 }
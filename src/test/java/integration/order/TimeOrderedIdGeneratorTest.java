@@ -0,0 +1,61 @@
+package integration.order;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedIdGeneratorTest {
+
+    private final TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator();
+
+    @Test
+    void nextIdShouldProduceVersion7RfcVariantUuids() {
+        UUID id = generator.nextId(Instant.now());
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+    }
+
+    @Test
+    void nextIdShouldEncodeCreationTime() {
+        Instant createdAt = Instant.parse("2024-05-01T10:15:30.123456Z");
+
+        UUID id = generator.nextId(createdAt);
+
+        assertEquals(Instant.parse("2024-05-01T10:15:30.123Z"), TimeOrderedIdGenerator.timestampOf(id));
+    }
+
+    @Test
+    void idsShouldSortByCreationTime() {
+        Instant base = Instant.parse("2024-05-01T10:15:30Z");
+
+        UUID first = generator.nextId(base);
+        UUID subMillisecondLater = generator.nextId(base.plusNanos(500_000));
+        UUID later = generator.nextId(base.plusMillis(1));
+
+        assertTrue(first.compareTo(subMillisecondLater) < 0);
+        assertTrue(subMillisecondLater.compareTo(later) < 0);
+    }
+
+    @Test
+    void idsForSameInstantShouldBeUnique() {
+        Instant createdAt = Instant.now();
+        Set<UUID> ids = new HashSet<>();
+
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(generator.nextId(createdAt));
+        }
+
+        assertEquals(10_000, ids.size());
+    }
+
+    @Test
+    void timestampOfShouldRejectOtherVersions() {
+        assertThrows(IllegalArgumentException.class, () -> TimeOrderedIdGenerator.timestampOf(UUID.randomUUID()));
+    }
+}
@@ -0,0 +1,83 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures heap bytes allocated per operation on the current thread and fails
+ * when an operation exceeds its declared budget.
+ * <p>
+ * The operation is first run often enough for the JIT to compile it, then
+ * measured in several rounds; the lowest round counts, so one-off allocations
+ * such as class initialization or a GC-triggered deoptimization do not make a
+ * budget flaky.
+ */
+public final class AllocationBudget {
+
+    private static final int WARMUP_ITERATIONS = 50_000;
+    private static final int ROUNDS = 5;
+    private static final int ITERATIONS_PER_ROUND = 10_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private AllocationBudget() {
+        // utility class
+    }
+
+    /**
+     * Operation under measurement; the result is kept alive so the JIT cannot
+     * remove the work.
+     */
+    @FunctionalInterface
+    public interface Operation {
+        Object run() throws Exception;
+    }
+
+    /** @return whether the JVM can measure per-thread allocation */
+    public static boolean isSupported() {
+        return THREADS.isThreadAllocatedMemorySupported() && THREADS.isThreadAllocatedMemoryEnabled();
+    }
+
+    /**
+     * Measures the bytes one run of the operation allocates.
+     * @param operation the operation to measure
+     * @return allocated bytes per run, rounded down
+     */
+    public static long bytesPerOperation(Operation operation) throws Exception {
+        Object sink = null;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink = operation.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = THREADS.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < ITERATIONS_PER_ROUND; i++) {
+                sink = operation.run();
+            }
+            long allocated = THREADS.getCurrentThreadAllocatedBytes() - before;
+            best = Math.min(best, allocated);
+        }
+        blackhole(sink);
+        return best / ITERATIONS_PER_ROUND;
+    }
+
+    /**
+     * Fails unless the operation allocates at most {@code budgetBytes} per run.
+     * @param name the operation, for the failure message
+     * @param budgetBytes the allowed bytes per run
+     * @param operation the operation to measure
+     */
+    public static void assertWithinBudget(String name, long budgetBytes, Operation operation) throws Exception {
+        long actual = bytesPerOperation(operation);
+        assertTrue(actual <= budgetBytes,
+                name + " allocates " + actual + " bytes per operation, budget is " + budgetBytes);
+    }
+
+    private static volatile Object consumed;
+
+    private static void blackhole(Object value) {
+        consumed = value;
+    }
+}
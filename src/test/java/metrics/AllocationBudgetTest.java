@@ -0,0 +1,134 @@
+package metrics;
+
+import car.builder.CarBuilder;
+import car.domain.Car;
+import car.domain.CarConfigurationCodec;
+import car.domain.CarModel;
+import car.domain.Color;
+import car.domain.EngineType;
+import car.domain.ExteriorFeature;
+import car.domain.InteriorFeature;
+import car.domain.SafetyFeature;
+import car.domain.TransmissionType;
+import editor.core.Document;
+import editor.factory.DocumentFactory;
+import integration.CarReportGenerator;
+import integration.order.FleetAggregates;
+import integration.order.Order;
+import integration.order.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Allocation budgets for the hot paths. A budget of zero means the path must
+ * stay allocation-free once compiled; the others leave a little headroom over
+ * what the path allocates today, so only a real regression fails them.
+ */
+class AllocationBudgetTest {
+
+    private CarBuilder builder;
+    private Car car;
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(AllocationBudget.isSupported(), "per-thread allocation counting is not available");
+        builder = new CarBuilder()
+                .withModel(CarModel.SUV)
+                .withEngine(EngineType.V8)
+                .withTransmission(TransmissionType.AUTOMATIC)
+                .setColor(Color.RED)
+                .addInteriorFeature(InteriorFeature.GPS)
+                .addExteriorFeature(ExteriorFeature.SUNROOF)
+                .addSafetyFeature(SafetyFeature.ABS);
+        car = builder.build();
+        order = new OrderService().placeOrder(car);
+    }
+
+    @Test
+    void validatingAnInternedCarShouldNotAllocate() throws Exception {
+        assertSame(car, builder.build());
+        AllocationBudget.assertWithinBudget("CarBuilder.build", 0, builder::build);
+    }
+
+    @Test
+    void encodingShouldNotAllocate() throws Exception {
+        AllocationBudget.assertWithinBudget("CarConfigurationCodec.encode", 0,
+                () -> CarConfigurationCodec.encode(car) == 0 ? null : car);
+    }
+
+    @Test
+    void recordingMetricsShouldNotAllocate() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        Histogram histogram = new Histogram();
+
+        AllocationBudget.assertWithinBudget("MetricsRegistry.recordSave", 0, () -> {
+            registry.recordSave("pdf", 1_234_567, 4096);
+            return registry;
+        });
+        AllocationBudget.assertWithinBudget("MetricsRegistry.recordValidationFailure", 0, () -> {
+            registry.recordValidationFailure("missing_engine");
+            return registry;
+        });
+        AllocationBudget.assertWithinBudget("MetricsRegistry.recordOrdersPlaced", 0, () -> {
+            registry.recordOrdersPlaced(1);
+            return registry;
+        });
+        AllocationBudget.assertWithinBudget("Histogram.record", 0, () -> {
+            histogram.record(987_654);
+            return histogram;
+        });
+    }
+
+    @Test
+    void fleetAggregatesShouldNotAllocate() throws Exception {
+        FleetAggregates aggregates = new FleetAggregates();
+
+        AllocationBudget.assertWithinBudget("FleetAggregates.add/remove", 0, () -> {
+            aggregates.add(order);
+            aggregates.remove(order);
+            return aggregates;
+        });
+    }
+
+    @Test
+    void reportShouldOnlyAllocateItsText() throws Exception {
+        CarReportGenerator generator = new CarReportGenerator();
+        StringBuilder sink = new StringBuilder(2048);
+
+        AllocationBudget.assertWithinBudget("CarReportGenerator.writeReport", 0, () -> {
+            sink.setLength(0);
+            generator.writeReport(car, null, sink);
+            return sink;
+        });
+        // the order id is rendered with UUID.toString()
+        AllocationBudget.assertWithinBudget("CarReportGenerator.writeReport with order", 128, () -> {
+            sink.setLength(0);
+            generator.writeReport(car, order, sink);
+            return sink;
+        });
+        AllocationBudget.assertWithinBudget("CarReportGenerator.generateReport", 2048,
+                () -> generator.generateReport(car, order));
+    }
+
+    @Test
+    void documentsShouldStayWithinBudget() throws Exception {
+        DocumentFactory factory = DocumentFactory.createDefault();
+        Document html = factory.createDocument("html", "Budget");
+        html.setContent(new CarReportGenerator().generateReport(car, order));
+
+        AllocationBudget.assertWithinBudget("DocumentFactory.supportsFormat", 0,
+                () -> factory.supportsFormat("HTML") ? factory : null);
+        AllocationBudget.assertWithinBudget("DocumentFactory.createDocument", 64,
+                () -> factory.createDocument("Html", "Budget"));
+        AllocationBudget.assertWithinBudget("HtmlDocument.writeTo", 16 * 1024, () -> {
+            html.writeTo(OutputStream.nullOutputStream());
+            return html;
+        });
+    }
+}
@@ -0,0 +1,85 @@
+package metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogramTest {
+
+    @Test
+    void bucketsShouldCoverTheLongRangeWithoutGaps() {
+        assertEquals(0, Histogram.lowerBound(0));
+        for (int i = 1; i < Histogram.BUCKET_COUNT; i++) {
+            assertEquals(Histogram.upperBound(i - 1) + 1, Histogram.lowerBound(i), "bucket " + i);
+            assertEquals(i, Histogram.bucketIndex(Histogram.lowerBound(i)));
+            assertEquals(i, Histogram.bucketIndex(Histogram.upperBound(i)));
+        }
+        assertEquals(Histogram.BUCKET_COUNT - 1, Histogram.bucketIndex(Long.MAX_VALUE));
+    }
+
+    @Test
+    void bucketWidthShouldStayWithinAQuarterOfItsValue() {
+        for (int i = 4; i < Histogram.BUCKET_COUNT - 1; i++) {
+            long lower = Histogram.lowerBound(i);
+            long width = Histogram.upperBound(i) - lower + 1;
+            assertTrue(width * 4 <= lower, "bucket " + i);
+        }
+    }
+
+    @Test
+    void finerHistogramsShouldStayWithinOnePercent() {
+        int bits = 7;
+        int buckets = Histogram.bucketCount(bits);
+        for (int i = 1; i < buckets; i++) {
+            assertEquals(Histogram.upperBound(i - 1, bits) + 1, Histogram.lowerBound(i, bits), "bucket " + i);
+            assertEquals(i, Histogram.bucketIndex(Histogram.upperBound(i, bits), bits));
+        }
+        for (int i = 1 << bits; i < buckets - 1; i++) {
+            long lower = Histogram.lowerBound(i, bits);
+            long width = Histogram.upperBound(i, bits) - lower + 1;
+            assertTrue(width * 100 <= lower, "bucket " + i);
+        }
+
+        Histogram histogram = new Histogram(bits);
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        long p50 = histogram.getPercentile(50);
+        assertTrue(p50 >= 500_000 && p50 <= 505_000, "p50 " + p50);
+        assertThrows(IllegalArgumentException.class, () -> new Histogram(0));
+    }
+
+    @Test
+    void percentilesShouldTrackRecordedValues() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_500.0, histogram.getMean(), 0.001);
+        long p50 = histogram.getPercentile(50);
+        assertTrue(p50 >= 500_000 && p50 <= 625_000, "p50 " + p50);
+        long p99 = histogram.getPercentile(99);
+        assertTrue(p99 >= 990_000 && p99 <= 1_000_000, "p99 " + p99);
+        assertEquals(1_000_000, histogram.getPercentile(100));
+    }
+
+    @Test
+    void emptyAndResetHistogramsShouldReportZero() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getPercentile(99));
+        assertEquals(0.0, histogram.getMean());
+
+        histogram.record(-5);
+        histogram.record(42);
+        assertEquals(2, histogram.getCount());
+        assertEquals(42, histogram.getSum());
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertThrows(IllegalArgumentException.class, () -> histogram.getPercentile(101));
+    }
+}
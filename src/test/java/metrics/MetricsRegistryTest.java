@@ -0,0 +1,111 @@
+package metrics;
+
+import car.builder.CarBuilder;
+import car.builder.InvalidCarConfigurationException;
+import car.domain.CarModel;
+import car.domain.EngineType;
+import car.domain.TransmissionType;
+import editor.core.Document;
+import editor.factory.DocumentFactory;
+import integration.order.OrderService;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    @Test
+    void registryShouldAggregatePerFormatAndReason() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.recordDocumentCreated("pdf");
+        registry.recordDocumentCreated("pdf");
+        registry.recordDocumentCreated("html");
+        registry.recordSave("pdf", 2_000_000, 1024);
+        registry.recordSave("pdf", 4_000_000, 2048);
+        registry.recordValidationFailure("missing_engine");
+        registry.recordValidationFailure("missing_engine");
+        registry.recordOrdersPlaced(3);
+
+        assertEquals(2L, registry.getDocumentsCreated().get("pdf"));
+        assertEquals(1L, registry.getDocumentsCreated().get("html"));
+        assertEquals(2L, registry.getDocumentsSaved().get("pdf"));
+        assertEquals(3072L, registry.getOutputBytes().get("pdf"));
+        assertEquals(2048L, registry.getOutputBytesMax().get("pdf"));
+        assertEquals(3.0, registry.getSaveLatencyMeanMillis().get("pdf"), 0.001);
+        assertEquals(4.0, registry.getSaveLatencyMaxMillis().get("pdf"), 0.001);
+        assertTrue(registry.getSaveLatencyP99Millis().get("pdf") <= 4.0);
+        assertEquals(2L, registry.getValidationFailures().get("missing_engine"));
+        assertEquals(3, registry.getOrdersPlaced());
+
+        registry.reset();
+        assertEquals(0L, registry.getDocumentsCreated().get("pdf"));
+        assertEquals(0L, registry.getValidationFailures().get("missing_engine"));
+    }
+
+    @Test
+    void hotPathsShouldRecordIntoGlobalRegistry() {
+        MetricsRegistry global = MetricsRegistry.global();
+        long created = global.getDocumentsCreated().getOrDefault("html", 0L);
+        long saved = global.getDocumentsSaved().getOrDefault("html", 0L);
+        long bytes = global.getOutputBytes().getOrDefault("html", 0L);
+        long missingEngine = global.getValidationFailures().getOrDefault("missing_engine", 0L);
+        long unsupported = global.getValidationFailures().getOrDefault("unsupported_engine", 0L);
+        long orders = global.getOrdersPlaced();
+
+        Document document = DocumentFactory.createDefault().createDocument("HTML", "Metrics");
+        document.setContent("body");
+        byte[] output = document.save();
+        assertThrows(InvalidCarConfigurationException.class, () -> new CarBuilder()
+                .withModel(CarModel.SUV).withTransmission(TransmissionType.MANUAL).build());
+        assertThrows(InvalidCarConfigurationException.class, () -> new CarBuilder()
+                .withModel(CarModel.SPORTS).withEngine(EngineType.V6).withTransmission(TransmissionType.MANUAL)
+                .build());
+        new OrderService().placeOrder(new CarBuilder()
+                .withModel(CarModel.SEDAN).withEngine(EngineType.V6).withTransmission(TransmissionType.MANUAL)
+                .build());
+
+        assertEquals(created + 1, global.getDocumentsCreated().get("html"));
+        assertEquals(saved + 1, global.getDocumentsSaved().get("html"));
+        assertEquals(bytes + output.length, global.getOutputBytes().get("html"));
+        assertEquals(missingEngine + 1, global.getValidationFailures().get("missing_engine"));
+        assertEquals(unsupported + 1, global.getValidationFailures().get("unsupported_engine"));
+        assertEquals(orders + 1, global.getOrdersPlaced());
+    }
+
+    @Test
+    void registryShouldBeReadableThroughPlatformMBeanServer() throws Exception {
+        MetricsRegistry global = MetricsRegistry.global();
+        ObjectName name = global.registerPlatformMBean();
+        assertEquals(name, global.registerPlatformMBean());
+        global.recordValidationFailure("jmx_test");
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertTrue(server.isRegistered(new ObjectName(MetricsRegistry.OBJECT_NAME)));
+        assertInstanceOf(Long.class, server.getAttribute(name, "OrdersPlaced"));
+        TabularData failures = (TabularData) server.getAttribute(name, "ValidationFailures");
+        assertNotNull(failures.get(new Object[]{"jmx_test"}));
+    }
+
+    @Test
+    void meterShouldAverageRateOverTicks() {
+        AtomicLong now = new AtomicLong(0);
+        Meter meter = new Meter(now::get);
+
+        meter.mark(50);
+        assertEquals(0.0, meter.getOneMinuteRate());
+        now.addAndGet(Meter.TICK_NANOS);
+        assertEquals(10.0, meter.getOneMinuteRate(), 0.001);
+        assertEquals(10.0, meter.getMeanRate(), 0.001);
+
+        now.addAndGet(TimeUnit.MINUTES.toNanos(10));
+        assertTrue(meter.getOneMinuteRate() < 0.01);
+        assertEquals(50, meter.getCount());
+    }
+}